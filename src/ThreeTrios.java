@@ -20,8 +20,12 @@ import model.ReadOnlyBoard;
 import model.Slot;
 import model.ThreeTriosBoard;
 import model.ViewModel;
+import model.stategy.AlphaBeta;
+import model.stategy.FlipPotential;
 import model.stategy.GoForCorners;
+import model.stategy.IterativeDeepening;
 import model.stategy.LeastChanceOfBeingFlipped;
+import model.stategy.MonteCarlo;
 import model.stategy.MostFlipped;
 import provider.view.gui.frame.TrioGraphicView;
 import view.JFrameView;
@@ -115,6 +119,16 @@ public final class ThreeTrios {
       case "strategy3":
         player1 = new StrategyPlayer(model, new LeastChanceOfBeingFlipped());
         break;
+
+      case "strategy4":
+        player1 = new StrategyPlayer(model,
+                new IterativeDeepening(new AlphaBeta(9, new FlipPotential()), 1000));
+        break;
+
+      case "strategy5":
+        player1 = new StrategyPlayer(model, new MonteCarlo.MonteCarloBuilder()
+                .addTimeBudget(1000).addTreeReuse(true).build());
+        break;
       default:
         throw new IllegalArgumentException("need a case!");
     }
@@ -135,6 +149,16 @@ public final class ThreeTrios {
       case "strategy3":
         player2 = new StrategyPlayer(model, new LeastChanceOfBeingFlipped());
         break;
+
+      case "strategy4":
+        player2 = new StrategyPlayer(model,
+                new IterativeDeepening(new AlphaBeta(9, new FlipPotential()), 1000));
+        break;
+
+      case "strategy5":
+        player2 = new StrategyPlayer(model, new MonteCarlo.MonteCarloBuilder()
+                .addTimeBudget(1000).addTreeReuse(true).build());
+        break;
       default:
         throw new IllegalArgumentException("need a case!");
     }
@@ -6,7 +6,6 @@ import java.util.List;
 import model.Board;
 import model.Card;
 import model.Player;
-import model.Slot;
 import provider.model.cards.ICard;
 import provider.model.grid.ICoordinate;
 import provider.model.grid.IGrid;
@@ -111,12 +110,12 @@ public class ModelAdapter implements ReadonlyTrioGame, IGrid {
 
   @Override
   public Cell getCell(ICoordinate coord) {
-    return new SlotToCellAdapter(delegate.getGrid()[coord.getRow()][coord.getCol()], coord);
+    return new SlotToCellAdapter(delegate.getCoord(coord.getCol(), coord.getRow()), coord);
   }
 
   @Override
   public Cell getUnclonedCell(ICoordinate coord) {
-    return new SlotToCellAdapter(delegate.getGrid()[coord.getRow()][coord.getCol()], coord);
+    return new SlotToCellAdapter(delegate.getCoord(coord.getCol(), coord.getRow()), coord);
   }
 
   @Override
@@ -146,11 +145,10 @@ public class ModelAdapter implements ReadonlyTrioGame, IGrid {
 
   @Override
   public int getEmpty() {
-    Slot[][] grid = delegate.getGrid();
     int ret = 0;
-    for (Slot[] row : grid) {
-      for (Slot cell : row) {
-        if (cell.canPlayCard()) {
+    for (int row = 0; row < delegate.gameHeight(); row++) {
+      for (int col = 0; col < delegate.gameWidth(); col++) {
+        if (delegate.isMoveLegal(col, row)) {
           ret++;
         }
       }
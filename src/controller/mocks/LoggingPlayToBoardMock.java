@@ -8,6 +8,7 @@ import controller.ModelFeatures;
 import model.AttackValue;
 import model.Board;
 import model.Card;
+import model.MoveRecord;
 import model.Player;
 import model.Slot;
 
@@ -31,6 +32,21 @@ public class LoggingPlayToBoardMock implements Board {
     sb.append("Tried to play to (" + x + ", " + y + ") with handIndex=" + handIndex).append("\n");
   }
 
+  @Override
+  public MoveRecord playToBoardUndoable(int handIndex, int x, int y) {
+    return null;
+  }
+
+  @Override
+  public void undo(MoveRecord record) {
+    //nothing to undo for mock
+  }
+
+  @Override
+  public long positionHash() {
+    return 0;
+  }
+
   @Override
   public void startGame() {
     //does nothing here for mock
@@ -0,0 +1,208 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The neighbors of every cell of a grid that is not a hole (a slot that is neither a card nor
+ * can be played to), worked out once so that battles and
+ * strategies can walk them without bounds checks, direction switches or looking at holes. Holes
+ * never change, and no card can battle a hole, so a cell's neighbors are the cells around it that
+ * are not holes. Cells are numbered y * width + x, and the neighbors of a cell are stored as a
+ * run of edges, in the order UP, DOWN, LEFT, RIGHT that battles are fought in. The edges of a
+ * cell are numbered from start(cell) up to but not including end(cell); a hole has none.
+ * This class is immutable.
+ */
+public final class Adjacency {
+
+  //the order neighbors are battled in
+  private static final Direction[] BATTLE_ORDER =
+      {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+
+  private final int width;
+  private final int height;
+  private final long[] open; //bit per cell, set if the cell is not a hole
+  private final int[] starts; //the first edge of each cell, with the total number of edges last
+  private final int[] targets; //the cell each edge leads to
+  private final byte[] order; //the index in BATTLE_ORDER of the direction of each edge
+
+  /**
+   * Works out the neighbors of every cell of the given grid.
+   * @param grid the grid, row-column major
+   * @throws IllegalArgumentException if grid is null, empty, contains null or is not rectangular
+   */
+  public Adjacency(Slot[][] grid) {
+    this(openCells(grid), grid[0].length, grid.length);
+  }
+
+  /**
+   * Works out the neighbors of every cell of a grid from which of its cells are not holes. Only
+   * the cells that are not holes are visited, so a grid that is mostly holes is quick to walk.
+   * @param open a bit per cell, as y * width + x, set if the cell is not a hole, which is kept
+   *             and must not be changed
+   * @param width the number of columns
+   * @param height the number of rows
+   */
+  Adjacency(long[] open, int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.open = open;
+
+    int numCells = width * height;
+    int numOpen = Bits.count(open);
+    this.starts = new int[numCells + 1];
+    int[] cellTargets = new int[numOpen * BATTLE_ORDER.length];
+    byte[] cellOrder = new byte[numOpen * BATTLE_ORDER.length];
+    int numEdges = 0;
+    int nextStart = 0; //the first cell whose start is not known yet
+    for (int word = 0; word < open.length; word++) {
+      for (long bits = open[word]; bits != 0; bits &= bits - 1) {
+        int cell = (word << 6) + Long.numberOfTrailingZeros(bits);
+        //the holes since the last open cell have no edges
+        Arrays.fill(this.starts, nextStart, cell + 1, numEdges);
+        nextStart = cell + 1;
+        for (int dirIdx = 0; dirIdx < BATTLE_ORDER.length; dirIdx++) {
+          int target = this.step(cell, BATTLE_ORDER[dirIdx]);
+          if (target >= 0 && Bits.get(open, target)) {
+            cellTargets[numEdges] = target;
+            cellOrder[numEdges] = (byte) dirIdx;
+            numEdges += 1;
+          }
+        }
+      }
+    }
+    Arrays.fill(this.starts, nextStart, numCells + 1, numEdges);
+    this.targets = Arrays.copyOf(cellTargets, numEdges);
+    this.order = Arrays.copyOf(cellOrder, numEdges);
+  }
+
+  /**
+   * Finds the cells of a grid that are not holes.
+   * @param grid the grid, row-column major
+   * @return a bit per cell, as y * width + x, set if the cell is not a hole
+   * @throws IllegalArgumentException if grid is null, empty, contains null or is not rectangular
+   */
+  private static long[] openCells(Slot[][] grid) {
+    if (grid == null || grid.length == 0 || grid[0] == null || grid[0].length == 0) {
+      throw new IllegalArgumentException("grid must be at least 1 by 1 in size");
+    }
+    int width = grid[0].length;
+    long[] open = new long[Bits.words(width * grid.length)];
+    for (int y = 0; y < grid.length; y++) {
+      if (grid[y] == null || grid[y].length != width) {
+        throw new IllegalArgumentException("grid must be rectangular");
+      }
+      for (int x = 0; x < width; x++) {
+        if (grid[y][x] == null) {
+          throw new IllegalArgumentException("grid cannot have null slots");
+        }
+        if (grid[y][x] instanceof Card || grid[y][x].canPlayCard()) {
+          Bits.set(open, y * width + x);
+        }
+      }
+    }
+    return open;
+  }
+
+  /**
+   * The width of the grid.
+   * @return the number of columns
+   */
+  public int width() {
+    return this.width;
+  }
+
+  /**
+   * The height of the grid.
+   * @return the number of rows
+   */
+  public int height() {
+    return this.height;
+  }
+
+  /**
+   * Determines if a cell is not a hole.
+   * @param cell the cell, as y * width + x
+   * @return whether a card is or could be in the cell
+   * @throws IndexOutOfBoundsException if cell is not in the grid
+   */
+  public boolean isOpen(int cell) {
+    this.checkCell(cell);
+    return Bits.get(this.open, cell);
+  }
+
+  /**
+   * The first edge of a cell.
+   * @param cell the cell, as y * width + x
+   * @return the number of the cell's first edge
+   * @throws IndexOutOfBoundsException if cell is not in the grid
+   */
+  public int start(int cell) {
+    this.checkCell(cell);
+    return this.starts[cell];
+  }
+
+  /**
+   * The edge after the last edge of a cell.
+   * @param cell the cell, as y * width + x
+   * @return one more than the number of the cell's last edge
+   * @throws IndexOutOfBoundsException if cell is not in the grid
+   */
+  public int end(int cell) {
+    this.checkCell(cell);
+    return this.starts[cell + 1];
+  }
+
+  /**
+   * The cell an edge leads to.
+   * @param edge the edge
+   * @return the neighboring cell, as y * width + x
+   * @throws IndexOutOfBoundsException if there is no such edge
+   */
+  public int target(int edge) {
+    return this.targets[edge];
+  }
+
+  /**
+   * The direction of an edge, from its cell to the neighbor it leads to.
+   * @param edge the edge
+   * @return the direction of the neighbor
+   * @throws IndexOutOfBoundsException if there is no such edge
+   */
+  public Direction direction(int edge) {
+    return BATTLE_ORDER[this.order[edge]];
+  }
+
+  /**
+   * The position of an edge's direction in the order battles are fought in: 0 for UP, 1 for
+   * DOWN, 2 for LEFT and 3 for RIGHT.
+   * @param edge the edge
+   * @return the index of the edge's direction
+   * @throws IndexOutOfBoundsException if there is no such edge
+   */
+  public int battleIndex(int edge) {
+    return this.order[edge];
+  }
+
+  private int step(int cell, Direction dir) {
+    int x = cell % this.width;
+    int y = cell / this.width;
+    switch (dir) {
+      case UP:
+        return y > 0 ? cell - this.width : -1;
+      case DOWN:
+        return y < this.height - 1 ? cell + this.width : -1;
+      case LEFT:
+        return x > 0 ? cell - 1 : -1;
+      case RIGHT:
+        return x < this.width - 1 ? cell + 1 : -1;
+      default:
+        throw new IllegalArgumentException("unknown direction");
+    }
+  }
+
+  private void checkCell(int cell) {
+    if (cell < 0 || cell >= this.starts.length - 1) {
+      throw new IndexOutOfBoundsException("no cell " + cell);
+    }
+  }
+}
@@ -0,0 +1,384 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Represents a playable board in the ThreeTriosGame that keeps its state in packed bit sets and
+ * primitive arrays instead of a grid of Slot objects. It plays by exactly the same rules as
+ * ThreeTriosBoard, but placing cards and resolving battles only touches ints and longs, which
+ * makes it suited to simulations that play out many positions.
+ * INVARIANT: there are always more cards in the hands than open slots in the board
+ * INVARIANT: a cell is at most one of a hole or occupied, and only occupied cells are owned
+ * INVARIANT: the grid is always at least 1 by 1 and square
+ * INVARIANT: gridHash and handHash always match the cards in the grid and hands under keys
+ */
+public class BitBoard extends PackedBoard {
+
+  private final long[] holes; //bit per cell, row-column major
+  private final long[] occupied;
+  private final long[] ownedByA;
+  private final long[] ownedByB;
+  private final int[] cellCard; //card id in each cell, -1 if there is no card
+  private final Adjacency adjacency; //the neighbors of every cell that is not a hole
+
+  //scratch space reused by every battle
+  private final long[] visited;
+  private final int[] stackCells;
+  private final int[] stackEdges; //the next edge of each cell on the stack to battle along
+
+  /**
+   * Constructs a BitBoard object.
+   *
+   * @param grid    the grid to use
+   * @param cards   the cards you can use
+   * @param random  random variable to use when shuffling
+   * @param shuffle whether the cards should be shuffled before being dealt
+   * @throws IllegalArgumentException if any argument is null, the grid contains null or is not
+   *                                  square, or there are not more cards than open slots
+   */
+  public BitBoard(Slot[][] grid, List<Card> cards, Random random, boolean shuffle) {
+    this(grid, deal(grid, cards, random, shuffle), Player.firstPlayer());
+  }
+
+  /**
+   * Constructs a BitBoard with the given hands, and the given player to move.
+   *
+   * @param grid  the grid to use
+   * @param hands the cards in each player's hand, which are switched to that player
+   * @param toMove the player whose turn it is
+   * @throws IllegalArgumentException if the grid is null, contains null or is not square
+   */
+  private BitBoard(Slot[][] grid, Map<Player, List<Card>> hands, Player toMove) {
+    super(checkGrid(grid)[0].length, grid.length, openSlots(grid), cardsIn(grid), hands, toMove);
+
+    int numCells = this.width * this.height;
+    int words = Bits.words(numCells);
+    this.holes = new long[words];
+    this.occupied = new long[words];
+    this.ownedByA = new long[words];
+    this.ownedByB = new long[words];
+    this.visited = new long[words];
+    this.cellCard = new int[numCells];
+    this.stackCells = new int[numCells];
+    this.stackEdges = new int[numCells];
+    this.flipped = new int[numCells];
+    this.flippedFrom = new Player[numCells];
+    this.adjacency = new Adjacency(grid);
+
+    //the grid's cards were given their ids in this same order by cardsIn
+    int nextId = 0;
+    for (int row = 0; row < this.height; row++) {
+      for (int col = 0; col < this.width; col++) {
+        int cell = row * this.width + col;
+        Slot slot = grid[row][col];
+        this.cellCard[cell] = -1;
+        if (slot instanceof Card) {
+          this.placeCard(cell, nextId++, slot.getSlotOwner());
+          this.hashGridCard(cell, slot.getSlotOwner());
+        } else if (!slot.canPlayCard()) {
+          Bits.set(this.holes, cell);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks that a grid is at least 1 by 1, square and has no null slots.
+   *
+   * @param grid the grid to check
+   * @return the grid
+   * @throws IllegalArgumentException if the grid is null, contains null or is not square
+   */
+  private static Slot[][] checkGrid(Slot[][] grid) {
+    if (grid == null) {
+      throw new IllegalArgumentException("Arguments for board must be non-null");
+    }
+
+    if (grid.length == 0 || grid[0] == null || grid[0].length == 0) {
+      throw new IllegalArgumentException("grid must be at least 1 by 1 in size");
+    }
+
+    for (Slot[] row : grid) {
+      if (row == null || row.length != grid[0].length) {
+        throw new IllegalArgumentException("grid must be square");
+      }
+      for (Slot slot : row) {
+        if (slot == null) {
+          throw new IllegalArgumentException("grid cannot have null slots");
+        }
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Counts the cells of a grid that a card can be played to, skipping null rows and slots.
+   *
+   * @param grid the grid
+   * @return the number of open slots
+   */
+  private static int openSlots(Slot[][] grid) {
+    int openSlots = 0;
+    for (Slot[] row : grid) {
+      for (int col = 0; row != null && col < row.length; col++) {
+        if (row[col] != null && row[col].canPlayCard()) {
+          openSlots += 1;
+        }
+      }
+    }
+    return openSlots;
+  }
+
+  /**
+   * Lists the cards in a checked grid.
+   *
+   * @param grid the grid
+   * @return its cards, row by row
+   */
+  private static List<Card> cardsIn(Slot[][] grid) {
+    List<Card> gridCards = new ArrayList<>();
+    for (Slot[] row : grid) {
+      for (Slot slot : row) {
+        if (slot instanceof Card) {
+          gridCards.add((Card) slot);
+        }
+      }
+    }
+    return gridCards;
+  }
+
+  /**
+   * Checks the arguments of a new game and deals its cards between the players.
+   *
+   * @param grid    the grid to use
+   * @param cards   the cards you can use
+   * @param random  random variable to use when shuffling
+   * @param shuffle whether the cards should be shuffled before being dealt
+   * @return the cards in each player's hand
+   * @throws IllegalArgumentException if any argument is null, the cards contain null, or there
+   *                                  are not more cards than open slots
+   */
+  private static Map<Player, List<Card>> deal(Slot[][] grid, List<Card> cards, Random random,
+                                              boolean shuffle) {
+    if (grid == null) {
+      throw new IllegalArgumentException("Arguments for board must be non-null");
+    }
+    return PackedBoard.deal(cards, openSlots(grid), random, shuffle);
+  }
+
+  /**
+   * Copies the position of any board onto a new BitBoard, with the same cards in the grid and in
+   * each hand, in the same order, and the same player to move. The copy is already started, has
+   * no listeners, and hashes its positions with the same keys as the other boards, so it can be
+   * played and undone in place to search from the position.
+   *
+   * @param board the board to copy
+   * @return a started board in the same position
+   * @throws IllegalArgumentException if board is null
+   */
+  public static BitBoard copyOf(ReadOnlyBoard board) {
+    if (board == null) {
+      throw new IllegalArgumentException("board cannot be null");
+    }
+    return copyOf(board, board.curPlayer());
+  }
+
+  /**
+   * Copies the position of any board onto a new BitBoard like copyOf, but with the given player
+   * to move.
+   *
+   * @param board  the board to copy
+   * @param toMove the player whose turn it is in the copy
+   * @return a started board in the same position
+   * @throws IllegalArgumentException if board is null or toMove is not A or B
+   */
+  public static BitBoard copyOf(ReadOnlyBoard board, Player toMove) {
+    if (board == null) {
+      throw new IllegalArgumentException("board cannot be null");
+    }
+    if (toMove != Player.A && toMove != Player.B) {
+      throw new IllegalArgumentException("toMove must be A or B");
+    }
+
+    Slot[][] grid = new Slot[board.gameHeight()][board.gameWidth()];
+    for (int row = 0; row < grid.length; row++) {
+      for (int col = 0; col < grid[row].length; col++) {
+        grid[row][col] = board.getCoord(col, row);
+      }
+    }
+    Map<Player, List<Card>> hands = new HashMap<>();
+    hands.put(Player.A, board.getHand(Player.A));
+    hands.put(Player.B, board.getHand(Player.B));
+
+    BitBoard copy = new BitBoard(grid, hands, toMove);
+    copy.markStarted();
+    return copy;
+  }
+
+  /**
+   * Constructs a BitBoard with a random Random variable.
+   *
+   * @param grid  the grid to use
+   * @param cards the cards to use
+   */
+  public BitBoard(Slot[][] grid, List<Card> cards) {
+    this(grid, cards, new Random(), true);
+  }
+
+  @Override
+  protected int firstBattles(int origin, int originEdges, byte[] originValues,
+                             Player originOwner) {
+    int wins = 0;
+    for (int edge = this.adjacency.start(origin); edge < this.adjacency.end(origin); edge++) {
+      Direction dir = this.adjacency.direction(edge);
+      int target = this.adjacency.target(edge);
+      if (Bits.get(this.occupied, target)
+          && (this.beatenBy[this.cellCard[target] * NUM_DIRS + dir.ordinal()]
+              & (1 << originValues[originEdges + dir.ordinal()])) != 0
+          && this.ownerOf(target) != originOwner) {
+        wins |= 1 << this.adjacency.battleIndex(edge);
+      }
+    }
+    return wins;
+  }
+
+  @Override
+  protected int battle(int origin, int firstWins, Player attacker) {
+    int numFlipped = 0;
+    int depth = 0;
+    Bits.set(this.visited, origin);
+    this.stackCells[0] = origin;
+    this.stackEdges[0] = this.adjacency.start(origin);
+
+    while (depth >= 0) {
+      int cell = this.stackCells[depth];
+      int edge = this.stackEdges[depth];
+      if (edge == this.adjacency.end(cell)) {
+        depth -= 1;
+        continue;
+      }
+      this.stackEdges[depth] = edge + 1;
+
+      int target = this.adjacency.target(edge);
+      if (Bits.get(this.visited, target) || !Bits.get(this.occupied, target)) {
+        continue;
+      }
+
+      boolean wins;
+      if (cell == origin) {
+        wins = (firstWins & (1 << this.adjacency.battleIndex(edge))) != 0;
+      } else {
+        Direction dir = this.adjacency.direction(edge);
+        int attack = this.edges[this.cellCard[cell] * NUM_DIRS + dir.ordinal()];
+        wins = (this.beatenBy[this.cellCard[target] * NUM_DIRS + dir.ordinal()]
+            & (1 << attack)) != 0 && this.ownerOf(target) != attacker;
+      }
+      if (wins) {
+        Bits.set(this.visited, target);
+        this.flipped[numFlipped++] = target;
+        depth += 1;
+        this.stackCells[depth] = target;
+        this.stackEdges[depth] = this.adjacency.start(target);
+      }
+    }
+
+    Bits.clear(this.visited, origin);
+    for (int i = 0; i < numFlipped; i++) {
+      Bits.clear(this.visited, this.flipped[i]);
+    }
+    return numFlipped;
+  }
+
+  @Override
+  protected int cardIdAt(int cell) {
+    return this.cellCard[cell];
+  }
+
+  @Override
+  protected Player ownerOf(int cell) {
+    if (Bits.get(this.ownedByA, cell)) {
+      return Player.A;
+    }
+    if (Bits.get(this.ownedByB, cell)) {
+      return Player.B;
+    }
+    return Player.NONE;
+  }
+
+  @Override
+  protected void setOwner(int cell, Player owner) {
+    Bits.clear(this.ownedByA, cell);
+    Bits.clear(this.ownedByB, cell);
+    if (owner == Player.A) {
+      Bits.set(this.ownedByA, cell);
+    } else if (owner == Player.B) {
+      Bits.set(this.ownedByB, cell);
+    }
+  }
+
+  @Override
+  protected void placeCard(int cell, int id, Player owner) {
+    this.cellCard[cell] = id;
+    Bits.set(this.occupied, cell);
+    this.setOwner(cell, owner);
+  }
+
+  @Override
+  protected void removeCard(int cell) {
+    this.cellCard[cell] = -1;
+    Bits.clear(this.occupied, cell);
+    this.setOwner(cell, Player.NONE);
+  }
+
+  @Override
+  protected boolean isOpen(int cell) {
+    return !Bits.get(this.holes, cell) && !Bits.get(this.occupied, cell);
+  }
+
+  @Override
+  protected boolean isHole(int cell) {
+    return Bits.get(this.holes, cell);
+  }
+
+  @Override
+  protected int ownedCount(Player player) {
+    return Bits.count(player == Player.A ? this.ownedByA : this.ownedByB);
+  }
+
+  @Override
+  public int[][] possibleCardsFlippedForHand(Player player) {
+    int handSize = this.getHandSize(player);
+    int numCells = this.width * this.height;
+    int[][] ret = new int[handSize][numCells];
+    //the flips for each mask of first battles won, for the cell being looked at
+    int[] flipsByFirstWins = new int[1 << BATTLE_ORDER.length];
+    for (int cell = 0; cell < numCells; cell++) {
+      if (!this.isOpen(cell)) {
+        for (int[] row : ret) {
+          row[cell] = -1;
+        }
+        continue;
+      }
+      Arrays.fill(flipsByFirstWins, -1);
+      for (int handIdx = 0; handIdx < handSize; handIdx++) {
+        int id = this.hands[player.ordinal()][handIdx];
+        int firstWins = this.firstBattles(cell, id * NUM_DIRS, this.edges, player);
+        if (flipsByFirstWins[firstWins] < 0) {
+          flipsByFirstWins[firstWins] = this.battle(cell, firstWins, player);
+        }
+        ret[handIdx][cell] = flipsByFirstWins[firstWins];
+      }
+    }
+    return ret;
+  }
+
+  @Override
+  public Adjacency getAdjacency() {
+    return this.adjacency;
+  }
+}
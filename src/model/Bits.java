@@ -0,0 +1,39 @@
+package model;
+
+/**
+ * Helpers for treating an array of longs as a set of bits, one per cell of a grid.
+ */
+final class Bits {
+
+  private Bits() {
+  }
+
+  /**
+   * Gives the number of longs needed to hold the given number of bits.
+   * @param numBits the number of bits to hold
+   * @return the number of longs needed
+   */
+  static int words(int numBits) {
+    return (numBits + 63) >>> 6;
+  }
+
+  static boolean get(long[] bits, int idx) {
+    return (bits[idx >>> 6] & (1L << idx)) != 0;
+  }
+
+  static void set(long[] bits, int idx) {
+    bits[idx >>> 6] |= 1L << idx;
+  }
+
+  static void clear(long[] bits, int idx) {
+    bits[idx >>> 6] &= ~(1L << idx);
+  }
+
+  static int count(long[] bits) {
+    int count = 0;
+    for (long word : bits) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+}
@@ -22,6 +22,33 @@ public interface Board extends ReadOnlyBoard {
    */
   void playToBoard(int handIndex, int x, int y);
 
+  /**
+   * Plays a card to the board exactly like playToBoard, but returns a record of the move that
+   * undo can use to take it back. Listeners are not told about moves made this way, so it is
+   * meant for trying moves out in place rather than for playing the game.
+   *
+   * @param handIndex the card in the current player's hand to place on the grid
+   * @param x         the x position of the card to be placed (0-indexed, starting at the top-left)
+   * @param y         the y position of the card to be placed (0-indexed, starting at the top-left);
+   * @return a record of everything the move changed
+   * @throws IllegalArgumentException if x or y are out of range of the grid, hand is out of
+   *                                  range for the current player's hand, or if you cannot
+   *                                  play a card to that cell in the grid
+   * @throws IllegalStateException    if the game has not started or is over
+   */
+  MoveRecord playToBoardUndoable(int handIndex, int x, int y);
+
+  /**
+   * Takes back a move made with playToBoardUndoable, restoring the board, both hands and the
+   * current player to exactly how they were before it. Moves must be undone in the reverse order
+   * they were made.
+   *
+   * @param record the record of the most recent move on this board
+   * @throws IllegalArgumentException if record is null, was not made on this board, or is not
+   *                                  the most recent move
+   */
+  void undo(MoveRecord record);
+
   /**
    * Starts the game and allows the game to be mutated.
    * @throws IllegalStateException if the game has already started, if the game is over, or if
@@ -2,6 +2,7 @@ package model;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -10,36 +11,38 @@ import java.util.Objects;
 import java.util.function.Function;
 
 /**
- * Represents a card that can battle other cards in the ThreeTrios game.
+ * Represents a card that can battle other cards in the ThreeTrios game. A card's name and values
+ * live in a shared, interned CardDefinition, and its rules in lists that are replaced rather than
+ * changed, so a copy of a card shares everything with it except its owner.
  */
 public class Card implements Slot {
 
-  private final String name;
-  private final Map<Direction, AttackValue> values;
+  //compares attack values by their number, the rule cards have unless they are given another
+  private static final Comparator<AttackValue> DEFAULT_RULE = (o1, o2) -> o1.value - o2.value;
+
+  private final CardDefinition definition;
   private Player cardOwner;
   private Comparator<AttackValue> rule;
-  private List<Function<AttackValue, AttackValue>> valueFilters;
+  private List<Function<AttackValue, AttackValue>> valueFilters; //never changed, only replaced
+  private int[] compiledRules; //null until compiled, and again whenever the rules change
 
   /**
    * Constructs a Card object.
    * @param name the name of the card
    * @param cardOwner the owner of the card
    * @param directionValues the values for each direction of the card
+   * @throws IllegalArgumentException if directionValues does not have every direction
    */
   protected Card(String name, Player cardOwner,
               Map<Direction, AttackValue> directionValues) {
-    this.name = Objects.requireNonNull(name);
-    this.cardOwner = Objects.requireNonNull(cardOwner);
-    this.values = directionValues;
-    class DefaultCardComp implements Comparator<AttackValue> {
-      @Override
-      public int compare(AttackValue o1, AttackValue o2) {
-        return o1.value - o2.value;
-      }
-    }
+    this(CardDefinition.of(name, directionValues), cardOwner);
+  }
 
-    this.rule = new DefaultCardComp();
-    this.valueFilters = new ArrayList<>();
+  private Card(CardDefinition definition, Player cardOwner) {
+    this.definition = definition;
+    this.cardOwner = Objects.requireNonNull(cardOwner);
+    this.rule = DEFAULT_RULE;
+    this.valueFilters = Collections.emptyList();
   }
 
   /**
@@ -151,7 +154,7 @@ public class Card implements Slot {
       throw new IllegalArgumentException("direction cannot be null");
     }
 
-    return other.compareAttackValueTo(direction, this.values.get(direction)) < 0;
+    return other.compareAttackValueTo(direction, this.definition.valueIn(direction)) < 0;
   }
 
   @Override
@@ -163,7 +166,10 @@ public class Card implements Slot {
     if (other == null) {
       throw new IllegalArgumentException("other cannot be null");
     }
-    AttackValue a1 = this.values.get(dirAttackComingFrom.getOppositeDirection());
+    AttackValue a1 = this.definition.valueIn(dirAttackComingFrom.getOppositeDirection());
+    if (this.compiledRules != null) {
+      return this.compiledRules[RuleTables.index(a1, other)];
+    }
     AttackValue a2 = other;
     for (Function<AttackValue, AttackValue> transformer : this.valueFilters) {
       a1 = transformer.apply(a1);
@@ -204,17 +210,39 @@ public class Card implements Slot {
 
   @Override
   public Map<Direction, AttackValue> getDirectionalValues() {
-    return new HashMap<>(this.values);
+    return this.definition.values();
   }
 
   @Override
   public void addRule(Comparator<AttackValue> rule) {
     this.rule = rule;
+    this.compiledRules = null;
   }
 
   @Override
   public void addCardTransformer(Function<AttackValue, AttackValue> func) {
-    this.valueFilters.add(func);
+    List<Function<AttackValue, AttackValue>> filters = new ArrayList<>(this.valueFilters);
+    filters.add(func);
+    this.valueFilters = Collections.unmodifiableList(filters);
+    this.compiledRules = null;
+  }
+
+  /**
+   * Whether this card still battles by the default rule, where the higher attack value wins, with
+   * no transformers, as every card does until it is given a rule or transformer.
+   * @return whether this card has no rule or transformer of its own
+   */
+  public boolean hasDefaultRules() {
+    return this.rule == DEFAULT_RULE && this.valueFilters.isEmpty();
+  }
+
+  /**
+   * Compiles this card's comparator and transformers into a table that its battles look up
+   * instead of applying them, until its rules are changed again.
+   * @param tables the compiled tables to find or add this card's rules in
+   */
+  void compileRules(RuleTables tables) {
+    this.compiledRules = tables.tableFor(this.rule, this.valueFilters);
   }
 
   /**
@@ -222,36 +250,48 @@ public class Card implements Slot {
    * @return a card that is identical to this but whose mutations do not effect this
    */
   public Card copyCard() {
-    Card newCard = new Card(this.name, this.cardOwner,
-            new HashMap<Direction, AttackValue>(this.values));
-    for (Function<AttackValue, AttackValue> func : this.valueFilters) {
-      newCard.addCardTransformer(func);
-    }
-    newCard.addRule(this.rule);
+    Card newCard = new Card(this.definition, this.cardOwner);
+    newCard.rule = this.rule;
+    newCard.valueFilters = this.valueFilters;
+    newCard.compiledRules = this.compiledRules;
     return newCard;
   }
 
+  /**
+   * Gives the attack value on one side of this card without copying its values.
+   * @param dir the side of the card
+   * @return the attack value on that side
+   */
+  AttackValue valueIn(Direction dir) {
+    return this.definition.valueIn(dir);
+  }
+
+  /**
+   * Gives the fingerprint of this card used for hashing positions, taken from its name and
+   * values.
+   * @return the fingerprint of this card
+   */
+  long fingerprint() {
+    return this.definition.fingerprint();
+  }
+
 
   @Override
   public String toString() {
-    return this.name + " " + this.values.get(Direction.UP)
-            + " " + this.values.get(Direction.DOWN)
-            + " " + this.values.get(Direction.RIGHT)
-            + " " + this.values.get(Direction.LEFT);
+    return this.definition.toString();
   }
 
   @Override
   public boolean equals(Object o) {
     if (o instanceof Card) {
-      return this.name.equals(((Card)o).name)
-              && this.cardOwner.equals(((Card)o).cardOwner)
-              && this.values.equals(((Card)o).values);
+      return this.definition.equals(((Card)o).definition)
+              && this.cardOwner.equals(((Card)o).cardOwner);
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    return this.name.length();
+    return this.definition.name().length();
   }
 }
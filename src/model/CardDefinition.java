@@ -0,0 +1,132 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * The parts of a card that never change: its name and the attack value on each of its sides.
+ * Definitions are interned, so every card with the same name and values, and every copy of a
+ * card, shares one definition, and a card itself only holds its owner and its rules on top of it.
+ * The values are kept as one byte per side, indexed by the ordinal of the direction.
+ * This class is immutable.
+ */
+final class CardDefinition {
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final AttackValue[] VALUES = AttackValue.values();
+
+  //every definition still in use, so equal definitions are only ever kept once
+  private static final Map<CardDefinition, WeakReference<CardDefinition>> INTERNED =
+      new WeakHashMap<>();
+
+  private final String name;
+  private final byte[] edges; //the ordinal of the attack value on each side
+  private final Map<Direction, AttackValue> values; //a read only view handed out to callers
+  private final long fingerprint;
+
+  private CardDefinition(String name, byte[] edges) {
+    this.name = name;
+    this.edges = edges;
+    Map<Direction, AttackValue> values = new EnumMap<>(Direction.class);
+    for (Direction dir : DIRECTIONS) {
+      values.put(dir, VALUES[edges[dir.ordinal()]]);
+    }
+    this.values = Collections.unmodifiableMap(values);
+    this.fingerprint = ZobristKeys.fingerprintOf(this.toString());
+  }
+
+  /**
+   * Gives the definition of a card with the given name and values, reusing an existing one if
+   * an equal definition is already in use.
+   * @param name the name of the card
+   * @param values the attack value on each side of the card
+   * @return the shared definition
+   * @throws NullPointerException if name or values is null
+   * @throws IllegalArgumentException if values does not have a value for every direction
+   */
+  static CardDefinition of(String name, Map<Direction, AttackValue> values) {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(values);
+    byte[] edges = new byte[DIRECTIONS.length];
+    for (Direction dir : DIRECTIONS) {
+      AttackValue value = values.get(dir);
+      if (value == null) {
+        throw new IllegalArgumentException("values must have all directions of keys");
+      }
+      edges[dir.ordinal()] = (byte) value.ordinal();
+    }
+    CardDefinition definition = new CardDefinition(name, edges);
+    synchronized (INTERNED) {
+      WeakReference<CardDefinition> existing = INTERNED.get(definition);
+      CardDefinition shared = existing == null ? null : existing.get();
+      if (shared != null) {
+        return shared;
+      }
+      INTERNED.put(definition, new WeakReference<>(definition));
+      return definition;
+    }
+  }
+
+  /**
+   * The name of the card.
+   * @return the name
+   */
+  String name() {
+    return this.name;
+  }
+
+  /**
+   * The attack value on one side of the card.
+   * @param dir the side of the card
+   * @return the attack value on that side
+   */
+  AttackValue valueIn(Direction dir) {
+    return VALUES[this.edges[dir.ordinal()]];
+  }
+
+  /**
+   * The attack value on every side of the card.
+   * @return a read only map from each direction to its attack value
+   */
+  Map<Direction, AttackValue> values() {
+    return this.values;
+  }
+
+  /**
+   * The fingerprint of the card used for hashing positions, taken from its name and values.
+   * @return the fingerprint
+   */
+  long fingerprint() {
+    return this.fingerprint;
+  }
+
+  @Override
+  public String toString() {
+    return this.name + " " + this.valueIn(Direction.UP)
+            + " " + this.valueIn(Direction.DOWN)
+            + " " + this.valueIn(Direction.RIGHT)
+            + " " + this.valueIn(Direction.LEFT);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o instanceof CardDefinition) {
+      CardDefinition other = (CardDefinition) o;
+      return this.name.equals(other.name)
+              && Arrays.equals(this.edges, other.edges);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * this.name.hashCode() + Arrays.hashCode(this.edges);
+  }
+}
@@ -0,0 +1,130 @@
+package model;
+
+import java.util.Objects;
+
+/**
+ * A record of everything one move changed on a board, so that the move can be taken back. It
+ * holds where the card was played, which hand index it came from, who played it, and which cells
+ * it flipped along with who owned them before.
+ */
+public final class MoveRecord {
+  private final Board board;
+  private final int handIndex;
+  private final int xCord;
+  private final int yCord;
+  private final Player previousPlayer;
+  private final int width;
+  private final int[] flippedCells; //y * width + x
+  private final Player[] previousOwners;
+
+  /**
+   * Creates a record of a move.
+   * @param board the board the move was made on
+   * @param handIndex the index in the player's hand that the card was played from
+   * @param xCord the x coordinate the card was played to (0-indexed, from the left)
+   * @param yCord the y coordinate the card was played to (0-indexed, from the top)
+   * @param previousPlayer the player who made the move
+   * @param width the width of the board, used to pack flipped cells
+   * @param flippedCells the cells flipped by the move, as y * width + x
+   * @param previousOwners the owners of the flipped cells before the move, in the same order
+   */
+  MoveRecord(Board board, int handIndex, int xCord, int yCord, Player previousPlayer,
+             int width, int[] flippedCells, Player[] previousOwners) {
+    this.board = Objects.requireNonNull(board);
+    this.handIndex = handIndex;
+    this.xCord = xCord;
+    this.yCord = yCord;
+    this.previousPlayer = Objects.requireNonNull(previousPlayer);
+    this.width = width;
+    this.flippedCells = flippedCells;
+    this.previousOwners = previousOwners;
+  }
+
+  /**
+   * The index of the card in the mover's hand before it was played.
+   * @return the hand index
+   */
+  public int handIndex() {
+    return this.handIndex;
+  }
+
+  /**
+   * The x coordinate the card was played to.
+   * @return the x coordinate, 0-indexed, starting from the left
+   */
+  public int xCord() {
+    return this.xCord;
+  }
+
+  /**
+   * The y coordinate the card was played to.
+   * @return the y coordinate, 0-indexed, starting from the top
+   */
+  public int yCord() {
+    return this.yCord;
+  }
+
+  /**
+   * The player whose turn it was before the move.
+   * @return the player who made the move
+   */
+  public Player previousPlayer() {
+    return this.previousPlayer;
+  }
+
+  /**
+   * The number of cards the move flipped.
+   * @return the number of flipped cards
+   */
+  public int numFlipped() {
+    return this.flippedCells.length;
+  }
+
+  /**
+   * The x coordinate of one of the flipped cards.
+   * @param idx which flipped card, in the order they were flipped
+   * @return the x coordinate of that card
+   * @throws IndexOutOfBoundsException if idx is not less than numFlipped
+   */
+  public int flippedX(int idx) {
+    return this.flippedCells[idx] % this.width;
+  }
+
+  /**
+   * The y coordinate of one of the flipped cards.
+   * @param idx which flipped card, in the order they were flipped
+   * @return the y coordinate of that card
+   * @throws IndexOutOfBoundsException if idx is not less than numFlipped
+   */
+  public int flippedY(int idx) {
+    return this.flippedCells[idx] / this.width;
+  }
+
+  /**
+   * The owner of one of the flipped cards before it was flipped.
+   * @param idx which flipped card, in the order they were flipped
+   * @return the owner of that card before the move
+   * @throws IndexOutOfBoundsException if idx is not less than numFlipped
+   */
+  public Player previousOwner(int idx) {
+    return this.previousOwners[idx];
+  }
+
+  /**
+   * Determines if this move was made on the given board.
+   * @param other the board to check
+   * @return whether this record came from that board
+   */
+  boolean madeOn(Board other) {
+    return this.board == other;
+  }
+
+  /**
+   * The flipped cell at the given index, as y * width + x.
+   * @param idx which flipped card
+   * @return the packed cell
+   */
+  int flippedCell(int idx) {
+    return this.flippedCells[idx];
+  }
+}
@@ -0,0 +1,682 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import controller.ModelFeatures;
+
+/**
+ * The parts of a board shared by the boards that keep their state in primitive arrays instead of
+ * a grid of Slot objects: every card in the game is numbered by an id, with its attack values
+ * and the values that beat it kept in tables, the hands are arrays of card ids, and the position
+ * hash is kept up to date as cards are placed, flipped and taken back. Subclasses only decide how
+ * the cells are stored and how battles walk them, so they all play by exactly the same rules as
+ * ThreeTriosBoard.
+ * INVARIANT: there are always more cards in the hands than open slots in the board
+ * INVARIANT: only cells holding cards are owned
+ * INVARIANT: gridHash and handHash always match the cards in the grid and hands under keys
+ */
+abstract class PackedBoard implements Board {
+
+  protected static final AttackValue[] ATTACK_VALUES = AttackValue.values();
+  protected static final Direction[] DIRECTIONS = Direction.values();
+  protected static final int NUM_DIRS = DIRECTIONS.length;
+  //the order neighbors are battled in, matching ThreeTriosBoard
+  protected static final Direction[] BATTLE_ORDER =
+      {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+
+  protected final int width;
+  protected final int height;
+
+  protected final Card[] cards; //every card in the game, indexed by card id
+  protected final byte[] edges; //edges[id * 4 + dir] is the ordinal of that card's attack value
+  protected final short[] beatenBy; //bit v of beatenBy[id * 4 + dir] is set if value v
+                                    //attacking in direction dir beats the card
+  private final long[] fingerprints; //the fingerprint of each card, indexed by card id
+
+  protected final int[][] hands; //card ids, indexed by player ordinal
+  protected final int[] handSizes;
+  protected Player curPlayer;
+  private int openSlots;
+  private boolean gameStarted;
+  private final Map<Player, ModelFeatures> playerListeners;
+  private final ZobristKeys keys;
+  private long gridHash; //the cell keys of every card in the grid combined with exclusive or
+  private long handHash; //the sum of the hand keys of every card in both hands
+
+  //scratch space battles write the cards they flip into, set up by subclasses
+  protected int[] flipped;
+  protected Player[] flippedFrom;
+  private final byte[] candidateEdges; //the values of a card being tried by possibleCardsFlipped
+
+  /**
+   * Records every card of a game. The cards in the grid are given the ids from 0 in the order
+   * given, and the cards in the hands the ids after them. The subclass places the grid's cards
+   * in their cells under those ids, and adds each to the position hash with hashGridCard.
+   *
+   * @param width     the number of columns
+   * @param height    the number of rows
+   * @param openSlots the number of cells a card can be played to
+   * @param gridCards the cards in the grid, in the order of their ids
+   * @param hands     the cards in each player's hand, which are switched to that player
+   * @param toMove    the player whose turn it is
+   */
+  PackedBoard(int width, int height, int openSlots, List<Card> gridCards,
+              Map<Player, List<Card>> hands, Player toMove) {
+    this.width = width;
+    this.height = height;
+    this.openSlots = openSlots;
+    this.playerListeners = new HashMap<>();
+    this.candidateEdges = new byte[NUM_DIRS];
+
+    int numCards = gridCards.size() + hands.get(Player.A).size() + hands.get(Player.B).size();
+    this.cards = new Card[numCards];
+    this.edges = new byte[numCards * NUM_DIRS];
+    this.beatenBy = new short[numCards * NUM_DIRS];
+    this.fingerprints = new long[numCards];
+    this.keys = ZobristKeys.defaultKeys(width * height);
+    int nextId = 0;
+    for (Card card : gridCards) {
+      this.addCard(nextId++, card);
+    }
+
+    this.hands = new int[2][];
+    this.handSizes = new int[2];
+    for (Player player : List.of(Player.A, Player.B)) {
+      List<Card> hand = hands.get(player);
+      this.hands[player.ordinal()] = new int[hand.size()];
+      for (Card card : hand) {
+        card.switchPlayer(player);
+        this.hands[player.ordinal()][this.handSizes[player.ordinal()]++] = nextId;
+        this.addCard(nextId, card);
+        this.handHash += this.keys.handKey(player, this.fingerprints[nextId++]);
+      }
+    }
+
+    this.curPlayer = toMove;
+  }
+
+  /**
+   * Checks the cards of a new game and deals them between the players.
+   *
+   * @param cards     the cards you can use
+   * @param openSlots the number of cells a card can be played to
+   * @param random    random variable to use when shuffling
+   * @param shuffle   whether the cards should be shuffled before being dealt
+   * @return the cards in each player's hand
+   * @throws IllegalArgumentException if cards or random are null, the cards contain null, or
+   *                                  there are not more cards than open slots
+   */
+  static Map<Player, List<Card>> deal(List<Card> cards, int openSlots, Random random,
+                                      boolean shuffle) {
+    if (cards == null || random == null) {
+      throw new IllegalArgumentException("Arguments for board must be non-null");
+    }
+
+    for (Card card : cards) {
+      if (card == null) {
+        throw new IllegalArgumentException("cards cannot contain null elements");
+      }
+    }
+
+    if (openSlots >= cards.size()) {
+      throw new IllegalArgumentException("there must be more cards than empty slots");
+    }
+
+    ArrayList<Card> shuffledCardsCopy = new ArrayList<>(cards);
+    if (shuffle) {
+      Collections.shuffle(shuffledCardsCopy, random);
+    }
+    return Player.splitCardsBetweenPlayers(shuffledCardsCopy);
+  }
+
+  /**
+   * Gives the id of the card in the given cell.
+   *
+   * @param cell the cell, as y * width + x
+   * @return the card id, or -1 if the cell holds no card
+   */
+  protected abstract int cardIdAt(int cell);
+
+  /**
+   * Gives the owner of the given cell.
+   *
+   * @param cell the cell, as y * width + x
+   * @return the owner of the cell
+   */
+  protected abstract Player ownerOf(int cell);
+
+  /**
+   * Changes the owner of the card in the given cell.
+   *
+   * @param cell  the cell holding the card, as y * width + x
+   * @param owner the new owner
+   */
+  protected abstract void setOwner(int cell, Player owner);
+
+  /**
+   * Puts the card with the given id in the given open cell.
+   *
+   * @param cell  the cell, as y * width + x
+   * @param id    the id of the card
+   * @param owner the owner of the card
+   */
+  protected abstract void placeCard(int cell, int id, Player owner);
+
+  /**
+   * Takes the card out of the given cell, leaving it open.
+   *
+   * @param cell the cell holding the card, as y * width + x
+   */
+  protected abstract void removeCard(int cell);
+
+  /**
+   * Determines if a card can be played to the given cell.
+   *
+   * @param cell the cell, as y * width + x
+   * @return whether the cell is neither a hole nor holds a card
+   */
+  protected abstract boolean isOpen(int cell);
+
+  /**
+   * Determines if the given cell is a hole.
+   *
+   * @param cell the cell, as y * width + x
+   * @return whether no card can ever be in the cell
+   */
+  protected abstract boolean isHole(int cell);
+
+  /**
+   * Counts the cards in the grid owned by the given player.
+   *
+   * @param player A or B
+   * @return the number of cards they own in the grid
+   */
+  protected abstract int ownedCount(Player player);
+
+  /**
+   * Works out which of the cards around the given cell a card with the given values would win
+   * against if it were played there.
+   *
+   * @param origin       the cell the attacking card is played to
+   * @param originEdges  the offset of the attacking card's values within originValues
+   * @param originValues the array holding the attacking card's value ordinals
+   * @param originOwner  the owner of the attacking card
+   * @return a mask with bit i set if the card flips its neighbor in direction BATTLE_ORDER[i]
+   */
+  protected abstract int firstBattles(int origin, int originEdges, byte[] originValues,
+                                      Player originOwner);
+
+  /**
+   * Resolves the battles started by a card at the given cell without changing any owners. The
+   * neighbors are battled depth first in the same order as ThreeTriosBoard, every card that
+   * would be flipped is written into the flipped buffer, and later battles treat those cards as
+   * already belonging to the attacker. Which neighbors the played card itself wins against is
+   * worked out beforehand by firstBattles.
+   *
+   * @param origin    the cell the attacking card is in
+   * @param firstWins the neighbors the played card wins against, as given by firstBattles
+   * @param attacker  the owner of the played card, whose cards are never flipped
+   * @return the number of cards that would be flipped, which are the first entries of flipped
+   */
+  protected abstract int battle(int origin, int firstWins, Player attacker);
+
+  /**
+   * Adds a card the grid starts with to the position hash, once it has been placed in its cell.
+   *
+   * @param cell  the cell holding the card
+   * @param owner the owner of the card
+   */
+  protected final void hashGridCard(int cell, Player owner) {
+    this.gridHash ^= this.cellKey(cell, owner);
+  }
+
+  /**
+   * Records the given card under the given id, along with its attack values and the values that
+   * beat it from each direction.
+   *
+   * @param id   the id for the card
+   * @param card the card to record
+   */
+  private void addCard(int id, Card card) {
+    this.cards[id] = card;
+    this.fingerprints[id] = card.fingerprint();
+    Map<Direction, AttackValue> values = card.getDirectionalValues();
+    for (Direction dir : DIRECTIONS) {
+      this.edges[id * NUM_DIRS + dir.ordinal()] = (byte) values.get(dir).ordinal();
+    }
+    this.compileBeatenBy(id);
+  }
+
+  /**
+   * Works out, for every direction, which attack values would beat the card with the given id
+   * under that card's current rules.
+   *
+   * @param id the id of the card
+   */
+  private void compileBeatenBy(int id) {
+    for (Direction dir : DIRECTIONS) {
+      short mask = 0;
+      for (AttackValue value : ATTACK_VALUES) {
+        if (this.cards[id].compareAttackValueTo(dir, value) < 0) {
+          mask |= (short) (1 << value.ordinal());
+        }
+      }
+      this.beatenBy[id * NUM_DIRS + dir.ordinal()] = mask;
+    }
+  }
+
+  private void changePlayerForListener(Player player) {
+    if (this.playerListeners.get(player) != null) {
+      this.playerListeners.get(player).changeTurn(player);
+    }
+  }
+
+  @Override
+  public void startGame() {
+    if (this.gameStarted) {
+      throw new IllegalStateException("game has already started");
+    }
+    if (this.isGameOver()) {
+      throw new IllegalStateException("game is over");
+    }
+    if (!(this.playerListeners.keySet().size() == 2 || this.playerListeners.keySet().size() == 0)) {
+      throw new IllegalStateException("Game needs either both of neither player listeners");
+    }
+    this.markStarted();
+    this.changePlayerForListener(Player.A);
+  }
+
+  /**
+   * Starts the game without telling any listeners, compiling the rules of every card in the game
+   * so battles look them up in tables.
+   */
+  protected final void markStarted() {
+    RuleTables tables = new RuleTables();
+    for (Card card : this.cards) {
+      card.compileRules(tables);
+    }
+    this.gameStarted = true;
+  }
+
+  @Override
+  public void addListener(ModelFeatures listener) {
+    if (this.gameStarted) {
+      throw new IllegalArgumentException("Game already started");
+    }
+    if (this.isGameOver()) {
+      throw new IllegalArgumentException("Game already over");
+    }
+    if (!this.playerListeners.containsKey(Player.A)) {
+      this.playerListeners.put(Player.A, listener);
+      return;
+    }
+    if (!this.playerListeners.containsKey(Player.B)) {
+      this.playerListeners.put(Player.B, listener);
+      return;
+    }
+    throw new IllegalStateException("both players have already been added to this game");
+  }
+
+  @Override
+  public void addRuleToCards(Comparator<AttackValue> rule) {
+    if (this.gameStarted) {
+      throw new IllegalStateException("cannot change game rules mid game");
+    }
+
+    for (int player = 0; player < this.hands.length; player++) {
+      for (int idx = 0; idx < this.handSizes[player]; idx++) {
+        int id = this.hands[player][idx];
+        this.cards[id].addRule(rule);
+        this.compileBeatenBy(id);
+      }
+    }
+  }
+
+  @Override
+  public void addCardTransformerToCards(Function<AttackValue, AttackValue> func) {
+    if (this.gameStarted) {
+      throw new IllegalStateException("cannot change game rules mid game");
+    }
+
+    for (int player = 0; player < this.hands.length; player++) {
+      for (int idx = 0; idx < this.handSizes[player]; idx++) {
+        int id = this.hands[player][idx];
+        this.cards[id].addCardTransformer(func);
+        this.compileBeatenBy(id);
+      }
+    }
+  }
+
+  @Override
+  public void playToBoard(int handIndex, int x, int y) {
+    this.makeMove(handIndex, x, y);
+
+    if (this.isGameOver()) {
+      for (Player listener : this.playerListeners.keySet()) {
+        this.playerListeners.get(listener).gameOver();
+      }
+    } else {
+      this.changePlayerForListener(this.curPlayer);
+    }
+  }
+
+  @Override
+  public MoveRecord playToBoardUndoable(int handIndex, int x, int y) {
+    Player mover = this.curPlayer;
+    int numFlipped = this.makeMove(handIndex, x, y);
+    return new MoveRecord(this, handIndex, x, y, mover, this.width,
+        Arrays.copyOf(this.flipped, numFlipped), Arrays.copyOf(this.flippedFrom, numFlipped));
+  }
+
+  /**
+   * Places the given card from the current player's hand, battles its neighbors, and passes the
+   * turn to the next player, without telling any listeners.
+   *
+   * @param handIndex the card in the current player's hand to place on the grid
+   * @param x         the x position of the card to be placed
+   * @param y         the y position of the card to be placed
+   * @return the number of cards flipped, which are the first entries of flipped and flippedFrom
+   */
+  private int makeMove(int handIndex, int x, int y) {
+    if (!this.gameStarted || this.isGameOver()) {
+      throw new IllegalStateException("cannot play when game is finished or hasn't started");
+    }
+
+    validateCoordinates(x, y);
+    int cell = y * this.width + x;
+    if (!this.isOpen(cell)) {
+      throw new IllegalArgumentException("cannot play card there");
+    }
+    int player = this.curPlayer.ordinal();
+    if (handIndex < 0 || handIndex >= this.handSizes[player]) {
+      throw new IllegalArgumentException("Hand Index out of range");
+    }
+
+    int id = this.hands[player][handIndex];
+    System.arraycopy(this.hands[player], handIndex + 1, this.hands[player], handIndex,
+        this.handSizes[player] - handIndex - 1);
+    this.handSizes[player] -= 1;
+
+    this.placeCard(cell, id, this.curPlayer);
+    this.openSlots -= 1;
+    this.handHash -= this.keys.handKey(this.curPlayer, this.fingerprints[id]);
+    this.gridHash ^= this.cellKey(cell, this.curPlayer);
+
+    int numFlipped = this.battle(cell,
+        this.firstBattles(cell, id * NUM_DIRS, this.edges, this.curPlayer), this.curPlayer);
+    for (int i = 0; i < numFlipped; i++) {
+      this.flippedFrom[i] = this.ownerOf(this.flipped[i]);
+      this.setOwner(this.flipped[i], this.curPlayer);
+      this.gridHash ^= this.cellKey(this.flipped[i], this.flippedFrom[i])
+          ^ this.cellKey(this.flipped[i], this.curPlayer);
+    }
+
+    this.curPlayer = Player.nextPlayer(this.curPlayer);
+    return numFlipped;
+  }
+
+  @Override
+  public void undo(MoveRecord record) {
+    if (record == null || !record.madeOn(this)) {
+      throw new IllegalArgumentException("record must be of a move made on this board");
+    }
+    int cell = record.yCord() * this.width + record.xCord();
+    if (this.curPlayer != Player.nextPlayer(record.previousPlayer()) || this.cardIdAt(cell) < 0) {
+      throw new IllegalArgumentException("record is not of the most recent move");
+    }
+
+    Player mover = record.previousPlayer();
+    for (int i = record.numFlipped() - 1; i >= 0; i--) {
+      int flippedCell = record.flippedCell(i);
+      this.setOwner(flippedCell, record.previousOwner(i));
+      this.gridHash ^= this.cellKey(flippedCell, mover)
+          ^ this.cellKey(flippedCell, record.previousOwner(i));
+    }
+    this.gridHash ^= this.cellKey(cell, mover);
+    int id = this.cardIdAt(cell);
+    this.handHash += this.keys.handKey(mover, this.fingerprints[id]);
+
+    int player = mover.ordinal();
+    int handIndex = record.handIndex();
+    System.arraycopy(this.hands[player], handIndex, this.hands[player], handIndex + 1,
+        this.handSizes[player] - handIndex);
+    this.hands[player][handIndex] = id;
+    this.handSizes[player] += 1;
+
+    this.removeCard(cell);
+    this.openSlots += 1;
+    this.curPlayer = record.previousPlayer();
+  }
+
+  /**
+   * Gives the key of the card in the given cell as if it were owned by the given player.
+   *
+   * @param cell  the cell holding the card
+   * @param owner the owner to key the card with
+   * @return the key of that cell
+   */
+  private long cellKey(int cell, Player owner) {
+    return this.keys.cellKey(cell, owner, this.fingerprints[this.cardIdAt(cell)]);
+  }
+
+  @Override
+  public boolean isGameOver() {
+    return this.openSlots == 0;
+  }
+
+  @Override
+  public Player gameWinner() {
+    if (!this.isGameOver()) {
+      throw new IllegalStateException("game is not over");
+    }
+
+    int aCards = this.ownedCount(Player.A);
+    int bCards = this.ownedCount(Player.B);
+    if (aCards > bCards) {
+      return Player.A;
+    } else if (bCards > aCards) {
+      return Player.B;
+    } else {
+      return Player.NONE;
+    }
+  }
+
+  @Override
+  public Slot[][] getGrid() {
+    Slot[][] gridCopy = new Slot[this.height][this.width];
+    Slot empty = new Empty();
+    Slot hole = new Hole();
+    for (int row = 0; row < this.height; row++) {
+      for (int col = 0; col < this.width; col++) {
+        gridCopy[row][col] = this.slotAt(row * this.width + col, empty, hole);
+      }
+    }
+    return gridCopy;
+  }
+
+  /**
+   * Produces the slot for the given cell: a copy of its card, owned by the owner of the cell, or
+   * the given empty or hole.
+   *
+   * @param cell  the cell to look at
+   * @param empty the slot to give for an empty cell
+   * @param hole  the slot to give for a hole
+   * @return the slot for the cell
+   */
+  private Slot slotAt(int cell, Slot empty, Slot hole) {
+    int id = this.cardIdAt(cell);
+    if (id >= 0) {
+      Card copy = this.cards[id].copyCard();
+      copy.switchPlayer(this.ownerOf(cell));
+      return copy;
+    }
+    return this.isHole(cell) ? hole : empty;
+  }
+
+  @Override
+  public int gameWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int gameHeight() {
+    return this.height;
+  }
+
+  @Override
+  public Slot getCoord(int x, int y) {
+    validateCoordinates(x, y);
+    return this.slotAt(y * this.width + x, new Empty(), new Hole());
+  }
+
+  @Override
+  public Player getCellOwner(int x, int y) {
+    validateCoordinates(x, y);
+    return this.ownerOf(y * this.width + x);
+  }
+
+  @Override
+  public boolean isMoveLegal(int x, int y) {
+    try {
+      validateCoordinates(x, y);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    return this.isOpen(y * this.width + x);
+  }
+
+  @Override
+  public int score(Player player) {
+    if (player == null) {
+      throw new IllegalArgumentException("player cannot be null");
+    }
+
+    switch (player) {
+      case A:
+      case B:
+        return this.ownedCount(player) + this.handSizes[player.ordinal()];
+      default:
+        return 0;
+    }
+  }
+
+  @Override
+  public int possibleCardsFlipped(Card card, int x, int y) {
+    if (card == null) {
+      throw new IllegalArgumentException("card cannot be null");
+    }
+    if (!this.isMoveLegal(x, y)) {
+      throw new IllegalArgumentException("move is not legal");
+    }
+
+    for (Direction dir : DIRECTIONS) {
+      this.candidateEdges[dir.ordinal()] = (byte) card.valueIn(dir).ordinal();
+    }
+    int origin = y * this.width + x;
+    return this.battle(origin,
+        this.firstBattles(origin, 0, this.candidateEdges, card.getSlotOwner()),
+        card.getSlotOwner());
+  }
+
+  @Override
+  public List<Card> getHand(Player player) {
+    if (player == null) {
+      throw new IllegalArgumentException("player cannot be null");
+    }
+
+    List<Card> ret = new ArrayList<>();
+    if (player == Player.NONE) {
+      return ret;
+    }
+    for (int idx = 0; idx < this.handSizes[player.ordinal()]; idx++) {
+      Card copy = this.cards[this.hands[player.ordinal()][idx]].copyCard();
+      copy.switchPlayer(player);
+      ret.add(copy);
+    }
+    return ret;
+  }
+
+  @Override
+  public Player curPlayer() {
+    return this.curPlayer;
+  }
+
+  @Override
+  public long positionHash() {
+    return this.gridHash ^ this.handHash ^ this.keys.turnKey(this.curPlayer);
+  }
+
+  @Override
+  public int getHandSize(Player player) {
+    if (player == null) {
+      throw new IllegalArgumentException("player cannot be null");
+    }
+    return player == Player.NONE ? 0 : this.handSizes[player.ordinal()];
+  }
+
+  @Override
+  public long getHandCardId(Player player, int handIdx) {
+    return this.fingerprints[this.handCardId(player, handIdx)];
+  }
+
+  @Override
+  public AttackValue getHandCardValue(Player player, int handIdx, Direction dir) {
+    if (dir == null) {
+      throw new IllegalArgumentException("dir cannot be null");
+    }
+    return ATTACK_VALUES[this.edges[this.handCardId(player, handIdx) * NUM_DIRS + dir.ordinal()]];
+  }
+
+  @Override
+  public long getCellCardId(int x, int y) {
+    validateCoordinates(x, y);
+    int id = this.cardIdAt(y * this.width + x);
+    return id < 0 ? NO_CARD : this.fingerprints[id];
+  }
+
+  @Override
+  public AttackValue getCellValue(int x, int y, Direction dir) {
+    validateCoordinates(x, y);
+    if (dir == null) {
+      throw new IllegalArgumentException("dir cannot be null");
+    }
+    int id = this.cardIdAt(y * this.width + x);
+    if (id < 0) {
+      throw new IllegalArgumentException("there is no card at that cell");
+    }
+    return ATTACK_VALUES[this.edges[id * NUM_DIRS + dir.ordinal()]];
+  }
+
+  /**
+   * Gives the id of a card in a player's hand, checking the index first.
+   *
+   * @param player  the player whose hand the card is in
+   * @param handIdx the index of the card in their hand
+   * @return the card id
+   */
+  private int handCardId(Player player, int handIdx) {
+    if (handIdx < 0 || handIdx >= this.getHandSize(player)) {
+      throw new IllegalArgumentException("hand index out of range");
+    }
+    return this.hands[player.ordinal()][handIdx];
+  }
+
+  /**
+   * checks whether x and y are valid coordinates in the grid.
+   * @param x the x value of the coordinate
+   * @param y the y value of the coordinate
+   */
+  private void validateCoordinates(int x, int y) {
+    if (x < 0 || y < 0 || x >= this.width || y >= this.height) {
+      throw new IllegalArgumentException("indexes are out of bounds for this grid");
+    }
+  }
+}
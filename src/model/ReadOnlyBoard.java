@@ -6,6 +6,12 @@ import java.util.List;
  * Represents a board in the ThreeTrios game that only allows read operations.
  */
 public interface ReadOnlyBoard {
+
+  /**
+   * The card id given for cells that do not hold a card.
+   */
+  long NO_CARD = 0L;
+
   /**
    * Determines if the game is over.
    * @return whether the game is over
@@ -72,7 +78,9 @@ public interface ReadOnlyBoard {
   int score(Player player);
 
   /**
-   * If a given card is played at the given coordinates, how many cards will be flipped.
+   * If a given card is played at the given coordinates, how many cards will be flipped. The
+   * chain of flips is worked out as if the card's owner played it, even when it is not their
+   * turn, so only cards that do not belong to them are flipped.
    * @param card the card that could be played at those coordinates
    * @param x the x coordinate, 0-indexed, starting from the left
    * @param y the y coordinate, 0-indexed, starting from the top
@@ -81,6 +89,30 @@ public interface ReadOnlyBoard {
    */
   int possibleCardsFlipped(Card card, int x, int y);
 
+  /**
+   * Works out how many cards each card in a player's hand would flip at every cell, in one pass.
+   * Each entry is what possibleCardsFlipped would give for that card and cell, so the hand of the
+   * player who is not to move is tried as their own move too.
+   * @param player the player whose hand to try
+   * @return the number of cards flipped, indexed by hand index and then by cell as
+   *         y * gameWidth() + x, with -1 for cells that cannot be played to
+   * @throws IllegalArgumentException if player is null
+   */
+  default int[][] possibleCardsFlippedForHand(Player player) {
+    List<Card> hand = this.getHand(player);
+    int[][] ret = new int[hand.size()][this.gameWidth() * this.gameHeight()];
+    for (int y = 0; y < this.gameHeight(); y++) {
+      for (int x = 0; x < this.gameWidth(); x++) {
+        boolean legal = this.isMoveLegal(x, y);
+        for (int handIdx = 0; handIdx < hand.size(); handIdx++) {
+          ret[handIdx][y * this.gameWidth() + x] =
+                  legal ? this.possibleCardsFlipped(hand.get(handIdx), x, y) : -1;
+        }
+      }
+    }
+    return ret;
+  }
+
   /**
    * Gets the player that is currently making a turn.
    * @return the current player
@@ -94,4 +126,114 @@ public interface ReadOnlyBoard {
    * @throws IllegalArgumentException if player is null
    */
   List<Card> getHand(Player player);
+
+  /**
+   * Gives a 64-bit hash of the current position: which card is in each cell and who owns it, the
+   * cards in both players' hands, and whose turn it is. Equal positions always have equal hashes,
+   * in any run, and different positions have different hashes with very high probability, so the
+   * hash can be used to recognise positions that have been seen before.
+   * @return the hash of the current position
+   */
+  long positionHash();
+
+  /**
+   * Gives the number of cards in a player's hand without copying the hand.
+   * @param player the player whose hand to measure
+   * @return the number of cards in their hand
+   * @throws IllegalArgumentException if player is null
+   */
+  default int getHandSize(Player player) {
+    return this.getHand(player).size();
+  }
+
+  /**
+   * Gives the id of a card in a player's hand without copying it. Cards with the same name and
+   * values have the same id, whoever owns them.
+   * @param player the player whose hand the card is in
+   * @param handIdx the index of the card in their hand, 0-indexed
+   * @return the id of the card
+   * @throws IllegalArgumentException if player is null or handIdx is out of range of their hand
+   */
+  default long getHandCardId(Player player, int handIdx) {
+    return ZobristKeys.fingerprint(this.handCard(player, handIdx));
+  }
+
+  /**
+   * Gives one of the attack values of a card in a player's hand without copying it.
+   * @param player the player whose hand the card is in
+   * @param handIdx the index of the card in their hand, 0-indexed
+   * @param dir the side of the card
+   * @return the attack value on that side of the card
+   * @throws IllegalArgumentException if player or dir is null or handIdx is out of range of
+   *                                  their hand
+   */
+  default AttackValue getHandCardValue(Player player, int handIdx, Direction dir) {
+    if (dir == null) {
+      throw new IllegalArgumentException("dir cannot be null");
+    }
+    return this.handCard(player, handIdx).getDirectionalValues().get(dir);
+  }
+
+  /**
+   * Gives the id of the card in a cell without copying it. Cards with the same name and values
+   * have the same id, whoever owns them.
+   * @param x the x coordinate, 0-indexed, starting from the left
+   * @param y the y coordinate, 0-indexed, starting from the top
+   * @return the id of the card in that cell, or NO_CARD if the cell does not hold a card
+   * @throws IllegalArgumentException if x or y are out of range of the board
+   */
+  default long getCellCardId(int x, int y) {
+    Slot slot = this.getCoord(x, y);
+    return slot instanceof Card ? ZobristKeys.fingerprint((Card) slot) : NO_CARD;
+  }
+
+  /**
+   * Gives one of the attack values of the card in a cell without copying it.
+   * @param x the x coordinate, 0-indexed, starting from the left
+   * @param y the y coordinate, 0-indexed, starting from the top
+   * @param dir the side of the card
+   * @return the attack value on that side of the card
+   * @throws IllegalArgumentException if x or y are out of range of the board, dir is null, or
+   *                                  the cell does not hold a card
+   */
+  default AttackValue getCellValue(int x, int y, Direction dir) {
+    if (dir == null) {
+      throw new IllegalArgumentException("dir cannot be null");
+    }
+    Slot slot = this.getCoord(x, y);
+    if (!(slot instanceof Card)) {
+      throw new IllegalArgumentException("there is no card at that cell");
+    }
+    return slot.getDirectionalValues().get(dir);
+  }
+
+  /**
+   * Gives the neighbors of every cell that is not a hole, so they can be walked without bounds
+   * checks. Holes never change, so the same adjacency holds for the whole game.
+   * @return the adjacency of this board's grid
+   */
+  default Adjacency getAdjacency() {
+    Slot[][] grid = new Slot[this.gameHeight()][this.gameWidth()];
+    for (int y = 0; y < grid.length; y++) {
+      for (int x = 0; x < grid[y].length; x++) {
+        grid[y][x] = this.getCoord(x, y);
+      }
+    }
+    return new Adjacency(grid);
+  }
+
+  /**
+   * Gets a copy of a card in a player's hand, checking the index first.
+   * @param player the player whose hand the card is in
+   * @param handIdx the index of the card in their hand
+   * @return a copy of the card
+   * @throws IllegalArgumentException if player is null or handIdx is out of range of their hand
+   */
+  private Card handCard(Player player, int handIdx) {
+    List<Card> hand = this.getHand(player);
+    if (handIdx < 0 || handIdx >= hand.size()) {
+      throw new IllegalArgumentException("hand index out of range");
+    }
+    return hand.get(handIdx);
+  }
 }
@@ -0,0 +1,85 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Compiles the rules a card battles by, its comparator and its attack value transformers, into a
+ * table of the result of every comparison between two attack values. There are only ten attack
+ * values, so the table has a hundred entries and a battle becomes one array lookup instead of a
+ * walk through the transformers and a call to the comparator. Cards with the same comparator and
+ * transformers share one table, so each set of rules is only compiled once.
+ * Rules are assumed to always give the same result for the same values.
+ */
+final class RuleTables {
+  private static final AttackValue[] VALUES = AttackValue.values();
+
+  private final Map<List<Object>, int[]> tables; //keyed by the comparator then each transformer
+
+  /**
+   * Creates an empty set of compiled tables.
+   */
+  RuleTables() {
+    this.tables = new HashMap<>();
+  }
+
+  /**
+   * Gives the table for the given rules, compiling it the first time these rules are seen.
+   * @param rule the comparator of the defending card
+   * @param transformers the transformers of the defending card, in the order they are applied
+   * @return the table, indexed by index, or null if the rules could not be compiled because
+   *         they threw for some pair of values
+   */
+  int[] tableFor(Comparator<AttackValue> rule,
+                 List<Function<AttackValue, AttackValue>> transformers) {
+    List<Object> key = new ArrayList<>(transformers.size() + 1);
+    key.add(rule);
+    key.addAll(transformers);
+    if (!this.tables.containsKey(key)) {
+      this.tables.put(key, compile(rule, transformers));
+    }
+    return this.tables.get(key);
+  }
+
+  /**
+   * Gives the position in a table of the comparison between two values.
+   * @param defending the value of the defending card, before transforming
+   * @param attacking the value of the attacking card, before transforming
+   * @return the index of their comparison
+   */
+  static int index(AttackValue defending, AttackValue attacking) {
+    return defending.ordinal() * VALUES.length + attacking.ordinal();
+  }
+
+  /**
+   * Works out the comparison of every pair of values under the given rules.
+   * @param rule the comparator of the defending card
+   * @param transformers the transformers of the defending card
+   * @return the table, or null if the rules threw for some pair of values
+   */
+  private static int[] compile(Comparator<AttackValue> rule,
+                               List<Function<AttackValue, AttackValue>> transformers) {
+    int[] table = new int[VALUES.length * VALUES.length];
+    try {
+      for (AttackValue defending : VALUES) {
+        for (AttackValue attacking : VALUES) {
+          AttackValue a1 = defending;
+          AttackValue a2 = attacking;
+          for (Function<AttackValue, AttackValue> transformer : transformers) {
+            a1 = transformer.apply(a1);
+            a2 = transformer.apply(a2);
+          }
+          table[index(defending, attacking)] = rule.compare(a1, a2);
+        }
+      }
+    } catch (RuntimeException e) {
+      //leave rules that cannot handle every value to be applied one battle at a time
+      return null;
+    }
+    return table;
+  }
+}
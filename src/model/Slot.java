@@ -75,8 +75,8 @@ public interface Slot {
   Color getSlotColor();
 
   /**
-   * Gets a copy of the directional values for this slot.
-   * @return a copy of the directional values for this slot
+   * Gets the directional values for this slot, which cannot be changed through the returned map.
+   * @return a read only map of the directional values for this slot
    */
   Map<Direction, AttackValue> getDirectionalValues();
 
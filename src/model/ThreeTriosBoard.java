@@ -1,15 +1,18 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Function;
 
 import controller.ModelFeatures;
@@ -19,14 +22,40 @@ import controller.ModelFeatures;
  * INVARIANT: there are always more cards in the hand than open slots in the board
  * INVARIANT: the grid and hands contain no null values
  * INVARIANT: the grid is always at least 1 by 1 and square
+ * INVARIANT: openSlots and ownedCards always match the number of empty slots and owned cards
+ *            in the grid
+ * INVARIANT: gridHash and handHash always match the cards in the grid and hands under keys
  */
 public class ThreeTriosBoard implements Board {
 
+  //the order neighbors are battled in
+  private static final Direction[] BATTLE_ORDER =
+      {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+
   private final Slot[][] grid; //0-indexed, row-column major
   private final Map<Player, List<Card>> unPlayedCards; //0-indexed
   private Player curPlayer;
   private boolean gameStarted;
+  private int openSlots; //the number of empty slots left in the grid
+  private final int[] ownedCards; //cards in the grid owned by each player, indexed by ordinal
   private final Map<Player, ModelFeatures> playerListeners;
+  private final ZobristKeys keys;
+  private final Adjacency adjacency; //the neighbors of every cell that is not a hole
+  private long gridHash; //the cell keys of every card in the grid combined with exclusive or
+  private long handHash; //the sum of the hand keys of every card in both hands
+
+  //scratch space reused by every battle, indexed by cell (y * width + x)
+  private final long[] visited;
+  private final int[] stackCells;
+  private final int[] stackEdges; //the next edge of each cell on the stack to battle along
+  private final int[] flipped;
+  private final Player[] flippedFrom;
+
+  //settings and scratch space for resolving cascades in parallel
+  private static final int CELLS_PER_TASK = 64; //the most cells one task of a level expands
+  private ForkJoinPool cascadePool; //null if cascades are resolved depth first on this thread
+  private int minParallelLevel; //levels with fewer cells are expanded on this thread
+  private AtomicLongArray claimed; //cells reached by the cascade, made on first use
 
   /**
    * Constructs a ThreeTriosBoard object.
@@ -57,6 +86,7 @@ public class ThreeTriosBoard implements Board {
 
     int rowLength = 0;
     int numOfOpenSlots = 0;
+    this.ownedCards = new int[Player.values().length];
 
     for (Slot[] row : grid) {
       for (Slot slot : row) {
@@ -66,6 +96,8 @@ public class ThreeTriosBoard implements Board {
         rowLength += 1;
         if (slot.canPlayCard()) {
           numOfOpenSlots += 1;
+        } else if (slot instanceof Card) {
+          this.ownedCards[slot.getSlotOwner().ordinal()] += 1;
         }
       }
       if (rowLength != grid[0].length) {
@@ -85,6 +117,24 @@ public class ThreeTriosBoard implements Board {
     }
     this.unPlayedCards = Player.splitCardsBetweenPlayers(shuffledCardsCopy);
     this.curPlayer = Player.firstPlayer();
+    this.openSlots = numOfOpenSlots;
+
+    int numCells = grid.length * grid[0].length;
+    this.keys = ZobristKeys.defaultKeys(numCells);
+    this.adjacency = new Adjacency(grid);
+    for (int cell = 0; cell < numCells; cell++) {
+      this.gridHash ^= this.cellKey(cell);
+    }
+    for (Player player : this.unPlayedCards.keySet()) {
+      for (Card card : this.unPlayedCards.get(player)) {
+        this.handHash += this.keys.handKey(player, card.fingerprint());
+      }
+    }
+    this.visited = new long[Bits.words(numCells)];
+    this.stackCells = new int[numCells];
+    this.stackEdges = new int[numCells];
+    this.flipped = new int[numCells];
+    this.flippedFrom = new Player[numCells];
   }
 
   /**
@@ -117,9 +167,30 @@ public class ThreeTriosBoard implements Board {
       throw new IllegalStateException("Game needs either both of neither player listeners");
     }
     this.gameStarted = true;
+    this.compileRules();
     this.changePlayerForListener(Player.A);
   }
 
+  /**
+   * Compiles the rules of every card in the game into lookup tables, now that they can no longer
+   * change.
+   */
+  private void compileRules() {
+    RuleTables tables = new RuleTables();
+    for (Slot[] row : this.grid) {
+      for (Slot slot : row) {
+        if (slot instanceof Card) {
+          ((Card) slot).compileRules(tables);
+        }
+      }
+    }
+    for (List<Card> hand : this.unPlayedCards.values()) {
+      for (Card card : hand) {
+        card.compileRules(tables);
+      }
+    }
+  }
+
   @Override
   public void addListener(ModelFeatures listener) {
     if (this.gameStarted) {
@@ -165,8 +236,59 @@ public class ThreeTriosBoard implements Board {
     }
   }
 
+  /**
+   * Resolves the cascade of flips started by each move breadth first, one level of flipped cards
+   * at a time, expanding each level on the given pool once it holds at least the given number of
+   * cards. Cells are claimed atomically, so a card reached from two sides at once is only flipped
+   * once. Which cards are flipped does not depend on the order they are reached in, so this flips
+   * exactly the cards the depth first resolver does; only the order flips are recorded in a
+   * MoveRecord changes. It is only worth it for boards where a single move can flip thousands of
+   * cards.
+   *
+   * @param pool             the pool to expand levels on, or null to go back to resolving
+   *                         cascades depth first on the calling thread
+   * @param minParallelLevel the fewest cards a level must have to be expanded on the pool
+   * @throws IllegalArgumentException if minParallelLevel is not positive
+   */
+  public void setCascadePool(ForkJoinPool pool, int minParallelLevel) {
+    if (minParallelLevel <= 0) {
+      throw new IllegalArgumentException("minParallelLevel must be positive");
+    }
+    this.cascadePool = pool;
+    this.minParallelLevel = minParallelLevel;
+  }
+
   @Override
   public void playToBoard(int handIndex, int x, int y) {
+    this.makeMove(handIndex, x, y);
+
+    if (this.isGameOver()) {
+      for (Player player : this.playerListeners.keySet()) {
+        this.playerListeners.get(player).gameOver();
+      }
+    } else {
+      this.changePlayerForListener(curPlayer);
+    }
+  }
+
+  @Override
+  public MoveRecord playToBoardUndoable(int handIndex, int x, int y) {
+    Player mover = this.curPlayer;
+    int numFlipped = this.makeMove(handIndex, x, y);
+    return new MoveRecord(this, handIndex, x, y, mover, this.grid[0].length,
+            Arrays.copyOf(this.flipped, numFlipped), Arrays.copyOf(this.flippedFrom, numFlipped));
+  }
+
+  /**
+   * Places the given card from the current player's hand, battles its neighbors, and passes the
+   * turn to the next player, without telling any listeners.
+   *
+   * @param handIndex the card in the current player's hand to place on the grid
+   * @param x         the x position of the card to be placed
+   * @param y         the y position of the card to be placed
+   * @return the number of cards flipped, which are the first entries of flipped and flippedFrom
+   */
+  private int makeMove(int handIndex, int x, int y) {
     if (!this.gameStarted || this.isGameOver()) {
       throw new IllegalStateException("cannot play when game is finished or hasn't started");
     }
@@ -182,108 +304,307 @@ public class ThreeTriosBoard implements Board {
     }
 
     Card cardBeingAdded = this.unPlayedCards.get(this.curPlayer).remove(handIndex);
-    Set<Slot> alreadySeen = new HashSet<>();
     this.grid[y][x] = cardBeingAdded;
-    this.battle(x, y, alreadySeen, this.grid);
+    int origin = y * this.grid[0].length + x;
+    int numFlipped = this.battle(origin,
+            this.firstBattles(origin, cardBeingAdded, cardBeingAdded.getSlotOwner()),
+            this.curPlayer);
+    for (int i = 0; i < numFlipped; i++) {
+      this.slotAt(this.flipped[i]).switchPlayer(this.curPlayer);
+    }
 
-    this.curPlayer = Player.nextPlayer(this.curPlayer);
+    this.handHash -= this.keys.handKey(this.curPlayer, cardBeingAdded.fingerprint());
+    this.gridHash ^= this.cellKey(y * this.grid[0].length + x);
+    for (int i = 0; i < numFlipped; i++) {
+      this.gridHash ^= this.cellKey(this.flipped[i], this.flippedFrom[i])
+              ^ this.cellKey(this.flipped[i]);
+    }
 
-    if (this.isGameOver()) {
-      for (Player player : this.playerListeners.keySet()) {
-        this.playerListeners.get(player).gameOver();
-      }
-    } else {
-      this.changePlayerForListener(curPlayer);
+    this.openSlots -= 1;
+    this.ownedCards[this.curPlayer.ordinal()] += numFlipped + 1;
+    for (int i = 0; i < numFlipped; i++) {
+      this.ownedCards[this.flippedFrom[i].ordinal()] -= 1;
     }
 
+    this.curPlayer = Player.nextPlayer(this.curPlayer);
+    return numFlipped;
+  }
+
+  @Override
+  public void undo(MoveRecord record) {
+    if (record == null || !record.madeOn(this)) {
+      throw new IllegalArgumentException("record must be of a move made on this board");
+    }
+    int x = record.xCord();
+    int y = record.yCord();
+    if (this.curPlayer != Player.nextPlayer(record.previousPlayer())
+            || !(this.grid[y][x] instanceof Card)) {
+      throw new IllegalArgumentException("record is not of the most recent move");
+    }
+
+    Player mover = record.previousPlayer();
+    for (int i = record.numFlipped() - 1; i >= 0; i--) {
+      int cell = record.flippedCell(i);
+      this.gridHash ^= this.cellKey(cell) ^ this.cellKey(cell, record.previousOwner(i));
+      this.grid[record.flippedY(i)][record.flippedX(i)].switchPlayer(record.previousOwner(i));
+      this.ownedCards[record.previousOwner(i).ordinal()] += 1;
+    }
+    Card played = (Card) this.grid[y][x];
+    this.gridHash ^= this.cellKey(y * this.grid[0].length + x);
+    this.handHash += this.keys.handKey(mover, played.fingerprint());
+    this.grid[y][x] = new Empty();
+    this.ownedCards[mover.ordinal()] -= record.numFlipped() + 1;
+    this.openSlots += 1;
+    this.unPlayedCards.get(record.previousPlayer()).add(record.handIndex(), played);
+    this.curPlayer = record.previousPlayer();
+  }
+
+  /**
+   * Gives the key of the card in the given cell as it is owned now, or 0 if there is no card.
+   * @param cell the cell, as y * width + x
+   * @return the key of that cell
+   */
+  private long cellKey(int cell) {
+    Slot slot = this.slotAt(cell);
+    return this.cellKey(cell, slot.getSlotOwner());
+  }
 
+  /**
+   * Gives the key of the card in the given cell as if it were owned by the given player, or 0 if
+   * there is no card.
+   * @param cell the cell, as y * width + x
+   * @param owner the owner to key the card with
+   * @return the key of that cell
+   */
+  private long cellKey(int cell, Player owner) {
+    Slot slot = this.slotAt(cell);
+    if (!(slot instanceof Card)) {
+      return 0;
+    }
+    return this.keys.cellKey(cell, owner, ((Card) slot).fingerprint());
   }
 
   /**
-   * battles all of the cards around the card at the given coordinate, and recursively calls the
-   * method on it's neighbors that it wins against.
+   * Works out which of the cards around the given cell the given card would win against if it
+   * were played there.
    *
-   * @param x           the x coordinate of the card
-   * @param y           the y coordinate of the card
-   * @param alreadySeen the cards that we have already battled their neighbors with
+   * @param origin      the cell the card is played to, as y * width + x
+   * @param originCard  the card being played, which need not be in the grid
+   * @param originOwner the owner of the card being played
+   * @return a mask with bit i set if the card flips its neighbor in direction BATTLE_ORDER[i]
    */
-  private int battle(int x, int y, Set<Slot> alreadySeen, Slot[][] gridToActOn) {
-    int result = 0;
-    alreadySeen.add(gridToActOn[y][x]);
-    if (y > 0) {
-      Slot placeToCheck = gridToActOn[y - 1][x];
-      if (!alreadySeen.contains(placeToCheck) &&
-              gridToActOn[y][x].battle(placeToCheck, Direction.UP) &&
-              !placeToCheck.getSlotOwner().equals(gridToActOn[y][x].getSlotOwner())) {
-        placeToCheck.switchPlayer(curPlayer);
-        result += this.battle(x, y - 1, alreadySeen, gridToActOn) + 1;
+  private int firstBattles(int origin, Slot originCard, Player originOwner) {
+    int wins = 0;
+    for (int edge = this.adjacency.start(origin); edge < this.adjacency.end(origin); edge++) {
+      Slot target = this.slotAt(this.adjacency.target(edge));
+      if (originCard.battle(target, this.adjacency.direction(edge))
+              && !target.getSlotOwner().equals(originOwner)) {
+        wins |= 1 << this.adjacency.battleIndex(edge);
       }
     }
+    return wins;
+  }
+
+  /**
+   * battles the cards around a card played at the given cell, and then battles the neighbors of
+   * every card it wins against, depth first, without changing the grid. Which neighbors the
+   * played card itself wins against is worked out beforehand by firstBattles, so the rest of the
+   * battle only depends on the cell and that mask.
+   * The cards already battled are kept in a bitmap that doubles as an overlay of tentative
+   * owners: a card in it is treated as already belonging to the attacker. The cards still
+   * to be battled are kept on a preallocated stack, so no objects are created and long chains of
+   * flips cannot overflow the call stack.
+   *
+   * @param origin    the cell the card is played to, as y * width + x
+   * @param firstWins the neighbors the played card wins against, as given by firstBattles
+   * @param attacker  the owner of the played card, whose cards are never flipped
+   * @return the number of cards that would be flipped, which are recorded along with their
+   *         current owners in the first entries of flipped and flippedFrom
+   */
+  private int battle(int origin, int firstWins, Player attacker) {
+    if (this.cascadePool != null) {
+      return this.parallelBattle(origin, firstWins, attacker);
+    }
+    int numFlipped = 0;
+    int depth = 0;
+    Bits.set(this.visited, origin);
+    this.stackCells[0] = origin;
+    this.stackEdges[0] = this.adjacency.start(origin);
+
+    while (depth >= 0) {
+      int cell = this.stackCells[depth];
+      int edge = this.stackEdges[depth];
+      if (edge == this.adjacency.end(cell)) {
+        depth -= 1;
+        continue;
+      }
+      this.stackEdges[depth] = edge + 1;
 
-    if (y < gridToActOn.length - 1) {
-      Slot placeToCheck = gridToActOn[y + 1][x];
-      if (!alreadySeen.contains(placeToCheck) &&
-              gridToActOn[y][x].battle(placeToCheck, Direction.DOWN) &&
-              !placeToCheck.getSlotOwner().equals(gridToActOn[y][x].getSlotOwner())) {
-        placeToCheck.switchPlayer(curPlayer);
-        result += this.battle(x, y + 1, alreadySeen, gridToActOn) + 1;
+      int target = this.adjacency.target(edge);
+      if (Bits.get(this.visited, target)) {
+        continue;
+      }
+
+      Slot placeToCheck = this.slotAt(target);
+      boolean wins = cell == origin
+              ? (firstWins & (1 << this.adjacency.battleIndex(edge))) != 0
+              : this.slotAt(cell).battle(placeToCheck, this.adjacency.direction(edge))
+                  && !placeToCheck.getSlotOwner().equals(attacker);
+      if (wins) {
+        this.flippedFrom[numFlipped] = placeToCheck.getSlotOwner();
+        Bits.set(this.visited, target);
+        this.flipped[numFlipped++] = target;
+        depth += 1;
+        this.stackCells[depth] = target;
+        this.stackEdges[depth] = this.adjacency.start(target);
       }
     }
 
-    if (x > 0) {
-      Slot placeToCheck = gridToActOn[y][x - 1];
-      if (!alreadySeen.contains(placeToCheck) &&
-              gridToActOn[y][x].battle(placeToCheck, Direction.LEFT) &&
-              !placeToCheck.getSlotOwner().equals(gridToActOn[y][x].getSlotOwner())) {
-        placeToCheck.switchPlayer(curPlayer);
-        result += this.battle(x - 1, y, alreadySeen, gridToActOn) + 1;
+    Bits.clear(this.visited, origin);
+    for (int i = 0; i < numFlipped; i++) {
+      Bits.clear(this.visited, this.flipped[i]);
+    }
+    return numFlipped;
+  }
+
+  /**
+   * Resolves the same battle as battle, breadth first. The cards flipped so far double as the
+   * queue of cards still to attack: each level is a run of flipped, and expanding it appends the
+   * next level after it. Large levels are split between tasks on the cascade pool.
+   *
+   * @param origin    the cell the card is played to, as y * width + x
+   * @param firstWins the neighbors the played card wins against, as given by firstBattles
+   * @param attacker  the owner of the played card, whose cards are never flipped
+   * @return the number of cards that would be flipped, which are recorded along with their
+   *         current owners in the first entries of flipped and flippedFrom
+   */
+  private int parallelBattle(int origin, int firstWins, Player attacker) {
+    if (this.claimed == null) {
+      this.claimed = new AtomicLongArray(this.visited.length);
+    }
+    this.claim(origin);
+    int numFlipped = 0;
+    for (int edge = this.adjacency.start(origin); edge < this.adjacency.end(origin); edge++) {
+      int target = this.adjacency.target(edge);
+      if ((firstWins & (1 << this.adjacency.battleIndex(edge))) != 0 && this.claim(target)) {
+        this.flippedFrom[numFlipped] = this.slotAt(target).getSlotOwner();
+        this.flipped[numFlipped++] = target;
       }
     }
 
-    if (x < gridToActOn[0].length - 1) {
-      Slot placeToCheck = gridToActOn[y][x + 1];
-      if (!alreadySeen.contains(placeToCheck) &&
-              gridToActOn[y][x].battle(placeToCheck, Direction.RIGHT) &&
-              !placeToCheck.getSlotOwner().equals(gridToActOn[y][x].getSlotOwner())) {
-        placeToCheck.switchPlayer(curPlayer);
-        result += this.battle(x + 1, y, alreadySeen, gridToActOn) + 1;
+    AtomicInteger size = new AtomicInteger(numFlipped);
+    int levelStart = 0;
+    while (levelStart < size.get()) {
+      int levelEnd = size.get();
+      if (levelEnd - levelStart >= this.minParallelLevel) {
+        this.cascadePool.invoke(new ExpandLevel(levelStart, levelEnd, size, attacker));
+      } else {
+        this.expand(levelStart, levelEnd, size, attacker);
       }
+      levelStart = levelEnd;
     }
 
-    return result;
+    numFlipped = size.get();
+    this.release(origin);
+    for (int i = 0; i < numFlipped; i++) {
+      this.release(this.flipped[i]);
+    }
+    return numFlipped;
   }
 
-  @Override
-  public boolean isGameOver() {
-    for (Slot[] row : grid) {
-      for (Slot slot : row) {
-        if (slot.canPlayCard()) {
-          return false;
+  /**
+   * Battles the neighbors of a run of flipped cards, and appends every card they win against
+   * that no other card has claimed yet. The grid is not changed while a cascade is resolved, so a
+   * card that has not been claimed still has its owner from before the move.
+   *
+   * @param from the first entry of flipped to attack from
+   * @param to   the entry after the last one to attack from
+   * @param size the number of entries of flipped in use, which new cards are appended at
+   * @param attacker the owner of the played card, whose cards are never flipped
+   */
+  private void expand(int from, int to, AtomicInteger size, Player attacker) {
+    int[] found = new int[(to - from) * BATTLE_ORDER.length];
+    Player[] foundFrom = new Player[found.length];
+    int numFound = 0;
+    for (int i = from; i < to; i++) {
+      int cell = this.flipped[i];
+      Slot attackingCard = this.slotAt(cell);
+      for (int edge = this.adjacency.start(cell); edge < this.adjacency.end(cell); edge++) {
+        int target = this.adjacency.target(edge);
+        Slot placeToCheck = this.slotAt(target);
+        if (!this.isClaimed(target)
+                && attackingCard.battle(placeToCheck, this.adjacency.direction(edge))
+                && !placeToCheck.getSlotOwner().equals(attacker)
+                && this.claim(target)) {
+          foundFrom[numFound] = placeToCheck.getSlotOwner();
+          found[numFound++] = target;
         }
       }
     }
+    int at = size.getAndAdd(numFound);
+    System.arraycopy(found, 0, this.flipped, at, numFound);
+    System.arraycopy(foundFrom, 0, this.flippedFrom, at, numFound);
+  }
 
-    return true;
+  /**
+   * Expands part of one level of a cascade, splitting it in half until each task has at most
+   * CELLS_PER_TASK cards to attack from.
+   */
+  private final class ExpandLevel extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final AtomicInteger size;
+    private final Player attacker;
+
+    private ExpandLevel(int from, int to, AtomicInteger size, Player attacker) {
+      this.from = from;
+      this.to = to;
+      this.size = size;
+      this.attacker = attacker;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= CELLS_PER_TASK) {
+        expand(this.from, this.to, this.size, this.attacker);
+      } else {
+        int mid = (this.from + this.to) >>> 1;
+        invokeAll(new ExpandLevel(this.from, mid, this.size, this.attacker),
+                new ExpandLevel(mid, this.to, this.size, this.attacker));
+      }
+    }
   }
 
   /**
-   * gets the number of cards for each player on the board.
+   * Claims a cell for the cascade being resolved.
    *
-   * @return a map of all the number of cards each player owns on the board
+   * @param cell the cell to claim
+   * @return whether this call claimed it, false if it was already claimed
    */
-  private Map<Player, Integer> getCounts() {
-    Map<Player, Integer> numCards = new HashMap<Player, Integer>();
+  private boolean claim(int cell) {
+    long bit = 1L << cell;
+    return (this.claimed.getAndAccumulate(cell >>> 6, bit, (word, mask) -> word | mask) & bit)
+            == 0;
+  }
 
-    for (Slot[] row : grid) {
-      for (Slot slot : row) {
-        if (!(slot.equals(new Empty()) | slot.equals(new Hole()))) {
-          slot.addToPlayerCount(numCards);
-        }
-      }
-    }
-    return numCards;
+  private boolean isClaimed(int cell) {
+    return (this.claimed.get(cell >>> 6) & (1L << cell)) != 0;
+  }
+
+  private void release(int cell) {
+    this.claimed.getAndAccumulate(cell >>> 6, ~(1L << cell), (word, mask) -> word & mask);
+  }
+
+  private Slot slotAt(int cell) {
+    return this.grid[cell / this.grid[0].length][cell % this.grid[0].length];
   }
 
+  @Override
+  public boolean isGameOver() {
+    return this.openSlots == 0;
+  }
 
   @Override
   public Player gameWinner() {
@@ -291,17 +612,15 @@ public class ThreeTriosBoard implements Board {
       throw new IllegalStateException("game is not over");
     }
 
-    Map<Player, Integer> numCards = getCounts();
-
-
-    if (numCards.get(Player.A) > numCards.get(Player.B)) {
+    int aCards = this.ownedCards[Player.A.ordinal()];
+    int bCards = this.ownedCards[Player.B.ordinal()];
+    if (aCards > bCards) {
       return Player.A;
-    } else if (numCards.get(Player.B) > numCards.get(Player.A)) {
+    } else if (bCards > aCards) {
       return Player.B;
     } else {
       return Player.NONE;
     }
-
   }
 
   @Override
@@ -353,9 +672,7 @@ public class ThreeTriosBoard implements Board {
       throw new IllegalArgumentException("player cannot be null");
     }
 
-    Map<Player, Integer> numCards = getCounts();
-
-    return numCards.getOrDefault(player, 0)
+    return this.ownedCards[player.ordinal()]
             + this.unPlayedCards.getOrDefault(player, List.of()).size();
   }
 
@@ -367,9 +684,40 @@ public class ThreeTriosBoard implements Board {
     if (!this.isMoveLegal(x, y)) {
       throw new IllegalArgumentException("move is not legal");
     }
-    Slot[][] gridCopy = this.getGrid();
-    gridCopy[y][x] = card.copyCard();
-    return this.battle(x, y, new HashSet<>(), gridCopy);
+    int origin = y * this.grid[0].length + x;
+    return this.battle(origin, this.firstBattles(origin, card, card.getSlotOwner()),
+            card.getSlotOwner());
+  }
+
+  @Override
+  public int[][] possibleCardsFlippedForHand(Player player) {
+    if (player == null) {
+      throw new IllegalArgumentException("player cannot be null");
+    }
+
+    List<Card> hand = this.unPlayedCards.getOrDefault(player, List.of());
+    int numCells = this.grid.length * this.grid[0].length;
+    int[][] ret = new int[hand.size()][numCells];
+    //the flips for each mask of first battles won, for the cell being looked at
+    int[] flipsByFirstWins = new int[1 << BATTLE_ORDER.length];
+    for (int cell = 0; cell < numCells; cell++) {
+      if (!this.slotAt(cell).canPlayCard()) {
+        for (int[] row : ret) {
+          row[cell] = -1;
+        }
+        continue;
+      }
+      Arrays.fill(flipsByFirstWins, -1);
+      for (int handIdx = 0; handIdx < hand.size(); handIdx++) {
+        Card card = hand.get(handIdx);
+        int firstWins = this.firstBattles(cell, card, card.getSlotOwner());
+        if (flipsByFirstWins[firstWins] < 0) {
+          flipsByFirstWins[firstWins] = this.battle(cell, firstWins, card.getSlotOwner());
+        }
+        ret[handIdx][cell] = flipsByFirstWins[firstWins];
+      }
+    }
+    return ret;
   }
 
   @Override
@@ -391,6 +739,69 @@ public class ThreeTriosBoard implements Board {
     return this.curPlayer;
   }
 
+  @Override
+  public Adjacency getAdjacency() {
+    return this.adjacency;
+  }
+
+  @Override
+  public long positionHash() {
+    return this.gridHash ^ this.handHash ^ this.keys.turnKey(this.curPlayer);
+  }
+
+  @Override
+  public int getHandSize(Player player) {
+    if (player == null) {
+      throw new IllegalArgumentException("player cannot be null");
+    }
+    return this.unPlayedCards.getOrDefault(player, List.of()).size();
+  }
+
+  @Override
+  public long getHandCardId(Player player, int handIdx) {
+    return this.handCard(player, handIdx).fingerprint();
+  }
+
+  @Override
+  public AttackValue getHandCardValue(Player player, int handIdx, Direction dir) {
+    if (dir == null) {
+      throw new IllegalArgumentException("dir cannot be null");
+    }
+    return this.handCard(player, handIdx).valueIn(dir);
+  }
+
+  @Override
+  public long getCellCardId(int x, int y) {
+    validateCoordinates(x, y);
+    Slot slot = this.grid[y][x];
+    return slot instanceof Card ? ((Card) slot).fingerprint() : NO_CARD;
+  }
+
+  @Override
+  public AttackValue getCellValue(int x, int y, Direction dir) {
+    validateCoordinates(x, y);
+    if (dir == null) {
+      throw new IllegalArgumentException("dir cannot be null");
+    }
+    if (!(this.grid[y][x] instanceof Card)) {
+      throw new IllegalArgumentException("there is no card at that cell");
+    }
+    return ((Card) this.grid[y][x]).valueIn(dir);
+  }
+
+  /**
+   * Gets a card in a player's hand, without copying it, checking the index first.
+   * @param player the player whose hand the card is in
+   * @param handIdx the index of the card in their hand
+   * @return the card itself, which must not be mutated or handed out
+   */
+  private Card handCard(Player player, int handIdx) {
+    if (handIdx < 0 || handIdx >= this.getHandSize(player)) {
+      throw new IllegalArgumentException("hand index out of range");
+    }
+    return this.unPlayedCards.get(player).get(handIdx);
+  }
+
   /**
    * checks whether x and y are valid coordinates in the grid.
    * @param x the x value of the coordinate
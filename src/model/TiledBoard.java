@@ -0,0 +1,540 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Represents a playable board in the ThreeTriosGame for very large grids. The grid is split into
+ * square tiles of TILE_SIZE by TILE_SIZE cells, and a tile is only allocated if at least one of
+ * its cells is not a hole; each allocated tile keeps the card id and owner of its cells in
+ * primitive arrays. Memory therefore grows with the playable area of the grid rather than its
+ * width times its height, and a board can be built cell by cell with a TiledBoardBuilder without
+ * ever making a grid of Slots.
+ * It plays by exactly the same rules as ThreeTriosBoard. Methods whose results cover every cell,
+ * like getGrid and possibleCardsFlippedForHand, still cost as much as the whole grid. getAdjacency
+ * only walks the cells of allocated tiles, though the adjacency still keeps an int per cell.
+ * INVARIANT: there are always more cards in the hands than open slots in the board
+ * INVARIANT: only cells in allocated tiles can be open or hold cards, and only cells holding
+ *            cards are owned
+ * INVARIANT: the grid is always at least 1 by 1, and has at most Integer.MAX_VALUE cells
+ * INVARIANT: ownedCards always matches the number of cards each player owns in the grid
+ * INVARIANT: gridHash and handHash always match the cards in the grid and hands under keys
+ */
+public class TiledBoard extends PackedBoard {
+
+  /**
+   * The width and height of a tile, in cells.
+   */
+  public static final int TILE_SIZE = 32;
+
+  private static final int TILE_BITS = Integer.numberOfTrailingZeros(TILE_SIZE);
+  private static final int TILE_MASK = TILE_SIZE - 1;
+  private static final int TILE_CELLS = TILE_SIZE * TILE_SIZE;
+  private static final Player[] PLAYERS = Player.values();
+
+  private final int tilesWide;
+  private final Tile[] tiles; //row-column major, null if every cell of the tile is a hole
+  private final int[] ownedCards; //cards in the grid owned by each player, indexed by ordinal
+  private Adjacency adjacency; //made the first time it is asked for
+
+  //scratch space reused by every battle, grown as longer chains of flips are found
+  private int[] stackCells;
+  private int[] stackDirs;
+
+  /**
+   * The cells of one tile of the grid, indexed by (y % TILE_SIZE) * TILE_SIZE + x % TILE_SIZE.
+   */
+  private static final class Tile {
+    private final long[] open; //cells that are not holes
+    private final int[] cardIds; //the id of the card in each cell, -1 if there is no card
+    private final byte[] owners; //the ordinal of the owner of each cell
+    private final long[] visited; //cells already reached by the battle being resolved
+
+    private Tile() {
+      this.open = new long[Bits.words(TILE_CELLS)];
+      this.cardIds = new int[TILE_CELLS];
+      this.owners = new byte[TILE_CELLS];
+      this.visited = new long[Bits.words(TILE_CELLS)];
+      Arrays.fill(this.cardIds, -1);
+      Arrays.fill(this.owners, (byte) Player.NONE.ordinal());
+    }
+  }
+
+  /**
+   * Builds the grid of a TiledBoard one cell at a time. Every cell starts as a hole, and only the
+   * tiles holding cells that are added are allocated, so a very large grid never has to exist as
+   * Slots.
+   */
+  public static class TiledBoardBuilder {
+    private final int width;
+    private final int height;
+    private final int tilesWide;
+    private final Tile[] tiles;
+    private final List<Card> gridCards; //indexed by the id the builder gave each card
+    private int openSlots;
+
+    /**
+     * Starts building a grid of the given size, made only of holes.
+     * @param width the number of columns
+     * @param height the number of rows
+     * @throws IllegalArgumentException if width or height are not positive, or the grid would
+     *                                  have more than Integer.MAX_VALUE cells
+     */
+    public TiledBoardBuilder(int width, int height) {
+      if (width <= 0 || height <= 0) {
+        throw new IllegalArgumentException("grid must be at least 1 by 1 in size");
+      }
+      if ((long) width * height > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("grid has too many cells");
+      }
+      this.width = width;
+      this.height = height;
+      this.tilesWide = (width + TILE_MASK) >> TILE_BITS;
+      int tilesHigh = (height + TILE_MASK) >> TILE_BITS;
+      this.tiles = new Tile[this.tilesWide * tilesHigh];
+      this.gridCards = new ArrayList<>();
+    }
+
+    /**
+     * Makes the given cell an empty slot that a card can be played to.
+     * @param x the x coordinate, 0-indexed, starting from the left
+     * @param y the y coordinate, 0-indexed, starting from the top
+     * @return this builder
+     * @throws IllegalArgumentException if the cell is out of the grid or was already added
+     */
+    public TiledBoardBuilder addEmpty(int x, int y) {
+      this.claim(x, y);
+      this.openSlots += 1;
+      return this;
+    }
+
+    /**
+     * Places the given card in the given cell, owned by the card's owner.
+     * @param x the x coordinate, 0-indexed, starting from the left
+     * @param y the y coordinate, 0-indexed, starting from the top
+     * @param card the card to place
+     * @return this builder
+     * @throws IllegalArgumentException if card is null, or the cell is out of the grid or was
+     *                                  already added
+     */
+    public TiledBoardBuilder addCard(int x, int y, Card card) {
+      if (card == null) {
+        throw new IllegalArgumentException("card cannot be null");
+      }
+      Tile tile = this.claim(x, y);
+      int local = localIndex(x, y);
+      tile.cardIds[local] = this.gridCards.size();
+      tile.owners[local] = (byte) card.getSlotOwner().ordinal();
+      this.gridCards.add(card);
+      return this;
+    }
+
+    /**
+     * Makes the board with the grid built so far. The builder should not be used afterwards.
+     * @param cards the cards to deal between the players
+     * @param random random variable to use when shuffling
+     * @param shuffle whether the cards should be shuffled before being dealt
+     * @return the board
+     * @throws IllegalArgumentException if cards or random are null, cards contains null, or
+     *                                  there are not more cards than empty slots
+     */
+    public TiledBoard build(List<Card> cards, Random random, boolean shuffle) {
+      return new TiledBoard(this, cards, random, shuffle);
+    }
+
+    /**
+     * Marks a cell as not a hole, allocating its tile if needed.
+     * @param x the x coordinate of the cell
+     * @param y the y coordinate of the cell
+     * @return the tile of the cell
+     */
+    private Tile claim(int x, int y) {
+      if (x < 0 || y < 0 || x >= this.width || y >= this.height) {
+        throw new IllegalArgumentException("indexes are out of bounds for this grid");
+      }
+      int tileIdx = (y >> TILE_BITS) * this.tilesWide + (x >> TILE_BITS);
+      if (this.tiles[tileIdx] == null) {
+        this.tiles[tileIdx] = new Tile();
+      }
+      Tile tile = this.tiles[tileIdx];
+      int local = localIndex(x, y);
+      if (Bits.get(tile.open, local)) {
+        throw new IllegalArgumentException("cell has already been added");
+      }
+      Bits.set(tile.open, local);
+      return tile;
+    }
+  }
+
+  /**
+   * Constructs a TiledBoard object from a grid of Slots, so that it starts in the same position
+   * as a ThreeTriosBoard made from the same arguments.
+   *
+   * @param grid    the grid to use
+   * @param cards   the cards you can use
+   * @param random  random variable to use when shuffling
+   * @param shuffle whether the cards should be shuffled before being dealt
+   * @throws IllegalArgumentException if any argument is null, the grid contains null or is not
+   *                                  square, or there are not more cards than open slots
+   */
+  public TiledBoard(Slot[][] grid, List<Card> cards, Random random, boolean shuffle) {
+    this(builderOf(grid), cards, random, shuffle);
+  }
+
+  /**
+   * Constructs a TiledBoard with a random Random variable.
+   *
+   * @param grid  the grid to use
+   * @param cards the cards to use
+   */
+  public TiledBoard(Slot[][] grid, List<Card> cards) {
+    this(grid, cards, new Random(), true);
+  }
+
+  /**
+   * Constructs a TiledBoard with the grid of the given builder, taking over its tiles.
+   *
+   * @param builder the builder holding the grid
+   * @param cards   the cards to deal between the players
+   * @param random  random variable to use when shuffling
+   * @param shuffle whether the cards should be shuffled before being dealt
+   */
+  private TiledBoard(TiledBoardBuilder builder, List<Card> cards, Random random,
+                     boolean shuffle) {
+    //the builder numbered the grid's cards from 0, so they keep their ids
+    super(builder.width, builder.height, builder.openSlots, builder.gridCards,
+        deal(cards, builder.openSlots, random, shuffle), Player.firstPlayer());
+    this.tilesWide = builder.tilesWide;
+    this.tiles = builder.tiles;
+    this.ownedCards = new int[PLAYERS.length];
+    this.stackCells = new int[TILE_SIZE];
+    this.stackDirs = new int[TILE_SIZE];
+    this.flipped = new int[TILE_SIZE];
+    this.flippedFrom = new Player[TILE_SIZE];
+
+    for (int tileIdx = 0; tileIdx < this.tiles.length; tileIdx++) {
+      Tile tile = this.tiles[tileIdx];
+      if (tile == null) {
+        continue;
+      }
+      for (int local = 0; local < TILE_CELLS; local++) {
+        if (tile.cardIds[local] >= 0) {
+          int cell = this.cellOf(tileIdx, local);
+          Player owner = PLAYERS[tile.owners[local]];
+          this.ownedCards[owner.ordinal()] += 1;
+          this.hashGridCard(cell, owner);
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies a grid of Slots into a builder, checking it the same way the other boards do.
+   *
+   * @param grid the grid to copy
+   * @return a builder holding the grid
+   */
+  private static TiledBoardBuilder builderOf(Slot[][] grid) {
+    if (grid == null) {
+      throw new IllegalArgumentException("Arguments for board must be non-null");
+    }
+    if (grid.length == 0 || grid[0] == null || grid[0].length == 0) {
+      throw new IllegalArgumentException("grid must be at least 1 by 1 in size");
+    }
+
+    TiledBoardBuilder builder = new TiledBoardBuilder(grid[0].length, grid.length);
+    for (int row = 0; row < grid.length; row++) {
+      if (grid[row] == null || grid[row].length != grid[0].length) {
+        throw new IllegalArgumentException("grid must be square");
+      }
+      for (int col = 0; col < grid[row].length; col++) {
+        Slot slot = grid[row][col];
+        if (slot == null) {
+          throw new IllegalArgumentException("grid cannot have null slots");
+        }
+        if (slot instanceof Card) {
+          builder.addCard(col, row, (Card) slot);
+        } else if (slot.canPlayCard()) {
+          builder.addEmpty(col, row);
+        }
+      }
+    }
+    return builder;
+  }
+
+  @Override
+  protected int firstBattles(int origin, int originEdges, byte[] originValues,
+                             Player originOwner) {
+    int wins = 0;
+    for (int dirIdx = 0; dirIdx < BATTLE_ORDER.length; dirIdx++) {
+      Direction dir = BATTLE_ORDER[dirIdx];
+      int target = this.neighbor(origin, dir);
+      int targetId = target < 0 ? -1 : this.cardIdAt(target);
+      if (targetId >= 0
+          && (this.beatenBy[targetId * NUM_DIRS + dir.ordinal()]
+              & (1 << originValues[originEdges + dir.ordinal()])) != 0
+          && this.ownerOf(target) != originOwner) {
+        wins |= 1 << dirIdx;
+      }
+    }
+    return wins;
+  }
+
+  @Override
+  protected int battle(int origin, int firstWins, Player attacker) {
+    //cards reached are marked in the visited bits of their tiles, and the stack and flipped
+    //buffers grow if a battle outgrows them
+    int numFlipped = 0;
+    int depth = 0;
+    this.setVisited(origin, true);
+    this.stackCells[0] = origin;
+    this.stackDirs[0] = 0;
+
+    while (depth >= 0) {
+      int cell = this.stackCells[depth];
+      int dirIdx = this.stackDirs[depth];
+      if (dirIdx == BATTLE_ORDER.length) {
+        depth -= 1;
+        continue;
+      }
+      this.stackDirs[depth] = dirIdx + 1;
+
+      Direction dir = BATTLE_ORDER[dirIdx];
+      int target = this.neighbor(cell, dir);
+      int targetId = target < 0 ? -1 : this.cardIdAt(target);
+      if (targetId < 0 || this.isVisited(target)) {
+        continue;
+      }
+
+      boolean wins;
+      if (cell == origin) {
+        wins = (firstWins & (1 << dirIdx)) != 0;
+      } else {
+        int attack = this.edges[this.cardIdAt(cell) * NUM_DIRS + dir.ordinal()];
+        wins = (this.beatenBy[targetId * NUM_DIRS + dir.ordinal()] & (1 << attack)) != 0
+            && this.ownerOf(target) != attacker;
+      }
+      if (wins) {
+        this.setVisited(target, true);
+        if (numFlipped + 1 >= this.flipped.length) {
+          this.growScratch();
+        }
+        this.flipped[numFlipped++] = target;
+        depth += 1;
+        this.stackCells[depth] = target;
+        this.stackDirs[depth] = 0;
+      }
+    }
+
+    this.setVisited(origin, false);
+    for (int i = 0; i < numFlipped; i++) {
+      this.setVisited(this.flipped[i], false);
+    }
+    return numFlipped;
+  }
+
+  /**
+   * Doubles the size of the buffers battles use. A battle never holds more cells on its stack
+   * than it has flipped, plus the cell it started from.
+   */
+  private void growScratch() {
+    int size = this.flipped.length * 2;
+    this.stackCells = Arrays.copyOf(this.stackCells, size);
+    this.stackDirs = Arrays.copyOf(this.stackDirs, size);
+    this.flipped = Arrays.copyOf(this.flipped, size);
+    this.flippedFrom = Arrays.copyOf(this.flippedFrom, size);
+  }
+
+  /**
+   * Gives the cell next to the given cell in the given direction.
+   *
+   * @param cell the cell to look from
+   * @param dir  the direction to look in
+   * @return the neighboring cell, or -1 if it would be off the grid
+   */
+  private int neighbor(int cell, Direction dir) {
+    int x = cell % this.width;
+    int y = cell / this.width;
+    switch (dir) {
+      case UP:
+        return y > 0 ? cell - this.width : -1;
+      case DOWN:
+        return y < this.height - 1 ? cell + this.width : -1;
+      case LEFT:
+        return x > 0 ? cell - 1 : -1;
+      case RIGHT:
+        return x < this.width - 1 ? cell + 1 : -1;
+      default:
+        throw new IllegalArgumentException("unknown direction");
+    }
+  }
+
+  /**
+   * Gives the tile holding the given cell.
+   *
+   * @param cell the cell, as y * width + x
+   * @return the tile, or null if every cell in it is a hole
+   */
+  private Tile tileOf(int cell) {
+    int x = cell % this.width;
+    int y = cell / this.width;
+    return this.tiles[(y >> TILE_BITS) * this.tilesWide + (x >> TILE_BITS)];
+  }
+
+  /**
+   * Gives the index of the given cell within its tile.
+   *
+   * @param cell the cell, as y * width + x
+   * @return the index of the cell in its tile's arrays
+   */
+  private int localOf(int cell) {
+    return localIndex(cell % this.width, cell / this.width);
+  }
+
+  private static int localIndex(int x, int y) {
+    return ((y & TILE_MASK) << TILE_BITS) | (x & TILE_MASK);
+  }
+
+  /**
+   * Gives the cell at the given index of the given tile.
+   *
+   * @param tileIdx the index of the tile
+   * @param local   the index of the cell in the tile
+   * @return the cell, as y * width + x
+   */
+  private int cellOf(int tileIdx, int local) {
+    int x = ((tileIdx % this.tilesWide) << TILE_BITS) | (local & TILE_MASK);
+    int y = ((tileIdx / this.tilesWide) << TILE_BITS) | (local >> TILE_BITS);
+    return y * this.width + x;
+  }
+
+  @Override
+  protected int cardIdAt(int cell) {
+    Tile tile = this.tileOf(cell);
+    return tile == null ? -1 : tile.cardIds[this.localOf(cell)];
+  }
+
+  private boolean isVisited(int cell) {
+    return Bits.get(this.tileOf(cell).visited, this.localOf(cell));
+  }
+
+  private void setVisited(int cell, boolean visited) {
+    Tile tile = this.tileOf(cell);
+    if (visited) {
+      Bits.set(tile.visited, this.localOf(cell));
+    } else {
+      Bits.clear(tile.visited, this.localOf(cell));
+    }
+  }
+
+  @Override
+  protected Player ownerOf(int cell) {
+    Tile tile = this.tileOf(cell);
+    if (tile == null) {
+      return Player.NONE;
+    }
+    return PLAYERS[tile.owners[this.localOf(cell)]];
+  }
+
+  @Override
+  protected void setOwner(int cell, Player owner) {
+    //keeps the counts of owned cards
+    Tile tile = this.tileOf(cell);
+    int local = this.localOf(cell);
+    this.ownedCards[tile.owners[local]] -= 1;
+    this.ownedCards[owner.ordinal()] += 1;
+    tile.owners[local] = (byte) owner.ordinal();
+  }
+
+  @Override
+  protected void placeCard(int cell, int id, Player owner) {
+    Tile tile = this.tileOf(cell);
+    tile.cardIds[this.localOf(cell)] = id;
+    tile.owners[this.localOf(cell)] = (byte) owner.ordinal();
+    this.ownedCards[owner.ordinal()] += 1;
+  }
+
+  @Override
+  protected void removeCard(int cell) {
+    Tile tile = this.tileOf(cell);
+    int local = this.localOf(cell);
+    this.ownedCards[tile.owners[local]] -= 1;
+    tile.cardIds[local] = -1;
+    tile.owners[local] = (byte) Player.NONE.ordinal();
+  }
+
+  @Override
+  protected boolean isOpen(int cell) {
+    Tile tile = this.tileOf(cell);
+    int local = this.localOf(cell);
+    return tile != null && Bits.get(tile.open, local) && tile.cardIds[local] < 0;
+  }
+
+  @Override
+  protected boolean isHole(int cell) {
+    Tile tile = this.tileOf(cell);
+    return tile == null || !Bits.get(tile.open, this.localOf(cell));
+  }
+
+  @Override
+  protected int ownedCount(Player player) {
+    return this.ownedCards[player.ordinal()];
+  }
+
+  @Override
+  public int[][] possibleCardsFlippedForHand(Player player) {
+    int handSize = this.getHandSize(player);
+    int[][] ret = new int[handSize][this.width * this.height];
+    for (int[] row : ret) {
+      Arrays.fill(row, -1);
+    }
+    //the flips for each mask of first battles won, for the cell being looked at
+    int[] flipsByFirstWins = new int[1 << BATTLE_ORDER.length];
+    for (int tileIdx = 0; tileIdx < this.tiles.length; tileIdx++) {
+      if (this.tiles[tileIdx] == null) {
+        continue;
+      }
+      Tile tile = this.tiles[tileIdx];
+      for (int local = 0; local < TILE_CELLS; local++) {
+        //only cells in the grid are ever marked open
+        if (!Bits.get(tile.open, local) || tile.cardIds[local] >= 0) {
+          continue;
+        }
+        int cell = this.cellOf(tileIdx, local);
+        Arrays.fill(flipsByFirstWins, -1);
+        for (int handIdx = 0; handIdx < handSize; handIdx++) {
+          int id = this.hands[player.ordinal()][handIdx];
+          int firstWins = this.firstBattles(cell, id * NUM_DIRS, this.edges, player);
+          if (flipsByFirstWins[firstWins] < 0) {
+            flipsByFirstWins[firstWins] = this.battle(cell, firstWins, player);
+          }
+          ret[handIdx][cell] = flipsByFirstWins[firstWins];
+        }
+      }
+    }
+    return ret;
+  }
+
+  @Override
+  public Adjacency getAdjacency() {
+    if (this.adjacency == null) {
+      //only the allocated tiles can have cells that are not holes
+      long[] open = new long[Bits.words(this.width * this.height)];
+      for (int tileIdx = 0; tileIdx < this.tiles.length; tileIdx++) {
+        Tile tile = this.tiles[tileIdx];
+        if (tile == null) {
+          continue;
+        }
+        for (int local = 0; local < TILE_CELLS; local++) {
+          if (Bits.get(tile.open, local)) {
+            Bits.set(open, this.cellOf(tileIdx, local));
+          }
+        }
+      }
+      this.adjacency = new Adjacency(open, this.width, this.height);
+    }
+    return this.adjacency;
+  }
+}
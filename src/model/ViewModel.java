@@ -72,6 +72,46 @@ public class ViewModel implements ReadOnlyBoard {
     return delegate.curPlayer();
   }
 
+  @Override
+  public int[][] possibleCardsFlippedForHand(Player player) {
+    return delegate.possibleCardsFlippedForHand(player);
+  }
+
+  @Override
+  public long positionHash() {
+    return delegate.positionHash();
+  }
+
+  @Override
+  public Adjacency getAdjacency() {
+    return delegate.getAdjacency();
+  }
+
+  @Override
+  public int getHandSize(Player player) {
+    return delegate.getHandSize(player);
+  }
+
+  @Override
+  public long getHandCardId(Player player, int handIdx) {
+    return delegate.getHandCardId(player, handIdx);
+  }
+
+  @Override
+  public AttackValue getHandCardValue(Player player, int handIdx, Direction dir) {
+    return delegate.getHandCardValue(player, handIdx, dir);
+  }
+
+  @Override
+  public long getCellCardId(int x, int y) {
+    return delegate.getCellCardId(x, y);
+  }
+
+  @Override
+  public AttackValue getCellValue(int x, int y, Direction dir) {
+    return delegate.getCellValue(x, y, dir);
+  }
+
   @Override
   public List<Card> getHand(Player player) {
     return delegate.getHand(player);
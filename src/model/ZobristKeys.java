@@ -0,0 +1,190 @@
+package model;
+
+import java.util.List;
+
+/**
+ * The random keys used to hash positions in the game. Every cell has a key for each player that
+ * could own a card in it, every player has a key for the cards in their hand and a key for
+ * having the turn, and every card has a fingerprint taken from its name and values. The hash of a
+ * position combines the keys of everything in it, so a board can keep its hash up to date one
+ * placed or flipped card at a time instead of recomputing it.
+ * The keys are generated from a seed with a fixed algorithm rather than java.util.Random, so the
+ * same seed gives the same hashes in every run and on every JVM. Each key only depends on the
+ * seed and its position in the sequence, so boards with too many cells to keep a table of keys
+ * work out each cell's key when it is needed, and get the same keys a table would hold.
+ */
+public final class ZobristKeys {
+
+  /**
+   * The seed used for the keys boards hash their positions with.
+   */
+  public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+  private static final int NUM_PLAYERS = Player.values().length;
+  //boards with more cells than this work out their cell keys instead of keeping a table
+  private static final int MAX_TABLE_CELLS = 1 << 16;
+
+  private final long seed;
+  private final int numCells;
+  private final long[] cellKeys; //indexed by cell * NUM_PLAYERS + owner ordinal, or null if the
+                                 //keys are worked out as they are needed
+  private final long[] handKeys; //indexed by player ordinal
+  private final long[] turnKeys; //indexed by player ordinal
+
+  /**
+   * Generates the keys for a board with the given number of cells from the given seed.
+   * @param seed the seed to generate keys from
+   * @param numCells the number of cells in the board, width times height
+   * @throws IllegalArgumentException if numCells is negative
+   */
+  public ZobristKeys(long seed, int numCells) {
+    if (numCells < 0) {
+      throw new IllegalArgumentException("numCells cannot be negative");
+    }
+    this.seed = seed;
+    this.numCells = numCells;
+    if (numCells <= MAX_TABLE_CELLS) {
+      this.cellKeys = new long[numCells * NUM_PLAYERS];
+      for (int i = 0; i < this.cellKeys.length; i++) {
+        this.cellKeys[i] = this.sequenceKey(i);
+      }
+    } else {
+      this.cellKeys = null;
+    }
+    long state = seed + (long) numCells * NUM_PLAYERS * GOLDEN_GAMMA;
+    this.handKeys = new long[NUM_PLAYERS];
+    this.turnKeys = new long[NUM_PLAYERS];
+    for (int i = 0; i < NUM_PLAYERS; i++) {
+      state += GOLDEN_GAMMA;
+      this.handKeys[i] = mix(state);
+      state += GOLDEN_GAMMA;
+      this.turnKeys[i] = mix(state);
+    }
+  }
+
+  /**
+   * Generates the keys for a board with the given number of cells from the default seed.
+   * @param numCells the number of cells in the board, width times height
+   * @return the keys
+   */
+  public static ZobristKeys defaultKeys(int numCells) {
+    return new ZobristKeys(DEFAULT_SEED, numCells);
+  }
+
+  /**
+   * Gives the key for a card sitting in a cell.
+   * @param cell the cell, as y * width + x
+   * @param owner the owner of the card
+   * @param card the fingerprint of the card
+   * @return the key to combine into the hash with exclusive or
+   */
+  public long cellKey(int cell, Player owner, long card) {
+    long idx = (long) cell * NUM_PLAYERS + owner.ordinal();
+    long key = this.cellKeys == null ? this.sequenceKey(idx) : this.cellKeys[(int) idx];
+    return mix(key ^ card);
+  }
+
+  /**
+   * Gives the key for a card in a player's hand. Hand keys are added into the hash rather than
+   * combined with exclusive or, so two copies of the same card do not cancel each other out.
+   * @param player the player holding the card
+   * @param card the fingerprint of the card
+   * @return the key to add into the hash
+   */
+  public long handKey(Player player, long card) {
+    return mix(this.handKeys[player.ordinal()] ^ card);
+  }
+
+  /**
+   * Gives the key for it being the given player's turn.
+   * @param player the player to move
+   * @return the key to combine into the hash with exclusive or
+   */
+  public long turnKey(Player player) {
+    return this.turnKeys[player.ordinal()];
+  }
+
+  /**
+   * Gives the fingerprint of a card, which depends only on its name and values and not on its
+   * owner. Cards with the same name and values have the same fingerprint.
+   * @param card the card
+   * @return the fingerprint of the card
+   * @throws IllegalArgumentException if card is null
+   */
+  public static long fingerprint(Card card) {
+    if (card == null) {
+      throw new IllegalArgumentException("card cannot be null");
+    }
+    return card.fingerprint();
+  }
+
+  /**
+   * Computes the fingerprint of a card from its description, as produced by Card.toString.
+   * @param description the name and values of the card
+   * @return the fingerprint, which is never NO_CARD
+   */
+  static long fingerprintOf(String description) {
+    long hash = 0xCBF29CE484222325L; //FNV-1a offset basis
+    for (int i = 0; i < description.length(); i++) {
+      hash ^= description.charAt(i);
+      hash *= 0x100000001B3L;
+    }
+    hash = mix(hash);
+    return hash == ReadOnlyBoard.NO_CARD ? 1 : hash;
+  }
+
+  /**
+   * Computes the hash of a board's position from scratch with these keys. A board hashing with
+   * the same keys keeps its positionHash equal to this as it is played.
+   * @param board the board to hash
+   * @return the hash of the board's current position
+   * @throws IllegalArgumentException if board is null or larger than these keys allow
+   */
+  public long hash(ReadOnlyBoard board) {
+    if (board == null) {
+      throw new IllegalArgumentException("board cannot be null");
+    }
+    if ((long) board.gameWidth() * board.gameHeight() > this.numCells) {
+      throw new IllegalArgumentException("board has more cells than these keys");
+    }
+
+    long gridHash = 0;
+    for (int y = 0; y < board.gameHeight(); y++) {
+      for (int x = 0; x < board.gameWidth(); x++) {
+        Slot slot = board.getCoord(x, y);
+        if (slot instanceof Card) {
+          gridHash ^= this.cellKey(y * board.gameWidth() + x, slot.getSlotOwner(),
+                  ((Card) slot).fingerprint());
+        }
+      }
+    }
+    long handHash = 0;
+    for (Player player : List.of(Player.A, Player.B)) {
+      for (Card card : board.getHand(player)) {
+        handHash += this.handKey(player, card.fingerprint());
+      }
+    }
+    return gridHash ^ handHash ^ this.turnKey(board.curPlayer());
+  }
+
+  /**
+   * Gives a key from the sequence generated from the seed.
+   * @param idx the position of the key in the sequence, from 0
+   * @return the key
+   */
+  private long sequenceKey(long idx) {
+    return mix(this.seed + (idx + 1) * GOLDEN_GAMMA);
+  }
+
+  /**
+   * Scrambles the bits of a long (the finalizer of the SplitMix64 generator).
+   * @param z the value to scramble
+   * @return the scrambled value
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
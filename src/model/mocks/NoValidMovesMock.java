@@ -11,6 +11,7 @@ import model.Board;
 import model.Card;
 import model.Direction;
 import model.Empty;
+import model.MoveRecord;
 import model.Player;
 import model.Slot;
 
@@ -25,6 +26,21 @@ public class NoValidMovesMock implements Board {
     //empty because we don't need to check this.
   }
 
+  @Override
+  public MoveRecord playToBoardUndoable(int handIndex, int x, int y) {
+    return null;
+  }
+
+  @Override
+  public void undo(MoveRecord record) {
+    //nothing to undo for mock
+  }
+
+  @Override
+  public long positionHash() {
+    return 0;
+  }
+
   @Override
   public void startGame() {
     //does nothing here for mock
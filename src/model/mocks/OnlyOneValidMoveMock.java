@@ -11,6 +11,7 @@ import model.Board;
 import model.Card;
 import model.Direction;
 import model.Empty;
+import model.MoveRecord;
 import model.Player;
 import model.Slot;
 
@@ -43,6 +44,21 @@ public class OnlyOneValidMoveMock implements Board {
     //empty because we don't need to check anything here
   }
 
+  @Override
+  public MoveRecord playToBoardUndoable(int handIndex, int x, int y) {
+    return null;
+  }
+
+  @Override
+  public void undo(MoveRecord record) {
+    //nothing to undo for mock
+  }
+
+  @Override
+  public long positionHash() {
+    return 0;
+  }
+
   @Override
   public void startGame() {
     //does nothing here for mock
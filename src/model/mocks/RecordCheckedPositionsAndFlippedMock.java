@@ -12,6 +12,7 @@ import model.Board;
 import model.Card;
 import model.Direction;
 import model.Empty;
+import model.MoveRecord;
 import model.Player;
 import model.Slot;
 
@@ -41,6 +42,21 @@ public class RecordCheckedPositionsAndFlippedMock implements Board {
     //empty becasue we don't need any info here
   }
 
+  @Override
+  public MoveRecord playToBoardUndoable(int handIndex, int x, int y) {
+    return null;
+  }
+
+  @Override
+  public void undo(MoveRecord record) {
+    //nothing to undo for mock
+  }
+
+  @Override
+  public long positionHash() {
+    return 0;
+  }
+
   @Override
   public void startGame() {
     //does nothing here for mock
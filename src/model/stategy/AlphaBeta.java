@@ -0,0 +1,275 @@
+package model.stategy;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import model.BitBoard;
+import model.Board;
+import model.MoveRecord;
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An infallible strategy that searches every line of play up to a fixed number of moves ahead,
+ * assuming both players choose the move that is best for them, and scores the positions it stops
+ * at with an evaluator. Lines that cannot change the result are cut off by alpha-beta pruning, so
+ * the chosen moves are exactly those a full search to the same depth would choose.
+ * The search plays and undoes moves in place on one BitBoard copy of the model, and tries the
+ * moves of each position in the order a MoveOrdering ranks them, so that more lines are cut off.
+ * Each choice of moves keeps its own copy, counts and ordering, so one strategy can choose for
+ * several threads at once. A search can also be told to try only one of each set of identical
+ * cards in a hand, which never changes any score but leaves the later cards' moves unlisted.
+ */
+public class AlphaBeta extends InfallibleTTStrategy {
+
+  //larger than any score an evaluator gives, and small enough to negate without overflowing
+  private static final int INFINITY = 1 << 30;
+
+  private final int depth;
+  private final Evaluator evaluator;
+  private final HandPruning pruning;
+  private volatile long nodes;
+
+  /**
+   * Produces a strategy that searches the given number of moves ahead, counting its own move.
+   * @param depth how many moves to search, at least 1
+   * @param evaluator the evaluator that scores the positions the search stops at, whose scores
+   *                  must be strictly between -2^30 and 2^30
+   * @throws IllegalArgumentException if depth is less than 1 or evaluator is null
+   */
+  public AlphaBeta(int depth, Evaluator evaluator) {
+    this(depth, evaluator, HandPruning.NONE);
+  }
+
+  /**
+   * Produces a strategy that searches the given number of moves ahead, counting its own move,
+   * leaving out the moves of the cards the given pruning does in every position it searches.
+   * @param depth how many moves to search, at least 1
+   * @param evaluator the evaluator that scores the positions the search stops at, whose scores
+   *                  must be strictly between -2^30 and 2^30, and which only looks at the
+   *                  attack values of cards if pruning is IDENTICAL
+   * @param pruning which cards to leave out, NONE or IDENTICAL
+   * @throws IllegalArgumentException if depth is less than 1, evaluator or pruning is null, or
+   *                                  pruning is stricter than IDENTICAL
+   */
+  public AlphaBeta(int depth, Evaluator evaluator, HandPruning pruning) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("depth must be at least 1");
+    }
+    if (evaluator == null) {
+      throw new IllegalArgumentException("evaluator cannot be null");
+    }
+    if (pruning == null) {
+      throw new IllegalArgumentException("pruning cannot be null");
+    }
+    if (!HandPruning.IDENTICAL.prunesAtLeast(pruning)) {
+      throw new IllegalArgumentException("pruning is not sound for a search");
+    }
+    this.depth = depth;
+    this.evaluator = evaluator;
+    this.pruning = pruning;
+  }
+
+  /**
+   * The number of positions the last choice of moves to finish searched, not counting the
+   * position it was made in. With no pruning, this is the number of lines of play up to the
+   * search depth.
+   * @return the number of positions searched
+   */
+  public long lastNodeCount() {
+    return this.nodes;
+  }
+
+  @Override
+  public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return this.searchToDepth(options, model, player, this.depth, () -> false);
+  }
+
+  @Override
+  protected IntMoveList mergeBest(IntMoveList finalists, ReadOnlyBoard model, Player player) {
+    finalists.keepHighest();
+    return finalists;
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return HandPruning.IDENTICAL;
+  }
+
+  /**
+   * The number of moves this strategy searches ahead.
+   * @return the depth of the search
+   */
+  int depth() {
+    return this.depth;
+  }
+
+  /**
+   * Makes an ordering for searches of this strategy, which leaves out the cards it prunes.
+   * @return a new ordering that has not learnt anything yet
+   */
+  MoveOrdering newOrdering() {
+    return new MoveOrdering(this.pruning);
+  }
+
+  /**
+   * Chooses from the given moves like chooseFromOptions, but searching to the given depth, and
+   * giving up as soon as it can once stop says to. The number of positions searched is
+   * available from lastNodeCount afterwards, whether or not the search gave up.
+   * @param options the moves that will be evaluated, which are not changed
+   * @param model the model that is used to decide on moves, which is not changed
+   * @param player the players whose turn it is
+   * @param depth how many moves to search, at least 1
+   * @param stop whether to give up, which is asked before each position is searched
+   * @return a new list of all the best moves of the given moves, with their scores, or null if
+   *         the search gave up before it finished
+   */
+  IntMoveList searchToDepth(IntMoveList options, ReadOnlyBoard model, Player player, int depth,
+                            BooleanSupplier stop) {
+    return this.searchToDepth(options, model, player, depth, stop, this.newOrdering());
+  }
+
+  /**
+   * Chooses from the given moves like searchToDepth, ordering moves with the given ordering, so
+   * that what it learnt in earlier searches of the same game speeds this one up.
+   * @param options the moves that will be evaluated, which are not changed
+   * @param model the model that is used to decide on moves, which is not changed
+   * @param player the players whose turn it is
+   * @param depth how many moves to search, at least 1
+   * @param stop whether to give up, which is asked before each position is searched
+   * @param ordering the ordering to rank moves with, which learns from this search
+   * @return a new list of all the best moves of the given moves, with their scores, or null if
+   *         the search gave up before it finished
+   */
+  IntMoveList searchToDepth(IntMoveList options, ReadOnlyBoard model, Player player, int depth,
+                            BooleanSupplier stop, MoveOrdering ordering) {
+    Search search = null;
+    int[] scores = new int[options.size()];
+    boolean[] searched = new boolean[options.size()];
+    int best = -INFINITY;
+
+    try {
+      //ordering and copying the root read the whole board, which takes a while on a large one
+      if (stop.getAsBoolean()) {
+        return null;
+      }
+      for (int idx : ordering.order(options, model, player)) {
+        long move = options.move(idx);
+        int handIdx = MoveEncoding.handIdx(move);
+        int xCord = MoveEncoding.xCord(move);
+        int yCord = MoveEncoding.yCord(move);
+        if (search == null) {
+          if (stop.getAsBoolean()) {
+            return null;
+          }
+          ordering.newSearch(depth);
+          search = new Search(BitBoard.copyOf(model, player), stop, ordering);
+        }
+        Board simGame = search.simGame;
+        if (simGame.isMoveLegal(xCord, yCord) && handIdx < simGame.getHandSize(player)) {
+          MoveRecord played = simGame.playToBoardUndoable(handIdx, xCord, yCord);
+          //searching with a bound one below the best so far gives every tie its exact score
+          int score = -search.negamax(depth - 1, 1, -INFINITY, -(best - 1));
+          if (search.stopped) {
+            //the copy is thrown away, so it does not need to be put back
+            return null;
+          }
+          simGame.undo(played);
+          scores[idx] = score;
+          searched[idx] = true;
+          if (score > best) {
+            best = score;
+            ordering.cutoff(move, player, 0, depth);
+          }
+        }
+      }
+    } finally {
+      this.nodes = search == null ? 0 : search.nodes;
+    }
+
+    //the moves were searched best first, but are reported in the order they were given
+    IntMoveList ret = new IntMoveList(options.size());
+    for (int idx = 0; idx < options.size(); idx++) {
+      if (searched[idx]) {
+        ret.add(options.move(idx), scores[idx]);
+      }
+    }
+    ret.keepHighest();
+    return ret;
+  }
+
+  /**
+   * One choice of moves: the copy of the model it plays on, and how far it has got.
+   */
+  private final class Search {
+    private final Board simGame;
+    private final BooleanSupplier stop; //asked before every position
+    private final MoveOrdering ordering;
+    private long nodes;
+    private boolean stopped;
+
+    /**
+     * Starts a search on the given copy.
+     * @param simGame the copy of the model to play on
+     * @param stop whether to give up
+     * @param ordering the ordering to rank moves with
+     */
+    private Search(Board simGame, BooleanSupplier stop, MoveOrdering ordering) {
+      this.simGame = simGame;
+      this.stop = stop;
+      this.ordering = ordering;
+    }
+
+    /**
+     * Scores the position on simGame for the player whose turn it is, by searching every move
+     * from it. simGame is back in the same position when this returns.
+     * @param depth how many more moves to search
+     * @param ply how many moves the position is from the root of the search
+     * @param alpha the score the player to move is already sure of elsewhere
+     * @param beta the score the opponent is already sure of elsewhere, negated
+     * @return the score of the position if it is between alpha and beta, or else a score that is
+     *         at most alpha or at least beta, or anything once the search has stopped, in which
+     *         case the position may be left changed
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+      this.nodes += 1;
+      //a position on a large board takes long enough that the clock is cheap to read each time
+      if (this.stop.getAsBoolean()) {
+        this.stopped = true;
+      }
+      if (this.stopped) {
+        return 0;
+      }
+      Board simGame = this.simGame;
+      Player toMove = simGame.curPlayer();
+      if (depth == 0 || simGame.isGameOver()) {
+        return AlphaBeta.this.evaluator.evaluate(simGame, toMove);
+      }
+
+      int best = -INFINITY;
+      for (long move : this.ordering.order(simGame, toMove, ply, TranspositionTable.NO_MOVE)) {
+        MoveRecord played = simGame.playToBoardUndoable(MoveEncoding.handIdx(move),
+                MoveEncoding.xCord(move), MoveEncoding.yCord(move));
+        int score = -this.negamax(depth - 1, ply + 1, -beta, -Math.max(alpha, best));
+        if (this.stopped) {
+          return 0;
+        }
+        simGame.undo(played);
+        if (score > best) {
+          best = score;
+          if (best >= beta) {
+            this.ordering.cutoff(move, toMove, ply, depth);
+            return best;
+          }
+        }
+      }
+      return best;
+    }
+  }
+}
@@ -28,4 +28,26 @@ public class CombinedStrategy extends InfallibleTTStrategy {
     return strat2.chooseFromOptions(
             strat1.chooseFromOptions(options, model, player), model, player);
   }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return this.chooseFromOptions(options, new TurnContext(model, player));
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    return chooseFromOptions(strat2, chooseFromOptions(strat1, options, context), context);
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    return choosesInParallel(strat1) && choosesInParallel(strat2);
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    //a card left out loses or ties to an earlier card in both strategies
+    return HandPruning.weakest(soundHandPruning(strat1), soundHandPruning(strat2));
+  }
 }
@@ -0,0 +1,302 @@
+package model.stategy;
+
+import java.util.List;
+
+import model.BitBoard;
+import model.Board;
+import model.MoveRecord;
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An infallible strategy that plays the end of the game perfectly. Once no more than a given
+ * number of cells are open, it searches every line of play to the end of the game with
+ * alpha-beta pruning, and chooses the moves that leave the player the most cards ahead when both
+ * players play perfectly. The score of each move it chooses is that final margin, the player's
+ * score minus their opponent's. It tries the move that was best the last time a position was
+ * solved first, then the rest in the order a MoveOrdering ranks them, and remembers solved
+ * positions in a transposition table, so positions reached by playing the same cards in a
+ * different order are only solved once.
+ * With more cells open than that, it chooses with another strategy if it was given one, and
+ * otherwise treats every move as equally good, so that it can be combined with another strategy
+ * that breaks its ties, like new CombinedStrategy(new EndgameSolver(8), new MostFlipped()).
+ */
+public class EndgameSolver extends InfallibleTTStrategy {
+
+  //larger than any margin, and small enough to negate without overflowing
+  private static final int INFINITY = 1 << 20;
+  //keeps this solver's entries apart from other searches sharing its table
+  private static final long KEY_SALT = 0x5DEECE66DL * 0x9E3779B97F4A7C15L;
+  private static final int DEFAULT_TABLE_MEGABYTES = 8;
+
+  private final int maxOpenCells;
+  private final InfallibleStategy otherwise; //null if every move is as good as another
+  private TranspositionTable table; //null until the first solve if none was given
+  private volatile long nodes;
+
+  /**
+   * Produces a solver that takes over from the given strategy once no more than the given number
+   * of cells are open, remembering positions in the given table. The table may be shared with
+   * other searches, but only of games played by the same rules.
+   * @param maxOpenCells the most open cells to solve
+   * @param otherwise the strategy to choose with when more cells are open, or null to treat
+   *                  every move as equally good then
+   * @param table the table to remember solved positions in
+   * @throws IllegalArgumentException if maxOpenCells is negative or table is null
+   */
+  public EndgameSolver(int maxOpenCells, InfallibleStategy otherwise, TranspositionTable table) {
+    this(otherwise, notNull(table, "table"), maxOpenCells);
+  }
+
+  /**
+   * Produces a solver that takes over from the given strategy once no more than the given number
+   * of cells are open.
+   * @param maxOpenCells the most open cells to solve
+   * @param otherwise the strategy to choose with when more cells are open
+   * @throws IllegalArgumentException if maxOpenCells is negative or otherwise is null
+   */
+  public EndgameSolver(int maxOpenCells, InfallibleStategy otherwise) {
+    this(notNull(otherwise, "otherwise"), null, maxOpenCells);
+  }
+
+  /**
+   * Produces a solver that treats every move as equally good until no more than the given number
+   * of cells are open.
+   * @param maxOpenCells the most open cells to solve
+   * @throws IllegalArgumentException if maxOpenCells is negative
+   */
+  public EndgameSolver(int maxOpenCells) {
+    this(null, null, maxOpenCells);
+  }
+
+  /**
+   * Produces a solver from arguments the public constructors have already checked for null.
+   * @param otherwise the strategy to choose with when more cells are open, or null
+   * @param table the table to remember solved positions in, or null to make one on the first solve
+   * @param maxOpenCells the most open cells to solve
+   * @throws IllegalArgumentException if maxOpenCells is negative
+   */
+  private EndgameSolver(InfallibleStategy otherwise, TranspositionTable table, int maxOpenCells) {
+    if (maxOpenCells < 0) {
+      throw new IllegalArgumentException("maxOpenCells cannot be negative");
+    }
+    this.maxOpenCells = maxOpenCells;
+    this.otherwise = otherwise;
+    this.table = table;
+  }
+
+  /**
+   * Gives back the given argument, so constructors can check it before handing it on.
+   * @param value the argument to check
+   * @param name the name of the argument, for the exception message
+   * @param <T> the type of the argument
+   * @return the given argument
+   * @throws IllegalArgumentException if value is null
+   */
+  private static <T> T notNull(T value, String name) {
+    if (value == null) {
+      throw new IllegalArgumentException(name + " cannot be null");
+    }
+    return value;
+  }
+
+  /**
+   * The number of positions the last solve searched, not counting the position it was made in,
+   * or 0 if the last choice of moves was not a solve.
+   * @return the number of positions searched
+   */
+  public long lastNodeCount() {
+    return this.nodes;
+  }
+
+  @Override
+  public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    this.nodes = 0;
+    int[] openCells = openCells(model);
+    if (openCells.length > this.maxOpenCells) {
+      if (this.otherwise != null) {
+        return chooseFromOptions(this.otherwise, options, model, player);
+      }
+      IntMoveList ret = new IntMoveList(options.size());
+      for (int idx = 0; idx < options.size(); idx++) {
+        long move = options.move(idx);
+        if (model.isMoveLegal(MoveEncoding.xCord(move), MoveEncoding.yCord(move))) {
+          ret.add(move, 0);
+        }
+      }
+      return ret;
+    }
+    return this.solve(options, model, player, openCells);
+  }
+
+  /**
+   * Solves the position for each of the given moves, and keeps the moves with the best margin.
+   * @param options the moves that will be evaluated, which are not changed
+   * @param model the model that is used to decide on moves, which is not changed
+   * @param player the players whose turn it is
+   * @param openCells the open cells of the model, as y * width + x
+   * @return a new list of all the best moves of the given moves, with their margins
+   */
+  private IntMoveList solve(IntMoveList options, ReadOnlyBoard model, Player player,
+                            int[] openCells) {
+    synchronized (this) {
+      if (this.table == null) {
+        this.table = new TranspositionTable(DEFAULT_TABLE_MEGABYTES);
+      }
+    }
+    this.table.newSearch();
+    MoveOrdering ordering = new MoveOrdering();
+    ordering.newSearch(openCells.length);
+    Solve solve = new Solve(BitBoard.copyOf(model, player), ordering, openCells.length);
+    int[] margins = new int[options.size()];
+    boolean[] solved = new boolean[options.size()];
+    int best = -INFINITY;
+
+    for (int idx : ordering.order(options, model, player)) {
+      long move = options.move(idx);
+      int handIdx = MoveEncoding.handIdx(move);
+      int xCord = MoveEncoding.xCord(move);
+      int yCord = MoveEncoding.yCord(move);
+      if (solve.board.isMoveLegal(xCord, yCord) && handIdx < solve.board.getHandSize(player)) {
+        MoveRecord played = solve.board.playToBoardUndoable(handIdx, xCord, yCord);
+        //searching with a bound one below the best so far gives every tie its exact margin
+        int margin = -solve.negamax(1, -INFINITY, -(best - 1));
+        solve.board.undo(played);
+        margins[idx] = margin;
+        solved[idx] = true;
+        if (margin > best) {
+          best = margin;
+          ordering.cutoff(move, player, 0, openCells.length);
+        }
+      }
+    }
+
+    //the moves were solved best first, but are reported in the order they were given
+    IntMoveList ret = new IntMoveList(options.size());
+    for (int idx = 0; idx < options.size(); idx++) {
+      if (solved[idx]) {
+        ret.add(options.move(idx), margins[idx]);
+      }
+    }
+
+    this.nodes = solve.nodes;
+    ret.keepHighest();
+    return ret;
+  }
+
+  @Override
+  protected IntMoveList mergeBest(IntMoveList finalists, ReadOnlyBoard model, Player player) {
+    if (openCells(model).length > this.maxOpenCells) {
+      return super.mergeBest(finalists, model, player);
+    }
+    finalists.keepHighest();
+    return finalists;
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    return this.otherwise == null || choosesInParallel(this.otherwise);
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    if (this.otherwise == null) {
+      return HandPruning.IDENTICAL;
+    }
+    return HandPruning.weakest(HandPruning.IDENTICAL, soundHandPruning(this.otherwise));
+  }
+
+  /**
+   * One solve: the copy of the model it plays on, and how far it has got.
+   */
+  private final class Solve {
+    private final Board board;
+    private final MoveOrdering ordering;
+    private final int movesLeft; //how many moves are left in the game from the solved position
+    private long nodes;
+
+    /**
+     * Starts a solve on the given copy.
+     * @param board the copy of the model to play on
+     * @param ordering the ordering to rank moves with
+     * @param movesLeft the number of open cells of the copy
+     */
+    private Solve(Board board, MoveOrdering ordering, int movesLeft) {
+      this.board = board;
+      this.ordering = ordering;
+      this.movesLeft = movesLeft;
+    }
+
+    /**
+     * Solves the position on board for the player whose turn it is. board is back in the same
+     * position when this returns.
+     * @param ply how many moves the position is from the position being solved
+     * @param alpha the margin the player to move is already sure of elsewhere
+     * @param beta the margin the opponent is already sure of elsewhere, negated
+     * @return the margin of the position with perfect play if it is between alpha and beta, or
+     *         else a margin that is at most alpha or at least beta
+     */
+    private int negamax(int ply, int alpha, int beta) {
+      this.nodes += 1;
+      Player toMove = this.board.curPlayer();
+      if (this.board.isGameOver()) {
+        return this.board.score(toMove) - this.board.score(Player.nextPlayer(toMove));
+      }
+
+      long key = this.board.positionHash() ^ KEY_SALT;
+      long entry = EndgameSolver.this.table.probe(key);
+      long bestMove = TranspositionTable.NO_MOVE;
+      if (entry != TranspositionTable.MISS) {
+        int stored = TranspositionTable.score(entry);
+        switch (TranspositionTable.bound(entry)) {
+          case EXACT:
+            return stored;
+          case LOWER:
+            alpha = Math.max(alpha, stored);
+            break;
+          default:
+            beta = Math.min(beta, stored);
+            break;
+        }
+        if (alpha >= beta) {
+          return stored;
+        }
+        int storedMove = TranspositionTable.move(entry);
+        if (storedMove != TranspositionTable.NO_MOVE) {
+          bestMove = MoveEncoding.widen(storedMove);
+        }
+      }
+
+      int originalAlpha = alpha;
+      long[] moves = this.ordering.order(this.board, toMove, ply, bestMove);
+      int best = -INFINITY;
+      for (long move : moves) {
+        MoveRecord played = this.board.playToBoardUndoable(MoveEncoding.handIdx(move),
+                MoveEncoding.xCord(move), MoveEncoding.yCord(move));
+        int margin = -this.negamax(ply + 1, -beta, -Math.max(alpha, best));
+        this.board.undo(played);
+        if (margin > best) {
+          best = margin;
+          bestMove = move;
+          if (best >= beta) {
+            this.ordering.cutoff(move, toMove, ply, this.movesLeft - ply);
+            break;
+          }
+        }
+      }
+
+      TranspositionTable.Bound bound = best <= originalAlpha ? TranspositionTable.Bound.UPPER
+              : best >= beta ? TranspositionTable.Bound.LOWER : TranspositionTable.Bound.EXACT;
+      //the table only has an int for the move, so the moves of very large boards are left out
+      EndgameSolver.this.table.store(key, MoveEncoding.narrow(bestMove, TranspositionTable.NO_MOVE),
+              best, 0, bound);
+      return best;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package model.stategy;
+
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * Gives a static score to a position, without looking at any moves ahead, for searches that stop
+ * at a fixed depth.
+ */
+public interface Evaluator {
+
+  /**
+   * Scores a position from the point of view of the given player, where a higher score is better
+   * for them. Searches only ask for the score of the player whose turn it is.
+   * @param model the position to score
+   * @param player the player to score the position for
+   * @return the score of the position for the player
+   */
+  int evaluate(ReadOnlyBoard model, Player player);
+}
@@ -0,0 +1,38 @@
+package model.stategy;
+
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An evaluator that scores a position by the score difference, plus the most cards the player
+ * could flip with one card from their hand, minus the most the opponent could flip with one of
+ * theirs. Unless the game is over, when only the score difference counts.
+ */
+public class FlipPotential implements Evaluator {
+  private final Evaluator scoreDifference = new ScoreDifference();
+
+  @Override
+  public int evaluate(ReadOnlyBoard model, Player player) {
+    int score = this.scoreDifference.evaluate(model, player);
+    if (model.isGameOver()) {
+      return score;
+    }
+    return score + mostFlipped(model, player) - mostFlipped(model, Player.nextPlayer(player));
+  }
+
+  /**
+   * Finds the most cards the given player could flip with a single card from their hand.
+   * @param model the position to look at
+   * @param player the player placing a card
+   * @return the most cards flipped by any move, or 0 if they have none
+   */
+  private static int mostFlipped(ReadOnlyBoard model, Player player) {
+    int most = 0;
+    for (int[] handCard : model.possibleCardsFlippedForHand(player)) {
+      for (int flipped : handCard) {
+        most = Math.max(most, flipped);
+      }
+    }
+    return most;
+  }
+}
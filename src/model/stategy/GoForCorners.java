@@ -1,9 +1,7 @@
 package model.stategy;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import model.Card;
 import model.Direction;
 import model.Player;
 import model.ReadOnlyBoard;
@@ -18,23 +16,37 @@ public class GoForCorners extends InfallibleTTStrategy {
 
   @Override
   public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
-    List<IMove> ret = new ArrayList<>();
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return this.chooseFromOptions(options, new TurnContext(model, player));
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    IntMoveList ret = new IntMoveList(options.size());
     int bestScore = 0;
-    for (IMove move : options) {
-      if (model.isMoveLegal(move.xCord(), move.yCord())) {
+    int right = context.width() - 1;
+    int bottom = context.height() - 1;
+    for (int idx = 0; idx < options.size(); idx++) {
+      long move = options.move(idx);
+      if (context.isLegal(MoveEncoding.xCord(move), MoveEncoding.yCord(move))) {
         bestScore = evaluateMove(move, 0, 0,
-                Direction.RIGHT, Direction.DOWN, model, player, ret, bestScore);
+                Direction.RIGHT, Direction.DOWN, context, ret, bestScore);
 
-        bestScore = evaluateMove(move, model.gameWidth() - 1, 0,
-                Direction.LEFT, Direction.DOWN, model, player, ret, bestScore);
+        bestScore = evaluateMove(move, right, 0,
+                Direction.LEFT, Direction.DOWN, context, ret, bestScore);
 
-        bestScore = evaluateMove(move, 0, model.gameHeight() - 1,
-                Direction.RIGHT, Direction.UP, model, player, ret, bestScore);
+        bestScore = evaluateMove(move, 0, bottom,
+                Direction.RIGHT, Direction.UP, context, ret, bestScore);
 
-        bestScore = evaluateMove(move, model.gameWidth() - 1, model.gameHeight() - 1,
-                Direction.LEFT, Direction.UP, model, player, ret, bestScore);
+        bestScore = evaluateMove(move, right, bottom,
+                Direction.LEFT, Direction.UP, context, ret, bestScore);
         if (bestScore == 0) {
-          ret.add(new Move(move.handIdx(), move.xCord(), move.yCord(), 0));
+          ret.add(move, 0);
         }
       }
     }
@@ -42,25 +54,30 @@ public class GoForCorners extends InfallibleTTStrategy {
     return ret;
   }
 
-  private int evaluateMove(IMove move, int xPos, int yPos, Direction open1, Direction open2,
-                            ReadOnlyBoard model, Player player,
-                           List<IMove> bestMoves, int bestScore) {
-    if (move.xCord() == xPos && move.yCord() == yPos) {
-      int value = sumValue(model.getHand(player).get(move.handIdx()), open1, open2);
+  private int evaluateMove(long move, int xPos, int yPos, Direction open1, Direction open2,
+                           TurnContext context, IntMoveList bestMoves, int bestScore) {
+    if (MoveEncoding.xCord(move) == xPos && MoveEncoding.yCord(move) == yPos) {
+      int value = sumValue(context, MoveEncoding.handIdx(move), open1, open2);
       if (value == bestScore) {
-        bestMoves.add(new Move(move.handIdx(), move.xCord(), move.yCord(), value));
+        bestMoves.add(move, value);
       }
       if (value > bestScore) {
         bestMoves.clear();
-        bestMoves.add(new Move(move.handIdx(), move.xCord(), move.yCord(), value));
+        bestMoves.add(move, value);
         bestScore = value;
       }
     }
     return bestScore;
   }
 
-  private int sumValue(Card card, Direction direction1, Direction direction2) {
-    return card.getDirectionalValues().get(direction1).value +
-            card.getDirectionalValues().get(direction2).value;
+  private int sumValue(TurnContext context, int handIdx, Direction direction1,
+                       Direction direction2) {
+    return context.edgeValue(context.player(), handIdx, direction1).value
+            + context.edgeValue(context.player(), handIdx, direction2).value;
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return HandPruning.DOMINATED;
   }
 }
@@ -0,0 +1,139 @@
+package model.stategy;
+
+import model.Card;
+import model.Direction;
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * Which cards in a hand can be left out when generating moves, because a card earlier in the
+ * same hand is at least as good to play. A card is only ever left out in favor of one with a
+ * lower hand index, so the move chosen still has the lowest hand index of the moves tied for
+ * best, but moves that are only tied because their cards are alike are no longer all listed.
+ * Each level leaves out everything the levels before it do. Strategies say which level is sound
+ * for them, meaning it never changes the move they choose.
+ */
+public enum HandPruning {
+  /**
+   * Every card is tried.
+   */
+  NONE,
+
+  /**
+   * A card is left out if an earlier card has the same attack value on every side. Playing
+   * either leads to the same game, so this is sound for any strategy that only looks at attack
+   * values, searches included.
+   */
+  IDENTICAL,
+
+  /**
+   * A card is left out if an earlier card has an attack value at least as high on every side.
+   * That card wins every battle this one would, so this is sound for strategies that only score
+   * the move itself and prefer winning more battles. That only holds while a higher value always
+   * beats a lower one, so in a game whose cards were given a rule or transformer, this level
+   * only leaves out what IDENTICAL does. It is not sound for searches, which also care about the
+   * cards left in hand.
+   */
+  DOMINATED;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  /**
+   * Works out which cards in a player's hand this level leaves out.
+   * @param model the model the moves are being generated in
+   * @param player the player whose hand it is
+   * @return whether each card in their hand is left out, indexed by hand index
+   * @throws IllegalArgumentException if model or player is null
+   */
+  public boolean[] prunedCards(ReadOnlyBoard model, Player player) {
+    if (model == null) {
+      throw new IllegalArgumentException("model cannot be null");
+    }
+    if (player == null) {
+      throw new IllegalArgumentException("player cannot be null");
+    }
+    int handSize = model.getHandSize(player);
+    boolean[] pruned = new boolean[handSize];
+    if (this == NONE) {
+      return pruned;
+    }
+    HandPruning level = this;
+    if (this == DOMINATED && !hasDefaultRules(model, player)) {
+      level = IDENTICAL;
+    }
+
+    int[][] values = new int[handSize][DIRECTIONS.length];
+    for (int handIdx = 0; handIdx < handSize; handIdx++) {
+      for (Direction dir : DIRECTIONS) {
+        values[handIdx][dir.ordinal()] = model.getHandCardValue(player, handIdx, dir).value;
+      }
+    }
+    for (int handIdx = 1; handIdx < handSize; handIdx++) {
+      //a pruned card is covered by whatever covers the card that pruned it
+      for (int earlier = 0; earlier < handIdx && !pruned[handIdx]; earlier++) {
+        pruned[handIdx] = !pruned[earlier] && level.covers(values[earlier], values[handIdx]);
+      }
+    }
+    return pruned;
+  }
+
+  /**
+   * Whether this level is at least as strict as another, so that it leaves out everything the
+   * other does.
+   * @param other the other level
+   * @return whether this level leaves out at least as much
+   * @throws IllegalArgumentException if other is null
+   */
+  public boolean prunesAtLeast(HandPruning other) {
+    if (other == null) {
+      throw new IllegalArgumentException("other cannot be null");
+    }
+    return this.compareTo(other) >= 0;
+  }
+
+  /**
+   * The least strict of two levels, which is sound wherever both are.
+   * @param first one level
+   * @param second the other level
+   * @return the level that leaves out less
+   * @throws IllegalArgumentException if either level is null
+   */
+  public static HandPruning weakest(HandPruning first, HandPruning second) {
+    if (first == null || second == null) {
+      throw new IllegalArgumentException("levels cannot be null");
+    }
+    return first.compareTo(second) <= 0 ? first : second;
+  }
+
+  /**
+   * Whether every card in a player's hand battles by the default rule, where the higher attack
+   * value wins. Rules and transformers are given to every card of a game at once, so this tells
+   * whether the whole game is played by the default rule.
+   * @param model the model the moves are being generated in
+   * @param player the player whose hand it is
+   * @return whether none of their cards has a rule or transformer of its own
+   */
+  private static boolean hasDefaultRules(ReadOnlyBoard model, Player player) {
+    for (Card card : model.getHand(player)) {
+      if (!card.hasDefaultRules()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Whether a card makes another one unnecessary at this level.
+   * @param earlier the attack values of the earlier card, by direction ordinal
+   * @param later the attack values of the later card, by direction ordinal
+   * @return whether the later card can be left out
+   */
+  private boolean covers(int[] earlier, int[] later) {
+    for (int side = 0; side < earlier.length; side++) {
+      if (this == IDENTICAL ? earlier[side] != later[side] : earlier[side] < later[side]) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
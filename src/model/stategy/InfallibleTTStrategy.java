@@ -1,43 +1,234 @@
 package model.stategy;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import model.Card;
 import model.Player;
 import model.ReadOnlyBoard;
 
 /**
  * An infallible strategy that chooses the best move by picking the first move of all the best
  * moves, and that calculates the best moves by calling chooseFromOptions with every possible move.
+ * Moves are generated as longs in an IntMoveList, each packing the y, x and hand index into
+ * 21-bit fields with MoveEncoding. Strategies that can score packed moves override the protected
+ * chooseFromOptions, and only the moves that are finally returned are turned into IMoves; the
+ * rest are handed their options as IMoves.
+ * Each turn's TurnContext is made once when the moves are generated, and strategies that read
+ * hands, legal cells or flips take it from there, passing it on to the strategies they combine.
  */
 public abstract class InfallibleTTStrategy implements InfallibleStategy {
   @Override
   public IMove chooseMove(ReadOnlyBoard model, Player player) throws IllegalStateException {
-    List<IMove> moveCandidates = this.allBestMoveCandidates(model, player);
+    IntMoveList moveCandidates = this.bestMoves(model, player);
 
     if (moveCandidates.isEmpty()) {
       throw new IllegalStateException("no valid moves");
     }
 
-    return moveCandidates.get(0);
+    return moveCandidates.toMove(0);
   }
 
   @Override
   public List<IMove> allBestMoveCandidates(ReadOnlyBoard model, Player player) {
-    List<IMove> allMoves = new ArrayList<>();
-    List<Card> hand = model.getHand(player);
+    return this.bestMoves(model, player).toMoves();
+  }
 
-    for (int row = 0; row < model.gameHeight(); row++) {
-      for (int col = 0; col < model.gameWidth(); col++) {
-        if (model.isMoveLegal(col, row)) {
-          for (int handIdx = 0; handIdx < hand.size(); handIdx++) {
-            allMoves.add(new Move(handIdx, col, row, 0));
+  /**
+   * Produces all the moves with the best score, by generating every legal move, furthest up,
+   * then furthest left, then lowest hand index first, and choosing from them.
+   * @param model the model that is used to decide on moves
+   * @param player the players whose turn it is
+   * @return the best moves, packed
+   */
+  protected IntMoveList bestMoves(ReadOnlyBoard model, Player player) {
+    TurnContext context = new TurnContext(model, player);
+    int handSize = model.getHandSize(player);
+    IntMoveList allMoves = new IntMoveList();
+
+    for (int row = 0; row < context.height(); row++) {
+      for (int col = 0; col < context.width(); col++) {
+        if (context.isLegal(col, row)) {
+          for (int handIdx = 0; handIdx < handSize; handIdx++) {
+            allMoves.add(MoveEncoding.pack(handIdx, col, row), 0);
           }
         }
       }
     }
 
-    return this.chooseFromOptions(allMoves, model, player);
+    return this.chooseFromOptions(allMoves, context);
+  }
+
+  /**
+   * Behaves like chooseFromOptions, but on packed moves. By default the options are unpacked and
+   * passed to chooseFromOptions.
+   * @param options the moves that will be evaluated, which are not changed
+   * @param model the model that is used to decide on moves
+   * @param player the players whose turn it is
+   * @return a new list of all the best moves of the given moves, with their scores
+   */
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return IntMoveList.of(this.chooseFromOptions(options.toMoves(), model, player));
+  }
+
+  /**
+   * Behaves like chooseFromOptions on packed moves, but reads the position from a context made
+   * for this turn. By default this just chooses from the context's model.
+   * @param options the moves that will be evaluated, which are not changed
+   * @param context the context of the turn being decided on
+   * @return a new list of all the best moves of the given moves, with their scores
+   */
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    return this.chooseFromOptions(options, context.model(), context.player());
+  }
+
+  /**
+   * The strictest hand pruning that never changes the move this strategy chooses, which
+   * PrunedHands checks before leaving cards out of the moves it generates. By default no pruning
+   * is sound.
+   * @return the strictest sound level of pruning
+   */
+  protected HandPruning soundHandPruning() {
+    return HandPruning.NONE;
+  }
+
+  /**
+   * The strictest hand pruning that is sound for any strategy, like soundHandPruning. Only these
+   * strategies can say, so for any other no pruning is sound.
+   * @param strategy the strategy to ask
+   * @return the strictest sound level of pruning
+   */
+  static HandPruning soundHandPruning(InfallibleStategy strategy) {
+    if (strategy instanceof InfallibleTTStrategy) {
+      return ((InfallibleTTStrategy) strategy).soundHandPruning();
+    }
+    return HandPruning.NONE;
+  }
+
+  /**
+   * Whether this strategy can choose from separate runs of options at once, from several threads,
+   * and still choose what it would from all of them together, because it scores each move
+   * without regard to which other moves it is choosing from. ParallelRoot checks this before
+   * splitting the options. By default it can.
+   * @return whether the options can be split between threads
+   */
+  protected boolean choosesInParallel() {
+    return true;
+  }
+
+  /**
+   * Whether any strategy can choose from separate runs of options at once, like
+   * choosesInParallel. Only these strategies can say, so any other is assumed to.
+   * @param strategy the strategy to ask
+   * @return whether the options can be split between threads
+   */
+  static boolean choosesInParallel(InfallibleStategy strategy) {
+    if (strategy instanceof InfallibleTTStrategy) {
+      return ((InfallibleTTStrategy) strategy).choosesInParallel();
+    }
+    return true;
+  }
+
+  /**
+   * Merges the best moves chosen from separate runs of options into the best moves of them all.
+   * By default this chooses from the merged moves again. Strategies whose scores alone say which
+   * moves are best override it to just compare the scores.
+   * @param finalists the best moves of each run, with their scores, in the order of the options
+   *                  they came from, which may be changed and returned
+   * @param model the model that is used to decide on moves
+   * @param player the players whose turn it is
+   * @return the best moves of all the runs, with their scores
+   */
+  protected IntMoveList mergeBest(IntMoveList finalists, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(finalists, model, player);
+  }
+
+  /**
+   * Merges the best moves chosen from separate runs of options with any strategy, like
+   * mergeBest.
+   * @param strategy the strategy the runs were chosen with
+   * @param finalists the best moves of each run, in the order of the options they came from
+   * @param model the model that is used to decide on moves
+   * @param player the players whose turn it is
+   * @return the best moves of all the runs, with their scores
+   */
+  static IntMoveList mergeBest(InfallibleStategy strategy, IntMoveList finalists,
+                               ReadOnlyBoard model, Player player) {
+    if (strategy instanceof InfallibleTTStrategy) {
+      return ((InfallibleTTStrategy) strategy).mergeBest(finalists, model, player);
+    }
+    return IntMoveList.of(strategy.chooseFromOptions(finalists.toMoves(), model, player));
+  }
+
+  /**
+   * Chooses from packed moves with any strategy, without unpacking them if the strategy is one of
+   * these.
+   * @param strategy the strategy to choose with
+   * @param options the moves that will be evaluated, which are not changed
+   * @param model the model that is used to decide on moves
+   * @param player the players whose turn it is
+   * @return a new list of all the best moves of the given moves, with their scores
+   */
+  static IntMoveList chooseFromOptions(InfallibleStategy strategy, IntMoveList options,
+                                       ReadOnlyBoard model, Player player) {
+    if (strategy instanceof InfallibleTTStrategy) {
+      return ((InfallibleTTStrategy) strategy).chooseFromOptions(options, model, player);
+    }
+    return IntMoveList.of(strategy.chooseFromOptions(options.toMoves(), model, player));
+  }
+
+  /**
+   * Chooses from packed moves with any strategy in a context made for this turn, sharing it if
+   * the strategy is one of these.
+   * @param strategy the strategy to choose with
+   * @param options the moves that will be evaluated, which are not changed
+   * @param context the context of the turn being decided on
+   * @return a new list of all the best moves of the given moves, with their scores
+   */
+  static IntMoveList chooseFromOptions(InfallibleStategy strategy, IntMoveList options,
+                                       TurnContext context) {
+    if (strategy instanceof InfallibleTTStrategy) {
+      return ((InfallibleTTStrategy) strategy).chooseFromOptions(options, context);
+    }
+    return IntMoveList.of(strategy.chooseFromOptions(options.toMoves(), context.model(),
+            context.player()));
+  }
+
+  /**
+   * Packs the legal moves out of a list of options. Every strategy passes over illegal moves, so
+   * they can be dropped before packing, which also keeps coordinates that are off the board from
+   * having to be packed.
+   * @param options the moves to pack
+   * @param model the model that decides which moves are legal
+   * @return the legal moves, packed, in the same order
+   */
+  static IntMoveList packLegal(List<IMove> options, ReadOnlyBoard model) {
+    IntMoveList ret = new IntMoveList(options.size());
+    for (IMove move : options) {
+      if (model.isMoveLegal(move.xCord(), move.yCord())) {
+        ret.add(MoveEncoding.pack(move), move.score());
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Lists the cells of a board that can be played to, furthest up, then furthest left first.
+   * Their number is also the number of moves left in the game.
+   * @param model the board
+   * @return the open cells, as y * width + x
+   */
+  static int[] openCells(ReadOnlyBoard model) {
+    int width = model.gameWidth();
+    int[] cells = new int[width * model.gameHeight()];
+    int numOpen = 0;
+    for (int row = 0; row < model.gameHeight(); row++) {
+      for (int col = 0; col < width; col++) {
+        if (model.isMoveLegal(col, row)) {
+          cells[numOpen++] = row * width + col;
+        }
+      }
+    }
+    return Arrays.copyOf(cells, numOpen);
   }
 }
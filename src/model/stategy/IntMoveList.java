@@ -0,0 +1,193 @@
+package model.stategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of moves packed with MoveEncoding, each with an int score, kept in two parallel
+ * primitive arrays. Despite the name, the moves are longs, so boards too large for a move to fit
+ * in an int can still be searched; only the scores are ints. Strategies can fill and filter it
+ * without creating an object per move, and only turn the moves they finally choose into IMoves.
+ * Moves stay in the order they were added.
+ */
+public final class IntMoveList {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] moves;
+  private int[] scores;
+  private int size;
+
+  /**
+   * Creates an empty list.
+   */
+  public IntMoveList() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty list with room for the given number of moves before it has to grow.
+   * @param capacity the number of moves to make room for
+   * @throws IllegalArgumentException if capacity is negative
+   */
+  public IntMoveList(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+    this.moves = new long[capacity];
+    this.scores = new int[capacity];
+  }
+
+  /**
+   * Creates a list holding the given moves and their scores, in the same order.
+   * @param moves the moves to pack
+   * @return the list of packed moves
+   * @throws IllegalArgumentException if moves is null, or any move is null or cannot be packed
+   */
+  public static IntMoveList of(List<IMove> moves) {
+    if (moves == null) {
+      throw new IllegalArgumentException("moves cannot be null");
+    }
+    IntMoveList ret = new IntMoveList(moves.size());
+    for (IMove move : moves) {
+      ret.add(MoveEncoding.pack(move), move.score());
+    }
+    return ret;
+  }
+
+  /**
+   * Adds a move to the end of this list.
+   * @param move the packed move
+   * @param score the score of the move
+   */
+  public void add(long move, int score) {
+    if (this.size == this.moves.length) {
+      int capacity = Math.max(DEFAULT_CAPACITY, this.moves.length * 2);
+      this.moves = Arrays.copyOf(this.moves, capacity);
+      this.scores = Arrays.copyOf(this.scores, capacity);
+    }
+    this.moves[this.size] = move;
+    this.scores[this.size] = score;
+    this.size += 1;
+  }
+
+  /**
+   * The number of moves in this list.
+   * @return the size of this list
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Determines if this list has no moves.
+   * @return whether this list is empty
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Gets a packed move.
+   * @param idx the position of the move in this list
+   * @return the packed move
+   * @throws IndexOutOfBoundsException if idx is out of range of this list
+   */
+  public long move(int idx) {
+    this.checkIndex(idx);
+    return this.moves[idx];
+  }
+
+  /**
+   * Gets the score of a move.
+   * @param idx the position of the move in this list
+   * @return the score of the move
+   * @throws IndexOutOfBoundsException if idx is out of range of this list
+   */
+  public int score(int idx) {
+    this.checkIndex(idx);
+    return this.scores[idx];
+  }
+
+  /**
+   * Changes the score of a move.
+   * @param idx the position of the move in this list
+   * @param score the new score of the move
+   * @throws IndexOutOfBoundsException if idx is out of range of this list
+   */
+  public void setScore(int idx, int score) {
+    this.checkIndex(idx);
+    this.scores[idx] = score;
+  }
+
+  /**
+   * Removes every move from this list, keeping its capacity.
+   */
+  public void clear() {
+    this.size = 0;
+  }
+
+  /**
+   * Removes every move that does not have the highest score in this list, keeping the order of
+   * the rest.
+   */
+  public void keepHighest() {
+    int best = Integer.MIN_VALUE;
+    for (int idx = 0; idx < this.size; idx++) {
+      best = Math.max(best, this.scores[idx]);
+    }
+    this.keepScore(best);
+  }
+
+  /**
+   * Removes every move that does not have the lowest score in this list, keeping the order of
+   * the rest.
+   */
+  public void keepLowest() {
+    int best = Integer.MAX_VALUE;
+    for (int idx = 0; idx < this.size; idx++) {
+      best = Math.min(best, this.scores[idx]);
+    }
+    this.keepScore(best);
+  }
+
+  /**
+   * Unpacks one move into an IMove.
+   * @param idx the position of the move in this list
+   * @return the move with its score
+   * @throws IndexOutOfBoundsException if idx is out of range of this list
+   */
+  public IMove toMove(int idx) {
+    return MoveEncoding.toMove(this.move(idx), this.score(idx));
+  }
+
+  /**
+   * Unpacks every move in this list into IMoves.
+   * @return the moves with their scores, in the same order as this list
+   */
+  public List<IMove> toMoves() {
+    List<IMove> ret = new ArrayList<>(this.size);
+    for (int idx = 0; idx < this.size; idx++) {
+      ret.add(MoveEncoding.toMove(this.moves[idx], this.scores[idx]));
+    }
+    return ret;
+  }
+
+  private void keepScore(int score) {
+    int kept = 0;
+    for (int idx = 0; idx < this.size; idx++) {
+      if (this.scores[idx] == score) {
+        this.moves[kept] = this.moves[idx];
+        this.scores[kept] = this.scores[idx];
+        kept += 1;
+      }
+    }
+    this.size = kept;
+  }
+
+  private void checkIndex(int idx) {
+    if (idx < 0 || idx >= this.size) {
+      throw new IndexOutOfBoundsException("no move at index " + idx);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package model.stategy;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An infallible strategy that runs an alpha-beta search one move deeper at a time, until it
+ * reaches the search's depth or runs out of time for the move. It always answers with the best
+ * moves of the deepest search that finished, so a deadline never leaves it without a move, and a
+ * search cut off by the deadline or by cancel is simply thrown away. If not even the one move
+ * deep search finishes, it chooses the first legal move it was given.
+ * A choice of moves can be cancelled from another thread; a strategy should only be choosing
+ * one move at a time.
+ */
+public class IterativeDeepening extends InfallibleTTStrategy {
+
+  private final AlphaBeta search;
+  private final long millisPerMove;
+  private volatile boolean cancelled;
+  private int depthReached;
+  private long nodes;
+
+  /**
+   * Produces a strategy that deepens the given search for at most the given time per move.
+   * @param search the search to deepen, whose depth is the deepest this strategy will search
+   * @param millisPerMove how long each choice of moves may take, in milliseconds
+   * @throws IllegalArgumentException if search is null or millisPerMove is not positive
+   */
+  public IterativeDeepening(AlphaBeta search, long millisPerMove) {
+    if (search == null) {
+      throw new IllegalArgumentException("search cannot be null");
+    }
+    if (millisPerMove <= 0) {
+      throw new IllegalArgumentException("millisPerMove must be positive");
+    }
+    this.search = search;
+    this.millisPerMove = millisPerMove;
+  }
+
+  /**
+   * Stops the choice of moves in progress as soon as it can, so that it answers with the moves
+   * of the deepest search that has already finished. If no moves are being chosen, the next
+   * choice is stopped instead, so a cancel made just as a choice starts is never lost.
+   */
+  public void cancel() {
+    this.cancelled = true;
+  }
+
+  /**
+   * The depth of the deepest search that finished in the last choice of moves, or 0 if none did.
+   * @return the depth the last choice was made at
+   */
+  public int lastDepthReached() {
+    return this.depthReached;
+  }
+
+  /**
+   * The number of positions searched in the last choice of moves, over every depth, including the
+   * search that was cut off.
+   * @return the number of positions searched
+   */
+  public long lastNodeCount() {
+    return this.nodes;
+  }
+
+  @Override
+  public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    long deadline = System.nanoTime() + this.millisPerMove * 1_000_000L;
+    BooleanSupplier stop = () -> this.cancelled || System.nanoTime() - deadline >= 0;
+    this.depthReached = 0;
+    this.nodes = 0;
+
+    IntMoveList best = null;
+    try {
+      //there is nothing more to find by searching past the end of the game
+      int maxDepth = Math.min(this.search.depth(), openCells(model).length);
+      //shared between depths, so each search tries first what was best in the one before
+      MoveOrdering ordering = this.search.newOrdering();
+      for (int depth = 1; depth <= maxDepth; depth++) {
+        IntMoveList found = this.search.searchToDepth(options, model, player, depth, stop,
+                ordering);
+        this.nodes += this.search.lastNodeCount();
+        if (found == null) {
+          break;
+        }
+        best = found;
+        this.depthReached = depth;
+        if (stop.getAsBoolean()) {
+          break;
+        }
+      }
+    } finally {
+      //reset once the choice is over, rather than as it starts, where it could undo a cancel
+      this.cancelled = false;
+    }
+
+    return best == null ? firstLegal(options, model, player) : best;
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    //the time for the move is shared between the options, and a choice is one at a time
+    return false;
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return HandPruning.IDENTICAL;
+  }
+
+  /**
+   * Finds the first of the given moves that can be played.
+   * @param options the moves to choose from
+   * @param model the model being decided on
+   * @param player the players whose turn it is
+   * @return a list of just that move, with a score of 0, or an empty list if there is none
+   */
+  private static IntMoveList firstLegal(IntMoveList options, ReadOnlyBoard model,
+                                        Player player) {
+    IntMoveList ret = new IntMoveList(1);
+    for (int idx = 0; idx < options.size(); idx++) {
+      long move = options.move(idx);
+      if (model.isMoveLegal(MoveEncoding.xCord(move), MoveEncoding.yCord(move))
+              && MoveEncoding.handIdx(move) < model.getHandSize(player)) {
+        ret.add(move, 0);
+        break;
+      }
+    }
+    return ret;
+  }
+}
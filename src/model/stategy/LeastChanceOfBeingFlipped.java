@@ -1,10 +1,9 @@
 package model.stategy;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import model.Adjacency;
 import model.AttackValue;
-import model.Card;
 import model.Direction;
 import model.Player;
 import model.ReadOnlyBoard;
@@ -12,29 +11,48 @@ import model.ReadOnlyBoard;
 /**
  * An infallible strategy that evaluates moves based on the number of opponent moves that could be
  * played on the next move that could flip whatever card is played.
+ * How many of the opponent's cards beat each attack value on each side is counted once per turn,
+ * so each side of each move is scored with one lookup, however big the opponent's hand is.
  */
 public class LeastChanceOfBeingFlipped extends InfallibleTTStrategy {
 
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final AttackValue[] VALUES = AttackValue.values();
+
   @Override
   public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
-    List<IMove> ret = new ArrayList<>();
-    List<Card> playerHand = model.getHand(player);
-    List<Card> nextPlayerHand = model.getHand(Player.nextPlayer(player));
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
 
-    int numCardsFlip = nextPlayerHand.size() * 4 + 1;
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return this.chooseFromOptions(options, new TurnContext(model, player));
+  }
 
-    for (IMove move : options) {
-      if (model.isMoveLegal(move.xCord(), move.yCord())) {
-        int flipped = numOpponentMovesThatCanFlip(playerHand.get(move.handIdx()),
-                move.xCord(), move.yCord(), model, nextPlayerHand);
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    IntMoveList ret = new IntMoveList(options.size());
+    Player nextPlayer = Player.nextPlayer(context.player());
+    int nextHandSize = context.hand(nextPlayer).size();
+
+    Adjacency adjacency = context.adjacency();
+    int[][] beats = countBeats(context, nextPlayer);
+    int numCardsFlip = nextHandSize * 4 + 1;
+
+    for (int idx = 0; idx < options.size(); idx++) {
+      long move = options.move(idx);
+      int xCord = MoveEncoding.xCord(move);
+      int yCord = MoveEncoding.yCord(move);
+      if (context.isLegal(xCord, yCord)) {
+        int flipped = numOpponentMovesThatCanFlip(MoveEncoding.handIdx(move), xCord, yCord,
+                context, adjacency, beats);
         if (flipped == numCardsFlip) {
-          ret.add(new Move(move.handIdx(), move.xCord(), move.yCord(),
-                  nextPlayerHand.size() * 4 + 1 - flipped));
+          ret.add(move, nextHandSize * 4 + 1 - flipped);
         }
         if (flipped < numCardsFlip) {
-          ret = new ArrayList<>();
-          ret.add(new Move(move.handIdx(), move.xCord(), move.yCord(),
-                  nextPlayerHand.size() * 4 + 1 - flipped));
+          ret.clear();
+          ret.add(move, nextHandSize * 4 + 1 - flipped);
           numCardsFlip = flipped;
         }
       }
@@ -43,44 +61,61 @@ public class LeastChanceOfBeingFlipped extends InfallibleTTStrategy {
     return ret;
   }
 
-  private int numOpponentMovesThatCanFlip(Card cardPlayed, int xPos, int yPos,
-                                          ReadOnlyBoard model, List<Card> nextPlayerHand) {
+  private int numOpponentMovesThatCanFlip(int handIdx, int xPos, int yPos,
+                                          TurnContext context, Adjacency adjacency,
+                                          int[][] beats) {
     int ret = 0;
+    int cell = yPos * adjacency.width() + xPos;
 
-    if (validIGridIndex(xPos - 1, yPos, model.gameWidth(), model.gameHeight(), model)) {
-      ret += compCardsInDir(Direction.LEFT, cardPlayed, nextPlayerHand);
-    }
-
-    if (validIGridIndex(xPos + 1, yPos, model.gameWidth(), model.gameHeight(), model)) {
-      ret += compCardsInDir(Direction.RIGHT, cardPlayed, nextPlayerHand);
-    }
-
-    if (validIGridIndex(xPos, yPos + 1, model.gameWidth(), model.gameHeight(), model)) {
-      ret += compCardsInDir(Direction.DOWN, cardPlayed, nextPlayerHand);
-    }
-
-    if (validIGridIndex(xPos, yPos - 1, model.gameWidth(), model.gameHeight(), model)) {
-      ret += compCardsInDir(Direction.UP, cardPlayed, nextPlayerHand);
+    for (int edge = adjacency.start(cell); edge < adjacency.end(cell); edge++) {
+      int target = adjacency.target(edge);
+      if (validIGridIndex(target % adjacency.width(), target / adjacency.width(), context)) {
+        ret += compCardsInDir(adjacency.direction(edge), handIdx, context, beats);
+      }
     }
 
     return ret;
   }
 
-  private int compCardsInDir(Direction dir, Card playedCard, List<Card> nextPlayerHand) {
-    int ret = 0;
-    AttackValue compareVal = playedCard.getDirectionalValues().get(dir);
+  private int compCardsInDir(Direction dir, int handIdx, TurnContext context, int[][] beats) {
+    return beats[dir.ordinal()][context.edgeValue(context.player(), handIdx, dir).ordinal()];
+  }
 
-    for (Card card : nextPlayerHand) {
-      if (card.getDirectionalValues().get(dir.getOppositeDirection())
-              .compareToValue(compareVal) > 0) {
-        ret++;
+  /**
+   * Counts, for each side a played card could be attacked on and each attack value it could have
+   * there, how many of the opponent's cards have a higher value on the side facing it.
+   * @param context the context of the turn
+   * @param nextPlayer the opponent
+   * @return the counts, indexed by the ordinal of the played card's side and then of its value
+   */
+  private static int[][] countBeats(TurnContext context, Player nextPlayer) {
+    int[][] beats = new int[DIRECTIONS.length][VALUES.length];
+    for (int idx = 0; idx < context.hand(nextPlayer).size(); idx++) {
+      for (Direction dir : DIRECTIONS) {
+        beats[dir.ordinal()][context.edgeValue(nextPlayer, idx,
+                dir.getOppositeDirection()).ordinal()] += 1;
       }
     }
-    return ret;
+    //every card with a value above an attack value beats it, so sum from the highest value down
+    for (int[] counts : beats) {
+      int higher = 0;
+      for (int value = counts.length - 1; value >= 0; value--) {
+        int atValue = counts[value];
+        counts[value] = higher;
+        higher += atValue;
+      }
+    }
+    return beats;
   }
 
-  private boolean validIGridIndex(int xPos, int yPos, int width, int height, ReadOnlyBoard model) {
-    return 0 <= xPos - 1 && xPos - 1 < width && 0 <= yPos - 1 && yPos - 1 < height
-            && model.isMoveLegal(xPos, yPos);
+  private boolean validIGridIndex(int xPos, int yPos, TurnContext context) {
+    return 0 <= xPos - 1 && xPos - 1 < context.width()
+            && 0 <= yPos - 1 && yPos - 1 < context.height()
+            && context.isLegal(xPos, yPos);
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return HandPruning.DOMINATED;
   }
 }
@@ -0,0 +1,222 @@
+package model.stategy;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An infallible strategy that remembers what another strategy chose, so that choosing from the
+ * same options in the same position again, within a turn or in a later one, is a lookup instead
+ * of working it out again. This pays off wherever one strategy is asked about the same position
+ * over and over, like the enemy strategy of a Minimax or either half of a nested
+ * CombinedStrategy.
+ * Choices are remembered by the hash of the position, the player choosing, the order of the
+ * cards in their hand, since the moves chosen name cards by where they are in it, and the options
+ * they chose from, and only the most recently used ones are kept, up to a given number. The strategy
+ * wrapped must always choose the same moves for the same position and options, and one memo
+ * should only be used for games played by the same rules, since the rules are not part of the
+ * position. A memo can be used from several threads at once.
+ */
+public class MemoizedStrategy extends InfallibleTTStrategy {
+
+  private final InfallibleStategy delegate;
+  private final Map<Key, Choice> memo; //least recently used first, guarded by itself
+  private long hits;
+  private long misses;
+
+  /**
+   * Produces a strategy that remembers up to the given number of choices of the given strategy.
+   * @param delegate the strategy whose choices are remembered
+   * @param capacity the most choices to remember at once
+   * @throws IllegalArgumentException if delegate is null or capacity is not positive
+   */
+  public MemoizedStrategy(InfallibleStategy delegate, int capacity) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("delegate cannot be null");
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.delegate = delegate;
+    this.memo = new LinkedHashMap<Key, Choice>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Choice> eldest) {
+        return this.size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * The number of choices that were found in the memo.
+   * @return the number of hits
+   */
+  public long hitCount() {
+    synchronized (this.memo) {
+      return this.hits;
+    }
+  }
+
+  /**
+   * The number of choices that had to be worked out by the strategy wrapped.
+   * @return the number of misses
+   */
+  public long missCount() {
+    synchronized (this.memo) {
+      return this.misses;
+    }
+  }
+
+  /**
+   * Forgets every remembered choice, for example before playing by different rules.
+   */
+  public void clear() {
+    synchronized (this.memo) {
+      this.memo.clear();
+    }
+  }
+
+  @Override
+  public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return this.chooseFromOptions(options, new TurnContext(model, player));
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    Key key = new Key(context.model(), context.player(), options);
+    Choice choice;
+    synchronized (this.memo) {
+      choice = this.memo.get(key);
+      if (choice != null) {
+        this.hits += 1;
+        return choice.toList();
+      }
+      this.misses += 1;
+    }
+
+    //worked out outside the lock, so other threads are not held up by it
+    IntMoveList chosen = chooseFromOptions(this.delegate, options, context);
+    choice = new Choice(chosen);
+    synchronized (this.memo) {
+      this.memo.put(key, choice);
+    }
+    return choice.toList();
+  }
+
+  @Override
+  protected IntMoveList mergeBest(IntMoveList finalists, ReadOnlyBoard model, Player player) {
+    return mergeBest(this.delegate, finalists, model, player);
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    return choosesInParallel(this.delegate);
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return soundHandPruning(this.delegate);
+  }
+
+  /**
+   * What a choice is remembered by: the position, the player, the cards in their hand in order,
+   * and the options, with their scores.
+   */
+  private static final class Key {
+    private final long positionHash;
+    private final Player player;
+    private final long[] handIds; //the id of each card in the player's hand, by hand index
+    private final long[] moves;
+    private final int[] scores;
+    private final int hashCode;
+
+    /**
+     * Makes the key of a choice.
+     * @param model the position the choice was made in
+     * @param player the player choosing
+     * @param options the options chosen from, which are copied
+     */
+    private Key(ReadOnlyBoard model, Player player, IntMoveList options) {
+      this.positionHash = model.positionHash();
+      this.player = player;
+      //the position hash does not tell hands in a different order apart, but hand indices do
+      this.handIds = new long[model.getHandSize(player)];
+      for (int idx = 0; idx < this.handIds.length; idx++) {
+        this.handIds[idx] = model.getHandCardId(player, idx);
+      }
+      this.moves = new long[options.size()];
+      this.scores = new int[options.size()];
+      for (int idx = 0; idx < options.size(); idx++) {
+        this.moves[idx] = options.move(idx);
+        this.scores[idx] = options.score(idx);
+      }
+      this.hashCode = 31 * (31 * (31 * Long.hashCode(this.positionHash) + player.hashCode())
+              + Arrays.hashCode(this.handIds)) + 31 * Arrays.hashCode(this.moves)
+              + Arrays.hashCode(this.scores);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o instanceof Key) {
+        Key other = (Key) o;
+        return this.positionHash == other.positionHash
+                && this.player == other.player
+                && Arrays.equals(this.handIds, other.handIds)
+                && Arrays.equals(this.moves, other.moves)
+                && Arrays.equals(this.scores, other.scores);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hashCode;
+    }
+  }
+
+  /**
+   * A remembered choice: the moves chosen, with their scores. It is never changed, and every
+   * lookup is given its own copy.
+   */
+  private static final class Choice {
+    private final long[] moves;
+    private final int[] scores;
+
+    /**
+     * Remembers the given moves.
+     * @param chosen the moves chosen, which are copied
+     */
+    private Choice(IntMoveList chosen) {
+      this.moves = new long[chosen.size()];
+      this.scores = new int[chosen.size()];
+      for (int idx = 0; idx < chosen.size(); idx++) {
+        this.moves[idx] = chosen.move(idx);
+        this.scores[idx] = chosen.score(idx);
+      }
+    }
+
+    /**
+     * Gives a copy of the moves chosen.
+     * @return a new list of the moves chosen, with their scores
+     */
+    private IntMoveList toList() {
+      IntMoveList ret = new IntMoveList(this.moves.length);
+      for (int idx = 0; idx < this.moves.length; idx++) {
+        ret.add(this.moves[idx], this.scores[idx]);
+      }
+      return ret;
+    }
+  }
+}
@@ -3,13 +3,14 @@ package model.stategy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
+import model.BitBoard;
 import model.Board;
 import model.Card;
+import model.MoveRecord;
 import model.Player;
 import model.ReadOnlyBoard;
-import model.Slot;
-import model.ThreeTriosBoard;
 
 /**
  * An infallible strategy that takes in a strategy that it assumes the enemy is using, and
@@ -17,7 +18,12 @@ import model.ThreeTriosBoard;
  */
 public class Minimax extends InfallibleTTStrategy {
 
+  //hands out a different key salt to each Minimax, so ones sharing a table keep apart
+  private static final AtomicLong SALTS = new AtomicLong();
+
   private final InfallibleStategy enemyStrategy;
+  private final TranspositionTable table; //null if replies are not remembered
+  private final long keySalt;
 
   /**
    * Produces a strategy that minimizes the enemy's best move with the given strategy.
@@ -25,36 +31,121 @@ public class Minimax extends InfallibleTTStrategy {
    */
   public Minimax(InfallibleStategy enemyStrategy) {
     this.enemyStrategy = enemyStrategy;
+    this.table = null;
+    this.keySalt = 0;
+  }
+
+  /**
+   * Produces a strategy that minimizes the enemy's best move with the given strategy, and
+   * remembers the score of the enemy's best reply to each position in the given table so that it
+   * is only worked out once. The enemy strategy must always give the same score for the same
+   * position. The table may be shared with other searches, including other Minimax strategies,
+   * since each Minimax keeps its replies under keys of its own.
+   * @param enemyStrategy the strategy that this strategy will minimize
+   * @param table the table to remember replies in, which may be shared with other searches
+   * @throws IllegalArgumentException if table is null
+   */
+  public Minimax(InfallibleStategy enemyStrategy, TranspositionTable table) {
+    if (table == null) {
+      throw new IllegalArgumentException("table cannot be null");
+    }
+    this.enemyStrategy = enemyStrategy;
+    this.table = table;
+    this.keySalt = mix(SALTS.incrementAndGet());
   }
 
   @Override
   public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
-    List<IMove> ret = new ArrayList<>();
-    List<Card> curHand = model.getHand(player);
-    List<Card> nextPlayerHand = model.getHand(Player.nextPlayer(player));
-    int lowestMoveScore = Integer.MAX_VALUE;
-
-    for (IMove move : options) {
-      List<Card> combinedHands = new ArrayList<>();
-      Slot[][] grid = model.getGrid();
-      combinedHands.addAll(curHand);
-      combinedHands.addAll(nextPlayerHand);
-      Board simGame = new ThreeTriosBoard(grid, combinedHands, new Random(), false);
-      simGame.startGame();
-      if (simGame.isMoveLegal(move.xCord(), move.yCord())) {
-        simGame.playToBoard(move.handIdx(), move.xCord(), move.yCord());
-        IMove sampleMove = enemyStrategy.chooseMove(simGame, Player.nextPlayer(player));
-        if (sampleMove.score() == lowestMoveScore) {
-          ret.add(new Move(move.handIdx(), move.xCord(), move.yCord(), lowestMoveScore));
-        }
-        if (sampleMove.score() < lowestMoveScore) {
-          lowestMoveScore = sampleMove.score();
-          ret.clear();
-          ret.add(new Move(move.handIdx(), move.xCord(), move.yCord(), lowestMoveScore));
-        }
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    IntMoveList ret = new IntMoveList(options.size());
+    Board simGame = null;
+
+    for (int idx = 0; idx < options.size(); idx++) {
+      long move = options.move(idx);
+      int handIdx = MoveEncoding.handIdx(move);
+      int xCord = MoveEncoding.xCord(move);
+      int yCord = MoveEncoding.yCord(move);
+      if (simGame == null) {
+        simGame = simulationOf(model, player);
+      }
+      if (simGame.isMoveLegal(xCord, yCord)) {
+        MoveRecord played = simGame.playToBoardUndoable(handIdx, xCord, yCord);
+        ret.add(move, this.bestReplyScore(simGame, Player.nextPlayer(player)));
+        simGame.undo(played);
       }
     }
 
+    ret.keepLowest();
     return ret;
   }
+
+  @Override
+  protected IntMoveList mergeBest(IntMoveList finalists, ReadOnlyBoard model, Player player) {
+    finalists.keepLowest();
+    return finalists;
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    //each run asks the enemy strategy for its replies
+    return choosesInParallel(this.enemyStrategy);
+  }
+
+  /**
+   * Finds the score of the enemy strategy's best move in the given position, looking it up in
+   * the table first if there is one.
+   * @param simGame the position after a candidate move
+   * @param enemy the player the enemy strategy is choosing for
+   * @return the score of the enemy's best move
+   */
+  private int bestReplyScore(Board simGame, Player enemy) {
+    if (this.table == null) {
+      return this.enemyStrategy.chooseMove(simGame, enemy).score();
+    }
+
+    //the simulation always starts with A to move, so the enemy is part of the key as well
+    long key = simGame.positionHash() ^ (enemy.ordinal() + 1) * 0x9E3779B97F4A7C15L
+            ^ this.keySalt;
+    long entry = this.table.probe(key);
+    if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= 1) {
+      return TranspositionTable.score(entry);
+    }
+    int score = this.enemyStrategy.chooseMove(simGame, enemy).score();
+    this.table.store(key, TranspositionTable.NO_MOVE, score, 1, TranspositionTable.Bound.EXACT);
+    return score;
+  }
+
+  /**
+   * Spreads the bits of a counter over a whole long, so salts from consecutive counts share no
+   * pattern with each other or with position hashes.
+   * @param count the count to mix
+   * @return the mixed bits
+   */
+  private static long mix(long count) {
+    long bits = count * 0x9E3779B97F4A7C15L;
+    bits = (bits ^ (bits >>> 30)) * 0xBF58476D1CE4E5B9L;
+    bits = (bits ^ (bits >>> 27)) * 0x94D049BB133111EBL;
+    return bits ^ (bits >>> 31);
+  }
+
+  /**
+   * Builds the board that candidate moves are tried out on. Every candidate is played and then
+   * undone on this one board, rather than copying the model for each of them.
+   * @param model the model being decided on
+   * @param player the player whose turn it is
+   * @return a started board with the model's grid and both players' cards
+   */
+  private Board simulationOf(ReadOnlyBoard model, Player player) {
+    List<Card> combinedHands = new ArrayList<>();
+    combinedHands.addAll(model.getHand(player));
+    combinedHands.addAll(model.getHand(Player.nextPlayer(player)));
+    Board simGame = new BitBoard(model.getGrid(), combinedHands, new Random(), false);
+    simGame.startGame();
+    return simGame;
+  }
 }
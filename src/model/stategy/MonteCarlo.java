@@ -0,0 +1,579 @@
+package model.stategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import model.BitBoard;
+import model.Card;
+import model.MoveRecord;
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An infallible strategy that grows a tree of moves by playing games out to the end from the
+ * model, Monte Carlo tree search. Each playout walks down the tree choosing moves by UCT, which
+ * balances moves that have won often against moves that have been tried little, adds one new
+ * move to the tree, and then plays the rest of the game out with quick playouts. A move's score
+ * is the number of playouts that went through it, so the best moves are the ones tried the most.
+ * The number of playouts, or the time for each move, is set when the strategy is built.
+ * Searching can be spread over several threads, each of which grows its own tree on its own
+ * BitBoard copy of the model, and the playouts through each move are added up over the trees.
+ * Trees can be kept between moves, so that the part of a tree below the moves that have been
+ * played since is used again.
+ * A strategy should only be choosing one move at a time.
+ */
+public class MonteCarlo extends InfallibleTTStrategy {
+
+  /**
+   * How games are played out past the end of the tree.
+   */
+  public enum Playout {
+    RANDOM, //each player plays a random card to a random open cell
+    GREEDY //each player plays the card that flips the most to a random open cell
+  }
+
+  private static final double EXPLORATION = Math.sqrt(2);
+
+  private final int playouts;
+  private final long millisPerMove;
+  private final Playout playout;
+  private final boolean reuseTree;
+  private final ForkJoinPool pool; //null if there is only one tree
+  private final Worker[] workers;
+  private volatile long lastPlayouts;
+  private volatile long lastTreePlayouts;
+
+  /**
+   * Produces a strategy from the given builder.
+   * @param builder the settings of the strategy
+   */
+  private MonteCarlo(MonteCarloBuilder builder) {
+    this.playouts = builder.playouts;
+    this.millisPerMove = builder.millisPerMove;
+    this.playout = builder.playout;
+    this.reuseTree = builder.reuseTree;
+    this.pool = builder.threads == 1 ? null
+            : builder.pool == null ? ForkJoinPool.commonPool() : builder.pool;
+    this.workers = new Worker[builder.threads];
+    for (int idx = 0; idx < this.workers.length; idx++) {
+      this.workers[idx] = new Worker(new Random(builder.seed + idx));
+    }
+  }
+
+  /**
+   * Builds a MonteCarlo strategy. Unless told otherwise, it runs 1000 playouts per move on one
+   * thread with random playouts, and does not keep its tree between moves.
+   */
+  public static class MonteCarloBuilder {
+    private int playouts;
+    private long millisPerMove;
+    private Playout playout = Playout.RANDOM;
+    private boolean reuseTree;
+    private int threads = 1;
+    private ForkJoinPool pool;
+    private long seed = new Random().nextLong();
+
+    /**
+     * Sets how many playouts to run for each move, over every thread.
+     * @param playouts the number of playouts, or 0 for no limit
+     * @return this builder
+     * @throws IllegalArgumentException if playouts is negative
+     */
+    public MonteCarloBuilder addPlayouts(int playouts) {
+      if (playouts < 0) {
+        throw new IllegalArgumentException("playouts cannot be negative");
+      }
+      this.playouts = playouts;
+      return this;
+    }
+
+    /**
+     * Sets how long each move may search for.
+     * @param millisPerMove the time for each move in milliseconds, or 0 for no limit
+     * @return this builder
+     * @throws IllegalArgumentException if millisPerMove is negative
+     */
+    public MonteCarloBuilder addTimeBudget(long millisPerMove) {
+      if (millisPerMove < 0) {
+        throw new IllegalArgumentException("millisPerMove cannot be negative");
+      }
+      this.millisPerMove = millisPerMove;
+      return this;
+    }
+
+    /**
+     * Sets how games are played out past the end of the tree.
+     * @param playout the kind of playout
+     * @return this builder
+     * @throws IllegalArgumentException if playout is null
+     */
+    public MonteCarloBuilder addPlayout(Playout playout) {
+      if (playout == null) {
+        throw new IllegalArgumentException("playout cannot be null");
+      }
+      this.playout = playout;
+      return this;
+    }
+
+    /**
+     * Sets whether to keep the trees between moves.
+     * @param reuseTree whether to keep the trees
+     * @return this builder
+     */
+    public MonteCarloBuilder addTreeReuse(boolean reuseTree) {
+      this.reuseTree = reuseTree;
+      return this;
+    }
+
+    /**
+     * Sets how many trees to grow at once, each on its own thread of the pool.
+     * @param threads the number of trees
+     * @return this builder
+     * @throws IllegalArgumentException if threads is not positive
+     */
+    public MonteCarloBuilder addThreads(int threads) {
+      if (threads <= 0) {
+        throw new IllegalArgumentException("threads must be positive");
+      }
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Sets the pool the trees are grown on when there is more than one. Without one, they are
+     * grown on the common pool.
+     * @param pool the pool to search on
+     * @return this builder
+     * @throws IllegalArgumentException if pool is null
+     */
+    public MonteCarloBuilder addPool(ForkJoinPool pool) {
+      if (pool == null) {
+        throw new IllegalArgumentException("pool cannot be null");
+      }
+      this.pool = pool;
+      return this;
+    }
+
+    /**
+     * Sets the seed of the random choices of the playouts. With a seed and a number of playouts
+     * but no time budget, the strategy always chooses the same moves in the same games.
+     * @param seed the seed
+     * @return this builder
+     */
+    public MonteCarloBuilder addSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Returns the strategy with all of the settings given.
+     * @return the strategy
+     */
+    public MonteCarlo build() {
+      if (this.playouts == 0 && this.millisPerMove == 0) {
+        this.playouts = 1000;
+      }
+      return new MonteCarlo(this);
+    }
+  }
+
+  /**
+   * The number of playouts the last choice of moves ran, over every tree.
+   * @return the number of playouts
+   */
+  public long lastPlayoutCount() {
+    return this.lastPlayouts;
+  }
+
+  /**
+   * The number of playouts that went through the position the last choice of moves was made in,
+   * over every tree, counting playouts from earlier moves in trees that were kept.
+   * @return the number of playouts in the trees
+   */
+  public long lastTreePlayoutCount() {
+    return this.lastTreePlayouts;
+  }
+
+  @Override
+  public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    IntMoveList ret = new IntMoveList(options.size());
+    for (int idx = 0; idx < options.size(); idx++) {
+      long move = options.move(idx);
+      if (model.isMoveLegal(MoveEncoding.xCord(move), MoveEncoding.yCord(move))
+              && MoveEncoding.handIdx(move) < model.getHandSize(player)) {
+        ret.add(move, 0);
+      }
+    }
+    if (ret.size() <= 1) {
+      return ret;
+    }
+
+    long deadline = this.millisPerMove == 0 ? Long.MAX_VALUE
+            : System.nanoTime() + this.millisPerMove * 1_000_000L;
+    long[] moves = new long[ret.size()];
+    for (int idx = 0; idx < moves.length; idx++) {
+      moves[idx] = ret.move(idx);
+    }
+    //the workers copy this copy, which unlike some models only ever reads its state to be copied
+    BitBoard master = BitBoard.copyOf(model, player);
+    if (this.pool == null) {
+      this.workers[0].search(moves, master, player, this.playouts, deadline);
+    } else {
+      List<Callable<Void>> searches = new ArrayList<>();
+      for (int idx = 0; idx < this.workers.length; idx++) {
+        Worker worker = this.workers[idx];
+        //the playouts are shared out as evenly as they can be, with 0 still meaning no limit
+        int quota = this.playouts / this.workers.length
+                + (idx < this.playouts % this.workers.length ? 1 : 0);
+        int limit = this.playouts == 0 ? 0 : Math.max(quota, 1);
+        searches.add(() -> {
+          worker.search(moves, master, player, limit, deadline);
+          return null;
+        });
+      }
+      this.pool.invokeAll(searches);
+    }
+
+    long total = 0;
+    long inTrees = 0;
+    for (Worker worker : this.workers) {
+      total += worker.playouts;
+      inTrees += worker.root.visits;
+      Map<Long, Node> children = worker.root.childrenByMove();
+      for (int idx = 0; idx < ret.size(); idx++) {
+        Node child = children.get(ret.move(idx));
+        if (child != null) {
+          ret.setScore(idx, ret.score(idx) + child.visits);
+        }
+      }
+    }
+    this.lastPlayouts = total;
+    this.lastTreePlayouts = inTrees;
+    ret.keepHighest();
+    return ret;
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    //the workers' trees are shared by every choice, and a move's score depends on the others
+    return false;
+  }
+
+  /**
+   * A move in a tree, along with the results of the playouts that went through it.
+   */
+  private static final class Node {
+    private final long move; //the packed move into this node, unused at a fresh root
+    private final Player mover; //the player who made the move into this node
+    private final long hash; //the hash of the position after the move
+    private Node parent;
+    private long[] moves; //the moves from this node, null until it is first walked through
+    private Node[] children; //the nodes of the first expanded moves
+    private int expanded;
+    private int visits;
+    private double wins; //for the mover, with a draw counting as half a win
+
+    /**
+     * Creates a node for a move that has not been walked through yet.
+     * @param move the packed move into this node
+     * @param mover the player who made the move
+     * @param hash the hash of the position after the move
+     * @param parent the node the move was made from, or null for a root
+     */
+    private Node(long move, Player mover, long hash, Node parent) {
+      this.move = move;
+      this.mover = mover;
+      this.hash = hash;
+      this.parent = parent;
+    }
+
+    /**
+     * Sets the moves that can be made from this node, which every child is one of.
+     * @param moves the packed moves
+     */
+    private void setMoves(long[] moves) {
+      this.moves = moves;
+      this.children = new Node[moves.length];
+    }
+
+    /**
+     * Chooses the child to walk through by UCT, the child with the most wins per visit plus a
+     * bonus that grows the less it has been visited compared to this node.
+     * @return the child with the highest bound
+     */
+    private Node bestChild() {
+      double logVisits = Math.log(this.visits);
+      Node best = null;
+      double bestBound = Double.NEGATIVE_INFINITY;
+      for (int idx = 0; idx < this.expanded; idx++) {
+        Node child = this.children[idx];
+        double bound = child.wins / child.visits
+                + EXPLORATION * Math.sqrt(logVisits / child.visits);
+        if (bound > bestBound) {
+          best = child;
+          bestBound = bound;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Maps every expanded move from this node to its child.
+     * @return the children by their packed moves
+     */
+    private Map<Long, Node> childrenByMove() {
+      Map<Long, Node> ret = new HashMap<>();
+      for (int idx = 0; idx < this.expanded; idx++) {
+        ret.put(this.children[idx].move, this.children[idx]);
+      }
+      return ret;
+    }
+  }
+
+  /**
+   * Grows one tree on its own copy of the model, with its own random choices.
+   */
+  private final class Worker {
+    private final Random random;
+    private final List<MoveRecord> played; //the moves of the current playout, to undo them
+    private BitBoard board; //in the position of root between searches
+    private Node root;
+    private long playouts;
+
+    /**
+     * Creates a worker with no tree yet.
+     * @param random the source of the worker's random choices
+     */
+    private Worker(Random random) {
+      this.random = random;
+      this.played = new ArrayList<>();
+    }
+
+    /**
+     * Runs playouts from the model's position until the limit or the deadline is reached.
+     * @param moves the moves to choose from, which must be legal
+     * @param model a copy of the model being decided on, which is only read
+     * @param player the player whose turn it is
+     * @param limit how many playouts to run, or 0 for no limit
+     * @param deadline the System.nanoTime to stop at
+     */
+    private void search(long[] moves, ReadOnlyBoard model, Player player, int limit,
+                        long deadline) {
+      BitBoard current = BitBoard.copyOf(model, player);
+      Node reused = MonteCarlo.this.reuseTree ? this.findReusable(current, moves) : null;
+      if (reused == null) {
+        reused = new Node(MoveEncoding.pack(0, 0, 0), Player.nextPlayer(player),
+                current.positionHash(), null);
+        reused.setMoves(moves);
+      } else if (reused.moves == null) {
+        reused.setMoves(moves);
+      }
+      reused.parent = null;
+      this.root = reused;
+      this.board = current;
+
+      this.playouts = 0;
+      while ((limit == 0 || this.playouts < limit) && System.nanoTime() < deadline) {
+        this.playOnce();
+        this.playouts += 1;
+      }
+    }
+
+    /**
+     * Finds the node of the last tree, up to two moves down, that is in the given position with
+     * the given moves to choose from, checking that the hands are in the same order as well.
+     * @param current a copy of the model
+     * @param moves the moves to choose from
+     * @return the node, or null if there is none
+     */
+    private Node findReusable(BitBoard current, long[] moves) {
+      if (this.root == null) {
+        return null;
+      }
+      long hash = current.positionHash();
+      List<Node> candidates = new ArrayList<>();
+      candidates.add(this.root);
+      for (int idx = 0; idx < this.root.expanded; idx++) {
+        Node child = this.root.children[idx];
+        candidates.add(child);
+        for (int grandIdx = 0; grandIdx < child.expanded; grandIdx++) {
+          candidates.add(child.children[grandIdx]);
+        }
+      }
+
+      for (Node node : candidates) {
+        if (node.hash != hash || (node.moves != null && !Arrays.equals(node.moves, moves))) {
+          continue;
+        }
+        //replay the moves to the node on the old copy, to check the hands are in the same order
+        List<Node> path = new ArrayList<>();
+        for (Node step = node; step != this.root; step = step.parent) {
+          path.add(0, step);
+        }
+        for (Node step : path) {
+          this.playPacked(step.move);
+        }
+        boolean same = sameHands(this.board, current);
+        this.undoPlayed();
+        if (same) {
+          return node;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Walks down the tree to a new node, plays the game out from it, and records the result in
+     * every node walked through.
+     */
+    private void playOnce() {
+      Node node = this.root;
+      while (!this.board.isGameOver()) {
+        if (node.moves == null) {
+          node.setMoves(legalMoves(this.board));
+        }
+        if (node.expanded < node.moves.length) {
+          long move = node.moves[node.expanded];
+          Player mover = this.board.curPlayer();
+          this.playPacked(move);
+          Node child = new Node(move, mover, this.board.positionHash(), node);
+          node.children[node.expanded] = child;
+          node.expanded += 1;
+          node = child;
+          break;
+        }
+        node = node.bestChild();
+        this.playPacked(node.move);
+      }
+
+      this.playOut();
+      Player winner = this.board.gameWinner();
+      this.undoPlayed();
+
+      for (Node step = node; step != null; step = step.parent) {
+        step.visits += 1;
+        if (winner == step.mover) {
+          step.wins += 1;
+        } else if (winner == Player.NONE) {
+          step.wins += 0.5;
+        }
+      }
+    }
+
+    /**
+     * Plays the game on the board to the end, placing cards in random open cells.
+     */
+    private void playOut() {
+      int width = this.board.gameWidth();
+      int[] open = openCells(this.board);
+      int numOpen = open.length;
+      while (numOpen > 0) {
+        int pick = this.random.nextInt(numOpen);
+        int cell = open[pick];
+        open[pick] = open[--numOpen];
+        int xCord = cell % width;
+        int yCord = cell / width;
+        int handIdx = MonteCarlo.this.playout == Playout.GREEDY
+                ? this.greediestCard(xCord, yCord)
+                : this.random.nextInt(this.board.getHandSize(this.board.curPlayer()));
+        this.played.add(this.board.playToBoardUndoable(handIdx, xCord, yCord));
+      }
+    }
+
+    /**
+     * Finds the card in the current player's hand that flips the most when played to a cell.
+     * @param xCord the column of the cell
+     * @param yCord the row of the cell
+     * @return the hand index of the first card that flips the most
+     */
+    private int greediestCard(int xCord, int yCord) {
+      List<Card> hand = this.board.getHand(this.board.curPlayer());
+      int best = 0;
+      int bestFlips = -1;
+      for (int idx = 0; idx < hand.size(); idx++) {
+        int flips = this.board.possibleCardsFlipped(hand.get(idx), xCord, yCord);
+        if (flips > bestFlips) {
+          best = idx;
+          bestFlips = flips;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Plays a packed move on the board, remembering it to be undone.
+     * @param move the packed move
+     */
+    private void playPacked(long move) {
+      this.played.add(this.board.playToBoardUndoable(MoveEncoding.handIdx(move),
+              MoveEncoding.xCord(move), MoveEncoding.yCord(move)));
+    }
+
+    /**
+     * Undoes every remembered move, last first.
+     */
+    private void undoPlayed() {
+      for (int idx = this.played.size() - 1; idx >= 0; idx--) {
+        this.board.undo(this.played.get(idx));
+      }
+      this.played.clear();
+    }
+  }
+
+  /**
+   * Lists every legal move on a board, furthest up, then furthest left, then lowest hand index
+   * first.
+   * @param board the board
+   * @return the packed moves
+   */
+  private static long[] legalMoves(ReadOnlyBoard board) {
+    int handSize = board.getHandSize(board.curPlayer());
+    IntMoveList moves = new IntMoveList();
+    for (int row = 0; row < board.gameHeight(); row++) {
+      for (int col = 0; col < board.gameWidth(); col++) {
+        if (board.isMoveLegal(col, row)) {
+          for (int handIdx = 0; handIdx < handSize; handIdx++) {
+            moves.add(MoveEncoding.pack(handIdx, col, row), 0);
+          }
+        }
+      }
+    }
+    long[] ret = new long[moves.size()];
+    for (int idx = 0; idx < ret.length; idx++) {
+      ret[idx] = moves.move(idx);
+    }
+    return ret;
+  }
+
+  /**
+   * Determines if two boards have the same cards in each hand, in the same order.
+   * @param first one board
+   * @param second the other board
+   * @return whether the hands match
+   */
+  private static boolean sameHands(ReadOnlyBoard first, ReadOnlyBoard second) {
+    for (Player player : List.of(Player.A, Player.B)) {
+      if (first.getHandSize(player) != second.getHandSize(player)) {
+        return false;
+      }
+      for (int idx = 0; idx < first.getHandSize(player); idx++) {
+        if (first.getHandCardId(player, idx) != second.getHandCardId(player, idx)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -1,9 +1,7 @@
 package model.stategy;
 
-import java.util.ArrayList;
 import java.util.List;
 
-import model.Card;
 import model.Player;
 import model.ReadOnlyBoard;
 
@@ -13,24 +11,39 @@ import model.ReadOnlyBoard;
 public class MostFlipped extends InfallibleTTStrategy {
   @Override
   public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
-    List<IMove> ret = new ArrayList<>();
-    List<Card> hand = model.getHand(player);
-
-    int flippedCards = 0;
-    for (IMove move : options) {
-      if (model.isMoveLegal(move.xCord(), move.yCord())) {
-        int flipped = model.possibleCardsFlipped(hand.get(move.handIdx()),
-                move.xCord(), move.yCord());
-        if (flipped == flippedCards) {
-          ret.add(new Move(move.handIdx(), move.xCord(), move.yCord(), flipped));
-        }
-        if (flipped > flippedCards) {
-          flippedCards = flipped;
-          ret = new ArrayList<>();
-          ret.add(new Move(move.handIdx(), move.xCord(), move.yCord(), flipped));
-        }
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return this.chooseFromOptions(options, new TurnContext(model, player));
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    IntMoveList ret = new IntMoveList(options.size());
+
+    for (int idx = 0; idx < options.size(); idx++) {
+      long move = options.move(idx);
+      int xCord = MoveEncoding.xCord(move);
+      int yCord = MoveEncoding.yCord(move);
+      if (context.isLegal(xCord, yCord)) {
+        ret.add(move, context.flips(MoveEncoding.handIdx(move), xCord, yCord));
       }
     }
+    ret.keepHighest();
     return ret;
   }
+
+  @Override
+  protected IntMoveList mergeBest(IntMoveList finalists, ReadOnlyBoard model, Player player) {
+    finalists.keepHighest();
+    return finalists;
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return HandPruning.DOMINATED;
+  }
 }
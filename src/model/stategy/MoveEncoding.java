@@ -0,0 +1,133 @@
+package model.stategy;
+
+/**
+ * Packs the hand index, x coordinate and y coordinate of a move into a single long, so that moves
+ * can be generated and filtered in primitive arrays instead of as Move objects. Packed moves are
+ * never negative, and ordering them as longs orders them the way strategies break ties: furthest
+ * up, then furthest left, then lowest hand index.
+ * Each part takes 21 bits, the y coordinate highest and the hand index lowest, so boards up to
+ * 2097152 cells wide and high and hands of up to 2097152 cards can be packed.
+ * Tables with only an int to spare for a move can narrow it to an older, smaller layout, with
+ * the y coordinate in the highest 10 bits of an int, the x coordinate in the next 10 and the hand
+ * index in the lowest 11, as long as the move is small enough to fit.
+ */
+public final class MoveEncoding {
+
+  /**
+   * The largest coordinate that can be packed.
+   */
+  public static final int MAX_COORDINATE = (1 << 21) - 1;
+
+  /**
+   * The largest hand index that can be packed.
+   */
+  public static final int MAX_HAND_INDEX = (1 << 21) - 1;
+
+  private static final int X_SHIFT = 21;
+  private static final int Y_SHIFT = 42;
+
+  //the layout of a narrowed move
+  private static final int NARROW_MAX_COORDINATE = (1 << 10) - 1;
+  private static final int NARROW_MAX_HAND_INDEX = (1 << 11) - 1;
+  private static final int NARROW_X_SHIFT = 11;
+  private static final int NARROW_Y_SHIFT = 21;
+
+  private MoveEncoding() {
+    //only static methods
+  }
+
+  /**
+   * Packs a move into a long.
+   * @param handIdx the index of the card in the player's hand (0-indexed)
+   * @param xCord the x coordinate (0-indexed, from the left)
+   * @param yCord the y coordinate (0-indexed, from the top)
+   * @return the packed move
+   * @throws IllegalArgumentException if any part is negative or too large to pack
+   */
+  public static long pack(int handIdx, int xCord, int yCord) {
+    if (handIdx < 0 || handIdx > MAX_HAND_INDEX) {
+      throw new IllegalArgumentException("hand index cannot be packed");
+    }
+    if (xCord < 0 || xCord > MAX_COORDINATE || yCord < 0 || yCord > MAX_COORDINATE) {
+      throw new IllegalArgumentException("coordinates cannot be packed");
+    }
+    return ((long) yCord << Y_SHIFT) | ((long) xCord << X_SHIFT) | handIdx;
+  }
+
+  /**
+   * Packs the hand index and coordinates of a move into a long.
+   * @param move the move to pack, whose score is left out
+   * @return the packed move
+   * @throws IllegalArgumentException if move is null or any part is too large to pack
+   */
+  public static long pack(IMove move) {
+    if (move == null) {
+      throw new IllegalArgumentException("move cannot be null");
+    }
+    return pack(move.handIdx(), move.xCord(), move.yCord());
+  }
+
+  /**
+   * The hand index of a packed move.
+   * @param move the packed move
+   * @return the index of the card in the player's hand
+   */
+  public static int handIdx(long move) {
+    return (int) move & MAX_HAND_INDEX;
+  }
+
+  /**
+   * The x coordinate of a packed move.
+   * @param move the packed move
+   * @return the x coordinate, 0-indexed, starting from the left
+   */
+  public static int xCord(long move) {
+    return (int) (move >>> X_SHIFT) & MAX_COORDINATE;
+  }
+
+  /**
+   * The y coordinate of a packed move.
+   * @param move the packed move
+   * @return the y coordinate, 0-indexed, starting from the top
+   */
+  public static int yCord(long move) {
+    return (int) (move >>> Y_SHIFT);
+  }
+
+  /**
+   * Unpacks a move into a Move with the given score.
+   * @param move the packed move
+   * @param score the score to give the move
+   * @return the unpacked move
+   */
+  public static IMove toMove(long move, int score) {
+    return new Move(handIdx(move), xCord(move), yCord(move), score);
+  }
+
+  /**
+   * Narrows a packed move into an int, if its parts are small enough to fit.
+   * @param move the packed move
+   * @param none what to return if the move does not fit
+   * @return the narrowed move, which is never negative, or none
+   */
+  public static int narrow(long move, int none) {
+    int handIdx = handIdx(move);
+    int xCord = xCord(move);
+    int yCord = yCord(move);
+    if (handIdx > NARROW_MAX_HAND_INDEX || xCord > NARROW_MAX_COORDINATE
+            || yCord > NARROW_MAX_COORDINATE) {
+      return none;
+    }
+    return (yCord << NARROW_Y_SHIFT) | (xCord << NARROW_X_SHIFT) | handIdx;
+  }
+
+  /**
+   * Widens a move narrowed by narrow back into a packed move.
+   * @param narrowed the narrowed move, which must not be negative
+   * @return the packed move
+   */
+  public static long widen(int narrowed) {
+    return pack(narrowed & NARROW_MAX_HAND_INDEX,
+            (narrowed >>> NARROW_X_SHIFT) & NARROW_MAX_COORDINATE, narrowed >>> NARROW_Y_SHIFT);
+  }
+}
@@ -0,0 +1,236 @@
+package model.stategy;
+
+import java.util.Arrays;
+
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * Ranks moves before a search tries them, so that the moves most likely to be best are searched
+ * first and more of the rest are cut off. The move a caller already knows to be good is tried
+ * first, then the killer moves, which caused a cutoff at the same distance from the root, then
+ * the moves that flip the most cards. Between those, moves to a cell with fewer open neighbours
+ * come first, since a card there has fewer sides it can be flipped from, which is what makes
+ * corners and edges good. The last tie breaker is the history table, which counts how often
+ * each move has caused a cutoff anywhere in the search.
+ * Ordering only changes how quickly a search finishes, never what it chooses, and moves the
+ * ordering cannot tell apart stay in the order strategies break ties: furthest up, then furthest
+ * left, then lowest hand index. An ordering can also leave out the moves of cards a
+ * HandPruning says are unnecessary. An ordering is meant for one search at a time, and can be
+ * kept between searches of the same game to reuse what it learnt.
+ */
+final class MoveOrdering {
+
+  private static final int KILLERS_PER_PLY = 2;
+  //the history table is indexed by a hash of the move, so it stays small on any board
+  private static final int HISTORY_BITS = 12;
+  //the largest history count, so that a count never outweighs one more side being safe
+  private static final int MAX_HISTORY = (1 << 16) - 1;
+  private static final int FIRST_KEY = Integer.MAX_VALUE;
+  private static final int NUM_SIDES = 4;
+
+  private final HandPruning pruning;
+  private long[][] killers; //the killer moves of each ply, most recent first, or NO_MOVE
+  private final int[][] history; //the cutoff count of each hashed move, for each player
+
+  /**
+   * Produces an ordering that has not learnt anything yet, and lists every card.
+   */
+  MoveOrdering() {
+    this(HandPruning.NONE);
+  }
+
+  /**
+   * Produces an ordering that has not learnt anything yet, and leaves out the moves of the cards
+   * the given pruning does.
+   * @param pruning which cards to leave out
+   */
+  MoveOrdering(HandPruning pruning) {
+    this.pruning = pruning;
+    this.killers = new long[0][];
+    this.history = new int[Player.values().length][1 << HISTORY_BITS];
+  }
+
+  /**
+   * Makes room for killer moves up to the given distance from the root, and halves every
+   * history count, so that a new search leans on what was learnt most recently.
+   * @param maxPly the furthest distance from the root the next search reaches
+   */
+  void newSearch(int maxPly) {
+    if (this.killers.length <= maxPly) {
+      int oldLength = this.killers.length;
+      this.killers = Arrays.copyOf(this.killers, maxPly + 1);
+      for (int ply = oldLength; ply <= maxPly; ply++) {
+        this.killers[ply] = new long[KILLERS_PER_PLY];
+        Arrays.fill(this.killers[ply], TranspositionTable.NO_MOVE);
+      }
+    }
+    for (int[] counts : this.history) {
+      for (int idx = 0; idx < counts.length; idx++) {
+        counts[idx] >>= 1;
+      }
+    }
+  }
+
+  /**
+   * Lists every legal move of the player to move that is not pruned, in the order a search
+   * should try them.
+   * @param model the position
+   * @param toMove the player whose turn it is
+   * @param ply how many moves the position is from the root of the search
+   * @param firstMove a packed move to try before every other, or NO_MOVE
+   * @return the packed moves, in the order to try them
+   */
+  long[] order(ReadOnlyBoard model, Player toMove, int ply, long firstMove) {
+    int[][] flips = model.possibleCardsFlippedForHand(toMove);
+    if (flips.length == 0) {
+      return new long[0];
+    }
+    int width = model.gameWidth();
+    boolean[] pruned = this.pruning.prunedCards(model, toMove);
+    long[] moves = new long[flips.length * flips[0].length];
+    long[] ranked = new long[moves.length];
+    int numMoves = 0;
+    for (int cell = 0; cell < flips[0].length; cell++) {
+      if (flips[0][cell] < 0) {
+        continue;
+      }
+      for (int handIdx = 0; handIdx < flips.length; handIdx++) {
+        if (pruned[handIdx]) {
+          continue;
+        }
+        long move = MoveEncoding.pack(handIdx, cell % width, cell / width);
+        ranked[numMoves] = rank(this.key(move, flips, width, toMove, ply, firstMove), numMoves);
+        moves[numMoves] = move;
+        numMoves += 1;
+      }
+    }
+    Arrays.sort(ranked, 0, numMoves);
+    long[] ret = new long[numMoves];
+    for (int idx = 0; idx < numMoves; idx++) {
+      ret[idx] = moves[(int) ranked[idx]];
+    }
+    return ret;
+  }
+
+  /**
+   * Lists the indices of the given moves in the order a search should try them. Moves that
+   * cannot be played come last, and moves of pruned cards are left out.
+   * @param options the packed moves to order, which are not changed
+   * @param model the position
+   * @param toMove the player whose turn it is
+   * @return the indices into options, in the order to try them
+   */
+  int[] order(IntMoveList options, ReadOnlyBoard model, Player toMove) {
+    int[][] flips = model.possibleCardsFlippedForHand(toMove);
+    int width = model.gameWidth();
+    boolean[] pruned = this.pruning.prunedCards(model, toMove);
+    int[] indices = new int[options.size()];
+    long[] ranked = new long[indices.length];
+    int numIndices = 0;
+    for (int idx = 0; idx < options.size(); idx++) {
+      long move = options.move(idx);
+      int handIdx = MoveEncoding.handIdx(move);
+      if (handIdx < pruned.length && pruned[handIdx]) {
+        continue;
+      }
+      long cell = (long) MoveEncoding.yCord(move) * width + MoveEncoding.xCord(move);
+      boolean legal = handIdx < flips.length && MoveEncoding.xCord(move) < width
+              && cell < flips[handIdx].length && flips[handIdx][(int) cell] >= 0;
+      ranked[numIndices] = rank(legal ? this.key(move, flips, width, toMove, 0,
+              TranspositionTable.NO_MOVE) : -1, numIndices);
+      indices[numIndices] = idx;
+      numIndices += 1;
+    }
+    Arrays.sort(ranked, 0, numIndices);
+    int[] ret = new int[numIndices];
+    for (int idx = 0; idx < numIndices; idx++) {
+      ret[idx] = indices[(int) ranked[idx]];
+    }
+    return ret;
+  }
+
+  /**
+   * Learns from a move that was good enough to cut off the rest of its position, or that became
+   * the best move of the root.
+   * @param move the packed move
+   * @param toMove the player who made it
+   * @param ply how many moves its position is from the root of the search
+   * @param depth how many more moves were searched below its position
+   */
+  void cutoff(long move, Player toMove, int ply, int depth) {
+    if (ply < this.killers.length) {
+      long[] plyKillers = this.killers[ply];
+      if (plyKillers[0] != move) {
+        System.arraycopy(plyKillers, 0, plyKillers, 1, KILLERS_PER_PLY - 1);
+        plyKillers[0] = move;
+      }
+    }
+    int[] counts = this.history[toMove.ordinal()];
+    int slot = historySlot(move);
+    counts[slot] = Math.min(MAX_HISTORY, counts[slot] + depth * depth);
+  }
+
+  /**
+   * Ranks a legal move, higher first.
+   * @param move the packed move
+   * @param flips the cards each card in hand would flip at each cell
+   * @param width the width of the board
+   * @param toMove the player whose turn it is
+   * @param ply how many moves the position is from the root of the search
+   * @param firstMove a packed move to rank above every other, or NO_MOVE
+   * @return the key of the move, which is never negative
+   */
+  private int key(long move, int[][] flips, int width, Player toMove, int ply,
+                  long firstMove) {
+    if (move == firstMove) {
+      return FIRST_KEY;
+    }
+    if (ply < this.killers.length) {
+      for (int slot = 0; slot < KILLERS_PER_PLY; slot++) {
+        if (this.killers[ply][slot] == move) {
+          return FIRST_KEY - 1 - slot;
+        }
+      }
+    }
+    int xCord = MoveEncoding.xCord(move);
+    int yCord = MoveEncoding.yCord(move);
+    int[] open = flips[0];
+    int safeSides = NUM_SIDES;
+    if (xCord > 0 && open[yCord * width + xCord - 1] >= 0) {
+      safeSides -= 1;
+    }
+    if (xCord < width - 1 && open[yCord * width + xCord + 1] >= 0) {
+      safeSides -= 1;
+    }
+    if (yCord > 0 && open[(yCord - 1) * width + xCord] >= 0) {
+      safeSides -= 1;
+    }
+    if ((yCord + 1) * width < open.length && open[(yCord + 1) * width + xCord] >= 0) {
+      safeSides -= 1;
+    }
+    int flipped = flips[MoveEncoding.handIdx(move)][yCord * width + xCord];
+    int strength = Math.min(flipped * (NUM_SIDES + 1) + safeSides, (FIRST_KEY >> 16) - 2);
+    return (strength << 16) | this.history[toMove.ordinal()][historySlot(move)];
+  }
+
+  /**
+   * Combines a key and the position a move was listed at, so that sorting the results in
+   * increasing order puts the highest keys first, and equal keys in the order they were listed.
+   * @param key the key of the move, or -1 to put it after every move with a key
+   * @param listed the position the move was listed at
+   * @return the rank
+   */
+  private static long rank(int key, int listed) {
+    return ((long) ~key << 32) | listed;
+  }
+
+  /**
+   * Finds where a move is counted in the history table.
+   * @param move the packed move
+   * @return the index into a player's history counts
+   */
+  private static int historySlot(long move) {
+    return (int) ((move * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - HISTORY_BITS));
+  }
+}
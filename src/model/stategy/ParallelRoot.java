@@ -0,0 +1,166 @@
+package model.stategy;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.BitBoard;
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An infallible strategy that chooses moves with another strategy, but splits the moves it is
+ * choosing from into runs that are chosen from in parallel on a ForkJoinPool, each on its own
+ * BitBoard copy of the model. The best moves of every run are put back together in their
+ * original order and merged by the other strategy, either by comparing their scores or by
+ * choosing from just those moves again, so ties are still broken furthest up, then furthest
+ * left, then lowest hand index.
+ * This chooses exactly the moves the other strategy would, as long as that strategy scores each
+ * move without regard to which other moves it is choosing from, and can be used from several
+ * threads at once. The strategies here say whether they can: MonteCarlo, whose playouts are
+ * shared out between the moves in its trees, and IterativeDeepening, whose time is, cannot, so
+ * they and any strategy built on one choose from every move at once on the calling thread.
+ */
+public class ParallelRoot extends InfallibleTTStrategy {
+
+  //how many runs to split the moves into for each thread of the pool, to even out their work
+  private static final int RUNS_PER_THREAD = 4;
+
+  private final InfallibleStategy strategy;
+  private final ForkJoinPool pool;
+
+  /**
+   * Produces a strategy that chooses moves with the given strategy on the given pool.
+   * @param strategy the strategy to choose moves with
+   * @param pool the pool to choose on
+   * @throws IllegalArgumentException if strategy or pool is null
+   */
+  public ParallelRoot(InfallibleStategy strategy, ForkJoinPool pool) {
+    if (strategy == null) {
+      throw new IllegalArgumentException("strategy cannot be null");
+    }
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+    this.strategy = strategy;
+    this.pool = pool;
+  }
+
+  /**
+   * Produces a strategy that chooses moves with the given strategy on the common pool.
+   * @param strategy the strategy to choose moves with
+   * @throws IllegalArgumentException if strategy is null
+   */
+  public ParallelRoot(InfallibleStategy strategy) {
+    this(strategy, ForkJoinPool.commonPool());
+  }
+
+  @Override
+  public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    int runLength = this.runLength(options);
+    if (options.size() <= runLength || !choosesInParallel(this.strategy)) {
+      return chooseFromOptions(this.strategy, options, model, player);
+    }
+
+    //the runs copy this copy, which unlike some models only ever reads its state to be copied
+    ReadOnlyBoard master = BitBoard.copyOf(model, player);
+    IntMoveList finalists = this.pool.invoke(
+        new ChooseRun(options, 0, options.size(), runLength, master, player));
+    return mergeBest(this.strategy, finalists, model, player);
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    //the context reads the model, so it can only be shared when nothing is run in parallel
+    if (options.size() <= this.runLength(options) || !choosesInParallel(this.strategy)) {
+      return chooseFromOptions(this.strategy, options, context);
+    }
+    return this.chooseFromOptions(options, context.model(), context.player());
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    return choosesInParallel(this.strategy);
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return soundHandPruning(this.strategy);
+  }
+
+  /**
+   * Works out how many options each run chooses from.
+   * @param options every option
+   * @return the most options a run chooses from, at least 1
+   */
+  private int runLength(IntMoveList options) {
+    int runs = this.pool.getParallelism() * RUNS_PER_THREAD;
+    return Math.max(1, (options.size() + runs - 1) / runs);
+  }
+
+  /**
+   * Chooses the best moves out of a run of options, by splitting it in half until the halves
+   * are short enough to choose from on a copy of the model, and joining the best moves of each
+   * half, first half first.
+   */
+  private final class ChooseRun extends RecursiveTask<IntMoveList> {
+    private static final long serialVersionUID = 1L;
+
+    private final IntMoveList options;
+    private final int from;
+    private final int to;
+    private final int runLength;
+    private final ReadOnlyBoard model;
+    private final Player player;
+
+    /**
+     * Creates a task to choose from the options from index from up to but not including to.
+     * @param options every option
+     * @param from the first option of the run
+     * @param to one more than the last option of the run
+     * @param runLength the most options to choose from without splitting
+     * @param model a copy of the model being decided on, which is only read to copy it
+     * @param player the players whose turn it is
+     */
+    private ChooseRun(IntMoveList options, int from, int to, int runLength,
+                      ReadOnlyBoard model, Player player) {
+      this.options = options;
+      this.from = from;
+      this.to = to;
+      this.runLength = runLength;
+      this.model = model;
+      this.player = player;
+    }
+
+    @Override
+    protected IntMoveList compute() {
+      if (this.to - this.from <= this.runLength) {
+        IntMoveList run = new IntMoveList(this.to - this.from);
+        for (int idx = this.from; idx < this.to; idx++) {
+          run.add(this.options.move(idx), this.options.score(idx));
+        }
+        //boards keep scratch space, so each run reads its own copy
+        ReadOnlyBoard copy = BitBoard.copyOf(this.model, this.player);
+        return chooseFromOptions(ParallelRoot.this.strategy, run, copy, this.player);
+      }
+
+      int mid = (this.from + this.to) >>> 1;
+      ChooseRun second = new ChooseRun(this.options, mid, this.to, this.runLength,
+          this.model, this.player);
+      second.fork();
+      IntMoveList ret = new ChooseRun(this.options, this.from, mid, this.runLength,
+          this.model, this.player).compute();
+      IntMoveList secondBest = second.join();
+      for (int idx = 0; idx < secondBest.size(); idx++) {
+        ret.add(secondBest.move(idx), secondBest.score(idx));
+      }
+      return ret;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package model.stategy;
+
+import java.util.List;
+
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An infallible strategy that chooses moves with another strategy, but leaves out the moves of
+ * cards that a HandPruning says an earlier card in the hand makes unnecessary, so the other
+ * strategy has fewer moves to score. It only prunes as far as the other strategy says is sound,
+ * so it always chooses the move the other strategy would, still breaking ties by the lowest hand
+ * index, but moves tied only because their cards are alike are not all listed.
+ */
+public class PrunedHands extends InfallibleTTStrategy {
+
+  private final InfallibleStategy strategy;
+  private final HandPruning pruning;
+
+  /**
+   * Produces a strategy that chooses with the given strategy from the moves left after pruning.
+   * @param strategy the strategy to choose moves with
+   * @param pruning which cards to leave out
+   * @throws IllegalArgumentException if either argument is null, or the pruning is stricter than
+   *                                  the strategy says is sound
+   */
+  public PrunedHands(InfallibleStategy strategy, HandPruning pruning) {
+    if (strategy == null) {
+      throw new IllegalArgumentException("strategy cannot be null");
+    }
+    if (pruning == null) {
+      throw new IllegalArgumentException("pruning cannot be null");
+    }
+    if (!soundHandPruning(strategy).prunesAtLeast(pruning)) {
+      throw new IllegalArgumentException("pruning is not sound for strategy");
+    }
+    this.strategy = strategy;
+    this.pruning = pruning;
+  }
+
+  @Override
+  public List<IMove> chooseFromOptions(List<IMove> options, ReadOnlyBoard model, Player player) {
+    return this.chooseFromOptions(packLegal(options, model), model, player).toMoves();
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, ReadOnlyBoard model,
+                                          Player player) {
+    return this.chooseFromOptions(options, new TurnContext(model, player));
+  }
+
+  @Override
+  protected IntMoveList chooseFromOptions(IntMoveList options, TurnContext context) {
+    boolean[] pruned = this.pruning.prunedCards(context.model(), context.player());
+    IntMoveList kept = new IntMoveList(options.size());
+    for (int idx = 0; idx < options.size(); idx++) {
+      int handIdx = MoveEncoding.handIdx(options.move(idx));
+      if (handIdx >= pruned.length || !pruned[handIdx]) {
+        kept.add(options.move(idx), options.score(idx));
+      }
+    }
+    return chooseFromOptions(this.strategy, kept, context);
+  }
+
+  @Override
+  protected IntMoveList mergeBest(IntMoveList finalists, ReadOnlyBoard model, Player player) {
+    return mergeBest(this.strategy, finalists, model, player);
+  }
+
+  @Override
+  protected boolean choosesInParallel() {
+    return choosesInParallel(this.strategy);
+  }
+
+  @Override
+  protected HandPruning soundHandPruning() {
+    return soundHandPruning(this.strategy);
+  }
+}
@@ -0,0 +1,15 @@
+package model.stategy;
+
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * An evaluator that scores a position by how many more cards the player has than their opponent,
+ * counting the cards in their hands as well as the cards they own on the grid.
+ */
+public class ScoreDifference implements Evaluator {
+  @Override
+  public int evaluate(ReadOnlyBoard model, Player player) {
+    return model.score(player) - model.score(Player.nextPlayer(player));
+  }
+}
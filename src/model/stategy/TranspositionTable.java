@@ -0,0 +1,279 @@
+package model.stategy;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of search results keyed by position hash, so a search that reaches the same
+ * position through a different order of moves can reuse what it already worked out there.
+ * Each result is packed into one long holding the best move, score, search depth, what kind of
+ * bound the score is, and the search it was stored in. Entries are kept in pairs: a new result
+ * replaces whichever entry in its pair is from an older search, or else the one searched to the
+ * lower depth. Reads and writes take no locks, so several search threads can share one table.
+ * Every entry is stored as its data along with the data combined with its key, so an entry that
+ * is torn by two threads writing at once no longer matches its key and reads as a miss.
+ */
+public final class TranspositionTable {
+
+  /**
+   * What a stored score says about the true score of its position.
+   */
+  public enum Bound {
+    EXACT, //the score is the position's true score
+    LOWER, //the true score is at least the score
+    UPPER //the true score is at most the score
+  }
+
+  /**
+   * The value probe returns when there is no entry for a position.
+   */
+  public static final long MISS = 0L;
+
+  /**
+   * The move to store when a result has no best move.
+   */
+  public static final int NO_MOVE = -1;
+
+  /**
+   * The deepest search depth an entry can record.
+   */
+  public static final int MAX_DEPTH = 0xFF;
+
+  private static final int WORDS_PER_ENTRY = 2;
+  private static final int BYTES_PER_ENTRY = WORDS_PER_ENTRY * Long.BYTES;
+  private static final Bound[] BOUNDS = Bound.values();
+
+  //layout of an entry's data, from the lowest bit
+  private static final int SCORE_SHIFT = 32;
+  private static final int DEPTH_SHIFT = 48;
+  private static final int BOUND_SHIFT = 56;
+  private static final int GENERATION_SHIFT = 58;
+  private static final long GENERATION_MASK = 0x1FL;
+  private static final long VALID = 1L << 63;
+
+  private final long[] table; //check word then data word for each entry
+  private final int bucketMask;
+  private volatile int generation;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder collisions;
+
+  /**
+   * Creates an empty table that uses at most the given amount of memory. The number of entries is
+   * the largest power of two that fits.
+   * @param megabytes the memory the table may use, in megabytes
+   * @throws IllegalArgumentException if megabytes is not positive, or is too large to allocate as
+   *                                  one array
+   */
+  public TranspositionTable(int megabytes) {
+    if (megabytes <= 0) {
+      throw new IllegalArgumentException("megabytes must be positive");
+    }
+    long maxEntries = ((long) megabytes << 20) / BYTES_PER_ENTRY;
+    long entries = Long.highestOneBit(maxEntries);
+    if (entries * WORDS_PER_ENTRY > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("megabytes is too large");
+    }
+    this.table = new long[(int) entries * WORDS_PER_ENTRY];
+    this.bucketMask = (int) (entries / 2) - 1;
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.collisions = new LongAdder();
+  }
+
+  /**
+   * Looks up the stored result for a position.
+   * @param hash the hash of the position
+   * @return the packed result, which can be read with move, score, depth and bound, or MISS if
+   *         there is no result for the position
+   */
+  public long probe(long hash) {
+    int first = this.bucketOf(hash);
+    for (int entry = first; entry < first + 2 * WORDS_PER_ENTRY; entry += WORDS_PER_ENTRY) {
+      long data = this.table[entry + 1];
+      if ((data & VALID) != 0 && (this.table[entry] ^ data) == hash) {
+        this.hits.increment();
+        return data;
+      }
+    }
+    this.misses.increment();
+    return MISS;
+  }
+
+  /**
+   * Stores the result of searching a position. A result for the same position replaces the old
+   * one; otherwise the entry it replaces is chosen by age and then depth.
+   * @param hash the hash of the position
+   * @param move the best move found in the position in the caller's own encoding, or NO_MOVE
+   * @param score the score of the position, which must fit in a short
+   * @param depth how many moves deep the position was searched, from 0 to MAX_DEPTH
+   * @param bound what the score says about the position's true score
+   * @throws IllegalArgumentException if score or depth are out of range or bound is null
+   */
+  public void store(long hash, int move, int score, int depth, Bound bound) {
+    if (score < Short.MIN_VALUE || score > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("score must fit in a short");
+    }
+    if (depth < 0 || depth > MAX_DEPTH) {
+      throw new IllegalArgumentException("depth must be between 0 and " + MAX_DEPTH);
+    }
+    if (bound == null) {
+      throw new IllegalArgumentException("bound cannot be null");
+    }
+
+    long generation = this.generation;
+    long data = VALID
+            | (generation << GENERATION_SHIFT)
+            | ((long) bound.ordinal() << BOUND_SHIFT)
+            | ((long) depth << DEPTH_SHIFT)
+            | ((score & 0xFFFFL) << SCORE_SHIFT)
+            | (move & 0xFFFFFFFFL);
+
+    int first = this.bucketOf(hash);
+    int second = first + WORDS_PER_ENTRY;
+    int victim;
+    if (this.holds(first, hash)) {
+      victim = first;
+    } else if (this.holds(second, hash)) {
+      victim = second;
+    } else {
+      victim = this.worseOf(first, second, generation);
+      if ((this.table[victim + 1] & VALID) != 0) {
+        this.collisions.increment();
+      }
+    }
+    this.table[victim] = hash ^ data;
+    this.table[victim + 1] = data;
+  }
+
+  /**
+   * Marks the start of a new search, so entries from earlier searches are replaced before entries
+   * from this one. Entries from earlier searches can still be probed.
+   */
+  public void newSearch() {
+    this.generation = (int) ((this.generation + 1) & GENERATION_MASK);
+  }
+
+  /**
+   * Removes every entry from this table and resets its counters.
+   */
+  public void clear() {
+    Arrays.fill(this.table, 0L);
+    this.hits.reset();
+    this.misses.reset();
+    this.collisions.reset();
+  }
+
+  /**
+   * The number of entries this table can hold.
+   * @return the capacity of this table
+   */
+  public int capacity() {
+    return this.table.length / WORDS_PER_ENTRY;
+  }
+
+  /**
+   * The number of probes that found a result.
+   * @return the number of hits
+   */
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * The number of probes that found no result.
+   * @return the number of misses
+   */
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * The number of stores that had to replace the result of a different position.
+   * @return the number of collisions
+   */
+  public long collisions() {
+    return this.collisions.sum();
+  }
+
+  /**
+   * Reads the best move of a probed result.
+   * @param entry a result returned by probe
+   * @return the move that was stored, or NO_MOVE
+   */
+  public static int move(long entry) {
+    return (int) entry;
+  }
+
+  /**
+   * Reads the score of a probed result.
+   * @param entry a result returned by probe
+   * @return the score that was stored
+   */
+  public static int score(long entry) {
+    return (short) (entry >>> SCORE_SHIFT);
+  }
+
+  /**
+   * Reads the depth of a probed result.
+   * @param entry a result returned by probe
+   * @return how many moves deep the position was searched
+   */
+  public static int depth(long entry) {
+    return (int) (entry >>> DEPTH_SHIFT) & MAX_DEPTH;
+  }
+
+  /**
+   * Reads the bound of a probed result.
+   * @param entry a result returned by probe
+   * @return what the stored score says about the position's true score
+   */
+  public static Bound bound(long entry) {
+    return BOUNDS[(int) (entry >>> BOUND_SHIFT) & 0x3];
+  }
+
+  /**
+   * Gives the index of the first word of the pair of entries a position is stored in.
+   * @param hash the hash of the position
+   * @return the index of the pair's first entry
+   */
+  private int bucketOf(long hash) {
+    return ((int) (hash ^ (hash >>> 32)) & this.bucketMask) * 2 * WORDS_PER_ENTRY;
+  }
+
+  /**
+   * Determines if the entry at the given index holds the result for the given position.
+   * @param entry the index of the entry
+   * @param hash the hash of the position
+   * @return whether the entry is that position's
+   */
+  private boolean holds(int entry, long hash) {
+    long data = this.table[entry + 1];
+    return (data & VALID) != 0 && (this.table[entry] ^ data) == hash;
+  }
+
+  /**
+   * Chooses which of two entries a new result should replace: an empty entry, then an entry from
+   * an earlier search, then the entry searched to the lower depth.
+   * @param first the index of the first entry
+   * @param second the index of the second entry
+   * @param generation the current search
+   * @return the index of the entry to replace
+   */
+  private int worseOf(int first, int second, long generation) {
+    long firstData = this.table[first + 1];
+    long secondData = this.table[second + 1];
+    if ((firstData & VALID) == 0) {
+      return first;
+    }
+    if ((secondData & VALID) == 0) {
+      return second;
+    }
+    boolean firstOld = ((firstData >>> GENERATION_SHIFT) & GENERATION_MASK) != generation;
+    boolean secondOld = ((secondData >>> GENERATION_SHIFT) & GENERATION_MASK) != generation;
+    if (firstOld != secondOld) {
+      return firstOld ? first : second;
+    }
+    return depth(secondData) < depth(firstData) ? second : first;
+  }
+}
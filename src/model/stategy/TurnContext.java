@@ -0,0 +1,216 @@
+package model.stategy;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Adjacency;
+import model.AttackValue;
+import model.Card;
+import model.Direction;
+import model.Player;
+import model.ReadOnlyBoard;
+
+/**
+ * What strategies read about the position they are choosing a move in, worked out once per turn
+ * and shared by every strategy and combinator that chooses in it, rather than asked of the model
+ * again for every candidate move. Which cells can be played to is found when the context is
+ * made. Both players' hands, the attack values of their cards, the cards each move would flip
+ * and the neighbors of each cell are worked out from the model the first time they are asked
+ * for, since not every strategy needs them. The cards flipped are worked out one cell at a time
+ * while only a few cells are asked about, so scoring a handful of moves on a large board does
+ * not cost as much as the whole board, and for every cell at once when most cells are.
+ * A context never changes, but it reads the model it was made from, so it is only valid while
+ * that model stays in the same position, and is used like the model, by one thread at a time.
+ */
+public final class TurnContext {
+  private static final int NUM_DIRS = Direction.values().length;
+
+  private final ReadOnlyBoard model;
+  private final Player player;
+  private final int width;
+  private final int height;
+  private final boolean[] legal; //whether each cell can be played to, as y * width + x
+  private final int numLegal;
+
+  //null until first asked for
+  private List<Card> hand;
+  private List<Card> opponentHand;
+  private AttackValue[][] handValues; //indexed by hand index, then direction ordinal
+  private AttackValue[][] opponentValues;
+  private int[][] flips; //for every cell at once, indexed by hand index then cell
+  private final Map<Integer, int[]> cellFlips; //for the cells asked about, by hand index
+  private Adjacency adjacency;
+
+  /**
+   * Makes the context of a turn.
+   * @param model the model the move is being chosen in
+   * @param player the player whose turn it is
+   * @throws IllegalArgumentException if model or player is null
+   */
+  public TurnContext(ReadOnlyBoard model, Player player) {
+    if (model == null) {
+      throw new IllegalArgumentException("model cannot be null");
+    }
+    if (player == null) {
+      throw new IllegalArgumentException("player cannot be null");
+    }
+    this.model = model;
+    this.player = player;
+    this.width = model.gameWidth();
+    this.height = model.gameHeight();
+    this.legal = new boolean[this.width * this.height];
+    int legalCells = 0;
+    for (int row = 0; row < this.height; row++) {
+      for (int col = 0; col < this.width; col++) {
+        this.legal[row * this.width + col] = model.isMoveLegal(col, row);
+        legalCells += this.legal[row * this.width + col] ? 1 : 0;
+      }
+    }
+    this.numLegal = legalCells;
+    this.cellFlips = new HashMap<>();
+  }
+
+  /**
+   * The model the move is being chosen in.
+   * @return the model
+   */
+  public ReadOnlyBoard model() {
+    return this.model;
+  }
+
+  /**
+   * The player whose turn it is.
+   * @return the player
+   */
+  public Player player() {
+    return this.player;
+  }
+
+  /**
+   * The width of the board.
+   * @return the number of columns
+   */
+  public int width() {
+    return this.width;
+  }
+
+  /**
+   * The height of the board.
+   * @return the number of rows
+   */
+  public int height() {
+    return this.height;
+  }
+
+  /**
+   * Whether a card can be played to a cell, as the model said when the context was made.
+   * @param x the x coordinate, 0-indexed, starting from the left
+   * @param y the y coordinate, 0-indexed, starting from the top
+   * @return whether the cell can be played to, which is false for cells off the board
+   */
+  public boolean isLegal(int x, int y) {
+    return x >= 0 && x < this.width && y >= 0 && y < this.height
+            && this.legal[y * this.width + x];
+  }
+
+  /**
+   * The cards in a player's hand.
+   * @param owner the player whose hand it is
+   * @return a read only list of their cards, which must not be changed
+   * @throws IllegalArgumentException if owner is null
+   */
+  public List<Card> hand(Player owner) {
+    if (owner == null) {
+      throw new IllegalArgumentException("owner cannot be null");
+    }
+    if (owner == this.player) {
+      if (this.hand == null) {
+        this.hand = Collections.unmodifiableList(this.model.getHand(owner));
+      }
+      return this.hand;
+    }
+    if (this.opponentHand == null) {
+      this.opponentHand = Collections.unmodifiableList(this.model.getHand(owner));
+    }
+    return this.opponentHand;
+  }
+
+  /**
+   * The attack value on one side of a card in a player's hand.
+   * @param owner the player whose hand the card is in
+   * @param handIdx the index of the card in their hand, 0-indexed
+   * @param dir the side of the card
+   * @return the attack value on that side
+   * @throws IllegalArgumentException if owner or dir is null
+   * @throws IndexOutOfBoundsException if handIdx is out of range of their hand
+   */
+  public AttackValue edgeValue(Player owner, int handIdx, Direction dir) {
+    if (dir == null) {
+      throw new IllegalArgumentException("dir cannot be null");
+    }
+    List<Card> cards = this.hand(owner);
+    AttackValue[][] values = owner == this.player ? this.handValues : this.opponentValues;
+    if (values == null) {
+      values = new AttackValue[cards.size()][NUM_DIRS];
+      for (int idx = 0; idx < cards.size(); idx++) {
+        for (Direction side : Direction.values()) {
+          values[idx][side.ordinal()] = cards.get(idx).getDirectionalValues().get(side);
+        }
+      }
+      if (owner == this.player) {
+        this.handValues = values;
+      } else {
+        this.opponentValues = values;
+      }
+    }
+    return values[handIdx][dir.ordinal()];
+  }
+
+  /**
+   * How many cards a card in the hand of the player whose turn it is would flip at a cell, like
+   * possibleCardsFlipped.
+   * @param handIdx the index of the card in their hand, 0-indexed
+   * @param x the x coordinate, 0-indexed, starting from the left
+   * @param y the y coordinate, 0-indexed, starting from the top
+   * @return the number of cards flipped, or -1 if the cell cannot be played to
+   * @throws IndexOutOfBoundsException if handIdx, x or y are out of range
+   */
+  public int flips(int handIdx, int x, int y) {
+    if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+      throw new IndexOutOfBoundsException("no cell " + x + ", " + y);
+    }
+    int cell = y * this.width + x;
+    if (this.flips == null && this.cellFlips.size() * 2 >= this.numLegal) {
+      //most of the board is being asked about, which is quicker to work out all at once
+      this.flips = this.model.possibleCardsFlippedForHand(this.player);
+      this.cellFlips.clear();
+    }
+    if (this.flips != null) {
+      return this.flips[handIdx][cell];
+    }
+    int[] atCell = this.cellFlips.get(cell);
+    if (atCell == null) {
+      List<Card> cards = this.hand(this.player);
+      atCell = new int[cards.size()];
+      for (int idx = 0; idx < atCell.length; idx++) {
+        atCell[idx] = this.isLegal(x, y)
+                ? this.model.possibleCardsFlipped(cards.get(idx), x, y) : -1;
+      }
+      this.cellFlips.put(cell, atCell);
+    }
+    return atCell[handIdx];
+  }
+
+  /**
+   * The neighbors of every cell of the board that is not a hole.
+   * @return the adjacency of the board
+   */
+  public Adjacency adjacency() {
+    if (this.adjacency == null) {
+      this.adjacency = this.model.getAdjacency();
+    }
+    return this.adjacency;
+  }
+}
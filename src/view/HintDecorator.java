@@ -3,7 +3,6 @@ package view;
 import java.awt.TextField;
 
 import controller.ViewFeatures;
-import model.Card;
 import model.ReadOnlyBoard;
 
 /**
@@ -32,11 +31,14 @@ public class HintDecorator implements GridPanel {
       return;
     }
 
+    int[] hints = null; //worked out for the whole hand at once, the first time it is needed
     for (int yPos = 0; yPos < model.gameHeight(); yPos++) {
       for (int xPos = 0; xPos < model.gameWidth(); xPos++) {
         if (model.isMoveLegal(xPos, yPos)) {
-          Card selectedCard = model.getHand(model.curPlayer()).get(selectedCardIdx);
-          int hintVal = model.possibleCardsFlipped(selectedCard, xPos, yPos);
+          if (hints == null) {
+            hints = model.possibleCardsFlippedForHand(model.curPlayer())[selectedCardIdx];
+          }
+          int hintVal = hints[yPos * model.gameWidth() + xPos];
           getCell(xPos, yPos).add(new TextField(hintVal + ""));
         }
       }
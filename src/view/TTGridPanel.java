@@ -14,7 +14,6 @@ import javax.swing.JPanel;
 
 import controller.ViewFeatures;
 import model.ReadOnlyBoard;
-import model.Slot;
 
 /**
  * A panel to display the grid in a three trios game.
@@ -38,14 +37,13 @@ public class TTGridPanel extends JPanel implements GridPanel {
   @Override
   public void refresh(int selectedCardIdx) {
     this.removeAll();
-    Slot[][] grid = model.getGrid();
     this.setLayout(new GridLayout(model.gameHeight(), model.gameWidth()));
 
     for (int ypos = 0; ypos < model.gameHeight(); ypos++) {
       for (int xpos = 0; xpos < model.gameWidth(); xpos++) {
         JPanel cellBox = new JCell(model.getCoord(xpos, ypos), false);
-        cellBox.setPreferredSize(new Dimension(this.getWidth() / grid[0].length,
-                this.getHeight() / grid.length));
+        cellBox.setPreferredSize(new Dimension(this.getWidth() / model.gameWidth(),
+                this.getHeight() / model.gameHeight()));
         this.add(cellBox);
       }
     }
@@ -56,14 +56,14 @@ public class TTPlayerPanel extends JPanel implements PlayerPanel {
   }
 
   private AffineTransform transformModelToPhysical() {
-    int handSize = model.getHand(this.handOwner).size();
+    int handSize = model.getHandSize(this.handOwner);
     AffineTransform ret = new AffineTransform();
     ret.scale(getWidth(), (double)getHeight() / handSize);
     return ret;
   }
 
   private AffineTransform transformPhysicalToModel() {
-    int handSize = model.getHand(this.handOwner).size();
+    int handSize = model.getHandSize(this.handOwner);
     AffineTransform ret = new AffineTransform();
     ret.scale((double) 1 / getWidth(), (double)handSize / getHeight());
     return ret;
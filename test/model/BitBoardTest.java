@@ -0,0 +1,48 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the BitBoard plays exactly like the ThreeTriosBoard, and that it can be copied from
+ * any position.
+ */
+public class BitBoardTest extends PackedBoardConformance {
+
+  @Override
+  protected Board newBoard(Slot[][] grid, List<Card> cards, Random random, boolean shuffle) {
+    return new BitBoard(grid, cards, random, shuffle);
+  }
+
+  @Test
+  public void testCopyOfMatchesEveryPosition() {
+    Board expected = new ThreeTriosBoard(getBoard("nboard.config"), getCards("17cards.config"),
+            new Random(5), true);
+    expected.startGame();
+    Random moves = new Random(5);
+    while (true) {
+      Board copy = BitBoard.copyOf(expected);
+      assertSameState(expected, copy);
+      if (expected.isGameOver()) {
+        break;
+      }
+      assertEquals(Player.nextPlayer(expected.curPlayer()),
+              BitBoard.copyOf(expected, Player.nextPlayer(expected.curPlayer())).curPlayer());
+
+      int x;
+      int y;
+      do {
+        x = moves.nextInt(expected.gameWidth());
+        y = moves.nextInt(expected.gameHeight());
+      } while (!expected.isMoveLegal(x, y));
+      int handIdx = moves.nextInt(expected.getHandSize(expected.curPlayer()));
+      copy.playToBoard(handIdx, x, y);
+      expected.playToBoard(handIdx, x, y);
+      assertSameState(expected, copy);
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+import controller.ConfigParser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a board implementation plays exactly like the ThreeTriosBoard. Each implementation
+ * is tested by a subclass that makes its boards, so they are all held to the same checks.
+ */
+public abstract class PackedBoardConformance {
+
+  private final ConfigParser parser = new ConfigParser();
+
+  /**
+   * Generates an array of slots from the file name passed in.
+   * @param name the name of the board config file.
+   * @return the array of slots
+   */
+  protected Slot[][] getBoard(String name) {
+    try {
+      return parser.parseBoard(new Scanner(new File("docs" + File.separator + name)));
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("file name does not exist");
+    }
+  }
+
+  /**
+   * Generates the cards based on the name of the config file passed in.
+   * @param name the name of the card config file
+   * @return the cards from the config file
+   */
+  protected List<Card> getCards(String name) {
+    try {
+      return parser.parseCards(new Scanner(new File("docs" + File.separator + name)));
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("file name does not exist");
+    }
+  }
+
+  /**
+   * Makes the board being tested, dealing the cards the way its constructor would.
+   * @param grid the slots of the board
+   * @param cards the cards to deal to the players
+   * @param random the random used to shuffle the cards
+   * @param shuffle whether to shuffle the cards before they are dealt
+   * @return a new board of the implementation being tested
+   */
+  protected abstract Board newBoard(Slot[][] grid, List<Card> cards, Random random,
+                                    boolean shuffle);
+
+  /**
+   * Asserts that two boards are in the same state, and would flip the same cards for every card
+   * in either hand at every open cell.
+   * @param expected the board that is known to be correct
+   * @param actual the board being checked
+   */
+  protected void assertSameState(Board expected, Board actual) {
+    assertEquals(expected.curPlayer(), actual.curPlayer());
+    assertEquals(expected.positionHash(), actual.positionHash());
+    assertEquals(ZobristKeys.defaultKeys(actual.gameWidth() * actual.gameHeight()).hash(actual),
+            actual.positionHash());
+    assertEquals(expected.isGameOver(), actual.isGameOver());
+    for (Player player : List.of(Player.A, Player.B)) {
+      assertEquals(expected.getHand(player), actual.getHand(player));
+      assertEquals(expected.score(player), actual.score(player));
+      assertEquals(expected.getHandSize(player), actual.getHandSize(player));
+      assertArrayEquals(expected.possibleCardsFlippedForHand(player),
+              actual.possibleCardsFlippedForHand(player));
+      for (int idx = 0; idx < expected.getHandSize(player); idx++) {
+        assertEquals(expected.getHandCardId(player, idx), actual.getHandCardId(player, idx));
+        for (Direction dir : Direction.values()) {
+          assertEquals(expected.getHandCardValue(player, idx, dir),
+                  actual.getHandCardValue(player, idx, dir));
+        }
+      }
+    }
+
+    for (int y = 0; y < expected.gameHeight(); y++) {
+      for (int x = 0; x < expected.gameWidth(); x++) {
+        assertEquals(expected.getCoord(x, y), actual.getCoord(x, y));
+        assertEquals(expected.getCellOwner(x, y), actual.getCellOwner(x, y));
+        assertEquals(expected.getCellCardId(x, y), actual.getCellCardId(x, y));
+        if (expected.getCellCardId(x, y) != ReadOnlyBoard.NO_CARD) {
+          for (Direction dir : Direction.values()) {
+            assertEquals(expected.getCellValue(x, y, dir), actual.getCellValue(x, y, dir));
+          }
+        }
+        assertEquals(expected.isMoveLegal(x, y), actual.isMoveLegal(x, y));
+        if (expected.isMoveLegal(x, y)) {
+          for (Player player : List.of(Player.A, Player.B)) {
+            for (Card card : expected.getHand(player)) {
+              assertEquals(expected.possibleCardsFlipped(card, x, y),
+                      actual.possibleCardsFlipped(card, x, y));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Plays the same random games on a ThreeTriosBoard and the board being tested, checking they
+   * agree after every move.
+   * @param boardName the board config to play on
+   * @param cardsName the card config to play with
+   */
+  private void playMatchingGames(String boardName, String cardsName) {
+    for (int seed = 0; seed < 5; seed++) {
+      List<Card> shuffled = new ArrayList<>(getCards(cardsName));
+      Collections.shuffle(shuffled, new Random(seed));
+      Board expected = new ThreeTriosBoard(getBoard(boardName), getCards(cardsName),
+              new Random(seed), true);
+      Board actual = newBoard(getBoard(boardName), shuffled, new Random(), false);
+      expected.startGame();
+      actual.startGame();
+
+      Random moves = new Random(seed);
+      assertSameState(expected, actual);
+      while (!expected.isGameOver()) {
+        int x;
+        int y;
+        do {
+          x = moves.nextInt(expected.gameWidth());
+          y = moves.nextInt(expected.gameHeight());
+        } while (!expected.isMoveLegal(x, y));
+        int handIdx = moves.nextInt(expected.getHand(expected.curPlayer()).size());
+        expected.playToBoard(handIdx, x, y);
+        actual.playToBoard(handIdx, x, y);
+        assertSameState(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesThreeTriosBoardOnEmptyBoard() {
+    playMatchingGames("emptyboard.config", "17cards.config");
+  }
+
+  @Test
+  public void testMatchesThreeTriosBoardOnNBoard() {
+    playMatchingGames("nboard.config", "17cards.config");
+  }
+
+  @Test
+  public void testMatchesThreeTriosBoardOnSeparatedBoard() {
+    playMatchingGames("separatedboard.config", "17cards.config");
+  }
+
+  @Test
+  public void testMatchesThreeTriosBoardOnAccessibleBoard() {
+    playMatchingGames("accessibleboard.config", "17cards.config");
+  }
+
+  @Test
+  public void testMatchesThreeTriosBoardOnStrategyBoard() {
+    playMatchingGames("strategyTest.config", "strategyCards.config");
+  }
+
+  @Test
+  public void testUndoMatchesThreeTriosBoard() {
+    Board expected = new ThreeTriosBoard(getBoard("nboard.config"), getCards("17cards.config"),
+            new Random(3), false);
+    Board actual = newBoard(getBoard("nboard.config"), getCards("17cards.config"),
+            new Random(3), false);
+    expected.startGame();
+    actual.startGame();
+
+    List<MoveRecord> moves = new ArrayList<>();
+    for (int y = 0; y < actual.gameHeight(); y++) {
+      for (int x = 0; x < actual.gameWidth(); x++) {
+        if (actual.isMoveLegal(x, y)) {
+          moves.add(actual.playToBoardUndoable(0, x, y));
+        }
+      }
+    }
+    assertTrue(actual.isGameOver());
+    for (int i = moves.size() - 1; i >= 0; i--) {
+      actual.undo(moves.get(i));
+    }
+    assertSameState(expected, actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotEnoughCards() {
+    newBoard(getBoard("emptyboard.config"), getCards("testCards.config"), new Random(), true);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testPlayBeforeStart() {
+    newBoard(getBoard("nboard.config"), getCards("17cards.config"), new Random(), true)
+            .playToBoard(0, 0, 0);
+  }
+
+  @Test
+  public void testGameOverAndWinner() {
+    Board board = newBoard(getBoard("strategyTest.config"),
+            getCards("strategyCards.config"), new Random(1), true);
+    board.startGame();
+    assertFalse(board.isGameOver());
+    while (!board.isGameOver()) {
+      for (int y = 0; y < board.gameHeight(); y++) {
+        for (int x = 0; x < board.gameWidth(); x++) {
+          if (board.isMoveLegal(x, y)) {
+            board.playToBoard(0, x, y);
+          }
+        }
+      }
+    }
+    assertTrue(board.isGameOver());
+    int aCards = 0;
+    int bCards = 0;
+    for (Slot[] row : board.getGrid()) {
+      for (Slot slot : row) {
+        aCards += slot.getSlotOwner() == Player.A ? 1 : 0;
+        bCards += slot.getSlotOwner() == Player.B ? 1 : 0;
+      }
+    }
+    assertEquals(aCards > bCards ? Player.A : bCards > aCards ? Player.B : Player.NONE,
+            board.gameWinner());
+  }
+}
@@ -14,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import controller.ConfigParser;
@@ -23,6 +24,7 @@ import view.TTView;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -312,6 +314,208 @@ public class ThreeTriosBoardTest {
     assertEquals(model.getGrid()[0][0].getSlotOwner(), Player.B);
   }
 
+  @Test
+  public void testPlayToBoardLongChainOfFlips() {
+    int chainLength = 50000;
+    Slot[][] row = new Slot[1][chainLength + 1];
+    row[0][0] = new Empty();
+    for (int col = 1; col <= chainLength; col++) {
+      row[0][col] = new Card.CardBuilder().addName("chain" + col).addPlayer(Player.B)
+              .addValue(Direction.UP, AttackValue.ONE)
+              .addValue(Direction.DOWN, AttackValue.ONE)
+              .addValue(Direction.LEFT, AttackValue.ONE)
+              .addValue(Direction.RIGHT, AttackValue.NINE)
+              .build();
+    }
+    Board chainModel = new ThreeTriosBoard(row,
+            List.of(((Card) card2).copyCard(), ((Card) card).copyCard()), new Random(1), false);
+    chainModel.startGame();
+
+    assertEquals(chainLength, chainModel.possibleCardsFlipped(
+            chainModel.getHand(Player.A).get(0), 0, 0));
+    chainModel.playToBoard(0, 0, 0);
+    assertEquals(Player.A, chainModel.getCellOwner(chainLength, 0));
+    assertEquals(chainLength + 1, chainModel.score(Player.A));
+  }
+
+  @Test
+  public void testPlayToBoardUndoableRecordsFlips() {
+    MoveRecord record = model.playToBoardUndoable(0, 1, 1);
+    assertEquals(Player.A, record.previousPlayer());
+    assertEquals(0, record.handIndex());
+    assertEquals(1, record.numFlipped());
+    assertEquals(2, record.flippedX(0));
+    assertEquals(1, record.flippedY(0));
+    assertEquals(Player.B, record.previousOwner(0));
+    assertEquals(Player.A, model.getCellOwner(2, 1));
+    assertEquals(Player.B, model.curPlayer());
+  }
+
+  @Test
+  public void testUndoRestoresBoard() {
+    String before = view.toString();
+    List<Card> handA = model.getHand(Player.A);
+    List<Card> handB = model.getHand(Player.B);
+
+    MoveRecord first = model.playToBoardUndoable(0, 1, 1);
+    MoveRecord second = model.playToBoardUndoable(2, 2, 2);
+    assertNotEquals(before, view.toString());
+    model.undo(second);
+    model.undo(first);
+
+    assertEquals(before, view.toString());
+    assertEquals(handA, model.getHand(Player.A));
+    assertEquals(handB, model.getHand(Player.B));
+    assertEquals(Player.A, model.curPlayer());
+    assertEquals(Player.B, model.getCellOwner(2, 1));
+    assertTrue(model.isMoveLegal(1, 1));
+  }
+
+  @Test
+  public void testUndoReopensFinishedGame() {
+    model.playToBoard(0, 0, 0);
+    model.playToBoard(0, 1, 0);
+    model.playToBoard(0, 1, 1);
+    model.playToBoard(0, 1, 2);
+    MoveRecord last = model.playToBoardUndoable(0, 2, 2);
+    assertTrue(model.isGameOver());
+    model.undo(last);
+    assertFalse(model.isGameOver());
+    assertTrue(model.isMoveLegal(2, 2));
+  }
+
+  @Test
+  public void testUndoOutOfOrder() {
+    MoveRecord first = model.playToBoardUndoable(0, 1, 1);
+    model.playToBoardUndoable(2, 2, 2);
+    assertThrows(IllegalArgumentException.class, () -> model.undo(first));
+    assertThrows(IllegalArgumentException.class, () -> model.undo(null));
+  }
+
+  @Test
+  public void testScoreTracksFlipsAndUndo() {
+    assertEquals(5, model.score(Player.A));
+    assertEquals(5, model.score(Player.B));
+    MoveRecord record = model.playToBoardUndoable(0, 1, 1);
+    assertEquals(6, model.score(Player.A));
+    assertEquals(4, model.score(Player.B));
+    model.undo(record);
+    assertEquals(5, model.score(Player.A));
+    assertEquals(5, model.score(Player.B));
+    assertEquals(0, model.score(Player.NONE));
+  }
+
+  @Test
+  public void testPositionHashMatchesKeys() {
+    ZobristKeys keys = ZobristKeys.defaultKeys(9);
+    assertEquals(keys.hash(model), model.positionHash());
+    model.playToBoard(0, 1, 1);
+    assertEquals(keys.hash(model), model.positionHash());
+    model.playToBoard(2, 2, 2);
+    assertEquals(keys.hash(model), model.positionHash());
+    assertNotEquals(new ZobristKeys(7, 9).hash(model), model.positionHash());
+  }
+
+  @Test
+  public void testPositionHashRestoredByUndo() {
+    long start = model.positionHash();
+    MoveRecord first = model.playToBoardUndoable(0, 1, 1);
+    long afterFirst = model.positionHash();
+    MoveRecord second = model.playToBoardUndoable(2, 2, 2);
+    assertNotEquals(start, afterFirst);
+    assertNotEquals(afterFirst, model.positionHash());
+
+    model.undo(second);
+    assertEquals(afterFirst, model.positionHash());
+    model.undo(first);
+    assertEquals(start, model.positionHash());
+  }
+
+  @Test
+  public void testPositionHashSameForSamePosition() {
+    Board other = new ThreeTriosBoard(getBoard("emptyboard.config"), getCards("17cards.config"),
+            new Random(2), false);
+    Board same = new ThreeTriosBoard(getBoard("emptyboard.config"), getCards("17cards.config"),
+            new Random(5), false);
+    other.startGame();
+    same.startGame();
+    assertEquals(other.positionHash(), same.positionHash());
+
+    other.playToBoard(0, 0, 0);
+    assertNotEquals(other.positionHash(), same.positionHash());
+    same.playToBoard(0, 0, 0);
+    assertEquals(other.positionHash(), same.positionHash());
+    assertEquals(ZobristKeys.fingerprint(other.getHand(Player.A).get(0)),
+            ZobristKeys.fingerprint(same.getHand(Player.A).get(0)));
+  }
+
+  @Test
+  public void testHandViewsMatchCopies() {
+    for (Player player : List.of(Player.A, Player.B)) {
+      List<Card> hand = model.getHand(player);
+      assertEquals(hand.size(), model.getHandSize(player));
+      for (int idx = 0; idx < hand.size(); idx++) {
+        assertEquals(ZobristKeys.fingerprint(hand.get(idx)), model.getHandCardId(player, idx));
+        for (Direction dir : Direction.values()) {
+          assertEquals(hand.get(idx).getDirectionalValues().get(dir),
+                  model.getHandCardValue(player, idx, dir));
+        }
+      }
+    }
+    assertEquals(0, model.getHandSize(Player.NONE));
+    assertThrows(IllegalArgumentException.class, () -> model.getHandSize(null));
+    assertThrows(IllegalArgumentException.class, () -> model.getHandCardId(Player.A, 5));
+    assertThrows(IllegalArgumentException.class,
+        () -> model.getHandCardValue(Player.A, -1, Direction.UP));
+    assertThrows(IllegalArgumentException.class,
+        () -> model.getHandCardValue(Player.A, 0, null));
+  }
+
+  @Test
+  public void testCellViewsMatchCopies() {
+    model.playToBoard(0, 1, 1);
+    ReadOnlyBoard readOnly = new ViewModel(model);
+    for (int y = 0; y < 3; y++) {
+      for (int x = 0; x < 3; x++) {
+        Slot slot = model.getCoord(x, y);
+        if (slot instanceof Card) {
+          assertEquals(ZobristKeys.fingerprint((Card) slot), readOnly.getCellCardId(x, y));
+          for (Direction dir : Direction.values()) {
+            assertEquals(slot.getDirectionalValues().get(dir), readOnly.getCellValue(x, y, dir));
+          }
+        } else {
+          assertEquals(ReadOnlyBoard.NO_CARD, readOnly.getCellCardId(x, y));
+          int col = x;
+          int row = y;
+          assertThrows(IllegalArgumentException.class,
+              () -> readOnly.getCellValue(col, row, Direction.UP));
+        }
+      }
+    }
+    assertEquals(model.getCellCardId(0, 1), ZobristKeys.fingerprint(a224));
+    assertThrows(IllegalArgumentException.class, () -> model.getCellCardId(3, 0));
+    assertThrows(IllegalArgumentException.class, () -> model.getCellValue(0, 1, null));
+  }
+
+  @Test
+  public void testCompiledRulesMatchRules() {
+    Board reversed = new ThreeTriosBoard(getBoard("emptyboard.config"),
+            getCards("17cards.config"), new Random(3), true);
+    reversed.addCardTransformerToCards(value -> AttackValue.valueFromInt(11 - value.value));
+    reversed.addRuleToCards((a1, a2) -> (a1.value % 3) - (a2.value % 3));
+    reversed.startGame();
+
+    for (Card compiled : reversed.getHand(Player.A)) {
+      Card applied = compiled.copyCard();
+      applied.addCardTransformer(value -> value);
+      for (Direction dir : Direction.values()) {
+        for (AttackValue value : AttackValue.values()) {
+          assertEquals(applied.compareAttackValueTo(dir, value),
+                  compiled.compareAttackValueTo(dir, value));
+        }
+      }
+    }
+  }
 
   @Test
   public void testIsGameOverJustStarted() {
@@ -696,6 +900,214 @@ public class ThreeTriosBoardTest {
 
   }
 
+  @Test
+  public void testPossibleCardsFlippedLeavesBoardUntouched() {
+    model.playToBoard(0, 0, 0);
+    model.playToBoard(2, 2, 2);
+    model.playToBoard(0, 1, 2);
+    String before = view.toString();
+    long hash = model.positionHash();
+    Card candidate = model.getHand(Player.B).get(2);
+
+    assertEquals(3, model.possibleCardsFlipped(candidate, 1, 1));
+    assertEquals(before, view.toString());
+    assertEquals(hash, model.positionHash());
+    assertEquals(Player.B, candidate.getSlotOwner());
+    assertTrue(model.isMoveLegal(1, 1));
+    assertEquals(3, model.possibleCardsFlipped(candidate, 1, 1));
+  }
+
+  @Test
+  public void testPossibleCardsFlippedForHandMatchesEachCard() {
+    model.playToBoard(0, 0, 0);
+    model.playToBoard(2, 2, 2);
+    model.playToBoard(0, 1, 2);
+    for (Player player : List.of(Player.A, Player.B)) {
+      int[][] flips = model.possibleCardsFlippedForHand(player);
+      List<Card> hand = model.getHand(player);
+      assertEquals(hand.size(), flips.length);
+      for (int y = 0; y < 3; y++) {
+        for (int x = 0; x < 3; x++) {
+          for (int handIdx = 0; handIdx < hand.size(); handIdx++) {
+            int expected = model.isMoveLegal(x, y)
+                    ? model.possibleCardsFlipped(hand.get(handIdx), x, y) : -1;
+            assertEquals(expected, flips[handIdx][y * 3 + x]);
+          }
+        }
+      }
+    }
+    assertEquals(3, model.possibleCardsFlippedForHand(Player.B)[2][4]);
+    assertEquals(0, model.possibleCardsFlippedForHand(Player.NONE).length);
+    assertThrows(IllegalArgumentException.class, () -> model.possibleCardsFlippedForHand(null));
+  }
+
+  @Test
+  public void testPossibleCardsFlippedForHandCascadesForTheHandsOwner() {
+    //B's cards are flipped in a chain whoever's turn it is when A's hand is tried
+    Slot[][] grid = new Slot[1][4];
+    grid[0][0] = new Empty();
+    grid[0][1] = cardWith(Player.B, AttackValue.ONE, AttackValue.ONE, AttackValue.ONE,
+            AttackValue.A);
+    grid[0][2] = cardWith(Player.A, AttackValue.ONE, AttackValue.ONE, AttackValue.ONE,
+            AttackValue.ONE);
+    grid[0][3] = new Empty();
+    List<Card> cards = new ArrayList<>();
+    for (int idx = 0; idx < 3; idx++) {
+      cards.add(cardWith(Player.NONE, AttackValue.A, AttackValue.A, AttackValue.A,
+              AttackValue.A));
+    }
+    Board board = new ThreeTriosBoard(grid, cards, new Random(1), false);
+    board.startGame();
+    board.playToBoard(0, 3, 0);
+
+    //B is to move, so A's hand is tried out of turn: A's card at 0 flips B's card at 1, which
+    //cannot flip A's own card at 2
+    assertEquals(Player.B, board.curPlayer());
+    assertEquals(1, board.possibleCardsFlippedForHand(Player.A)[0][0]);
+    assertEquals(1, board.possibleCardsFlipped(board.getHand(Player.A).get(0), 0, 0));
+  }
+
+  /**
+   * Makes a card with the given values on each side.
+   * @param owner the owner of the card
+   * @param up the value on the top of the card
+   * @param down the value on the bottom of the card
+   * @param left the value on the left of the card
+   * @param right the value on the right of the card
+   * @return the card
+   */
+  private Card cardWith(Player owner, AttackValue up, AttackValue down, AttackValue left,
+                        AttackValue right) {
+    return new Card.CardBuilder().addName("C" + up + down + left + right).addPlayer(owner)
+            .addValue(Direction.UP, up).addValue(Direction.DOWN, down)
+            .addValue(Direction.LEFT, left).addValue(Direction.RIGHT, right).build();
+  }
+
+  @Test
+  public void testParallelCascadeFloodsBoard() {
+    //every card beats the cards below it and to its right, so one card in the corner flips all
+    int size = 40;
+    Slot[][] flood = new Slot[size][size];
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        flood[y][x] = cardWith(Player.B, AttackValue.ONE, AttackValue.NINE, AttackValue.ONE,
+                AttackValue.NINE);
+      }
+    }
+    flood[0][0] = new Empty();
+    //the first half of the cards are dealt to B, so A is dealt the second
+    List<Card> hands = List.of(
+            cardWith(Player.A, AttackValue.ONE, AttackValue.ONE, AttackValue.ONE,
+                    AttackValue.ONE),
+            cardWith(Player.A, AttackValue.ONE, AttackValue.NINE, AttackValue.ONE,
+                    AttackValue.NINE));
+    ThreeTriosBoard board = new ThreeTriosBoard(flood, hands, new Random(1), false);
+    board.setCascadePool(ForkJoinPool.commonPool(), 1);
+    board.startGame();
+
+    assertEquals(size * size - 1,
+            board.possibleCardsFlipped(board.getHand(Player.A).get(0), 0, 0));
+    MoveRecord record = board.playToBoardUndoable(0, 0, 0);
+    assertEquals(size * size - 1, record.numFlipped());
+    assertEquals(size * size, board.score(Player.A));
+    assertEquals(Player.A, board.getCellOwner(size - 1, size - 1));
+    board.undo(record);
+    assertEquals(size * size, board.score(Player.B));
+    assertEquals(Player.B, board.getCellOwner(size - 1, size - 1));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> board.setCascadePool(ForkJoinPool.commonPool(), 0));
+  }
+
+  @Test
+  public void testParallelCascadeMatchesSequential() {
+    AttackValue[] values = AttackValue.values();
+    for (int seed = 0; seed < 10; seed++) {
+      Random random = new Random(seed);
+      int size = 24;
+      Slot[][] layout = new Slot[size][size];
+      Slot[][] layoutCopy = new Slot[size][size];
+      int open = 0;
+      for (int y = 0; y < size; y++) {
+        for (int x = 0; x < size; x++) {
+          if (random.nextInt(3) == 0) {
+            layout[y][x] = random.nextInt(8) == 0 ? new Hole() : new Empty();
+            open += layout[y][x].canPlayCard() ? 1 : 0;
+          } else {
+            layout[y][x] = cardWith(random.nextBoolean() ? Player.A : Player.B,
+                    values[random.nextInt(10)], values[random.nextInt(10)],
+                    values[random.nextInt(10)], values[random.nextInt(10)]);
+          }
+          layoutCopy[y][x] = layout[y][x].copySlot();
+        }
+      }
+      List<Card> deck = new ArrayList<>();
+      List<Card> deckCopy = new ArrayList<>();
+      for (int i = 0; i <= open; i++) {
+        deck.add(cardWith(Player.A, values[random.nextInt(10)], values[random.nextInt(10)],
+                values[random.nextInt(10)], values[random.nextInt(10)]));
+        deckCopy.add(deck.get(i).copyCard());
+      }
+
+      ThreeTriosBoard sequential = new ThreeTriosBoard(layout, deck, new Random(seed), true);
+      ThreeTriosBoard parallel = new ThreeTriosBoard(layoutCopy, deckCopy, new Random(seed),
+              true);
+      parallel.setCascadePool(ForkJoinPool.commonPool(), 1);
+      sequential.startGame();
+      parallel.startGame();
+      long startHash = parallel.positionHash();
+
+      List<MoveRecord> moves = new ArrayList<>();
+      for (int y = 0; y < size; y++) {
+        for (int x = 0; x < size; x++) {
+          if (sequential.isMoveLegal(x, y)) {
+            sequential.playToBoard(0, x, y);
+            moves.add(parallel.playToBoardUndoable(0, x, y));
+            assertEquals(sequential.positionHash(), parallel.positionHash());
+          }
+        }
+      }
+      for (int y = 0; y < size; y++) {
+        for (int x = 0; x < size; x++) {
+          assertEquals(sequential.getCellOwner(x, y), parallel.getCellOwner(x, y));
+        }
+      }
+      for (int i = moves.size() - 1; i >= 0; i--) {
+        parallel.undo(moves.get(i));
+      }
+      assertEquals(startHash, parallel.positionHash());
+    }
+  }
+
+  @Test
+  public void testAdjacencySkipsHoles() {
+    Adjacency adjacency = model.getAdjacency();
+    assertEquals(3, adjacency.width());
+    assertEquals(3, adjacency.height());
+    assertFalse(adjacency.isOpen(2));
+    assertTrue(adjacency.isOpen(3));
+    assertEquals(adjacency.start(2), adjacency.end(2));
+    assertEquals(adjacency.start(6), adjacency.end(6));
+
+    //the top middle cell's neighbor to the right is a hole
+    int edge = adjacency.start(1);
+    assertEquals(2, adjacency.end(1) - edge);
+    assertEquals(4, adjacency.target(edge));
+    assertEquals(Direction.DOWN, adjacency.direction(edge));
+    assertEquals(0, adjacency.target(edge + 1));
+    assertEquals(Direction.LEFT, adjacency.direction(edge + 1));
+    assertEquals(2, adjacency.battleIndex(edge + 1));
+
+    //the middle cell has every neighbor, in the order they are battled in
+    edge = adjacency.start(4);
+    assertEquals(4, adjacency.end(4) - edge);
+    assertEquals(List.of(1, 7, 3, 5), List.of(adjacency.target(edge),
+            adjacency.target(edge + 1), adjacency.target(edge + 2), adjacency.target(edge + 3)));
+
+    assertThrows(IndexOutOfBoundsException.class, () -> adjacency.start(9));
+    assertThrows(IllegalArgumentException.class, () -> new Adjacency(new Slot[0][]));
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testStartGameAlreadyStarted() {
     model.startGame();
@@ -1270,10 +1682,20 @@ public class ThreeTriosBoardTest {
   @Test
   public void testGetDirectionalValuesNoMutation() {
     Map<Direction, AttackValue> ret = card.getDirectionalValues();
-    Map<Direction, AttackValue> noMutation = card.getDirectionalValues();
-    ret.put(Direction.UP, AttackValue.A);
+    Map<Direction, AttackValue> noMutation = new HashMap<>(ret);
+    assertThrows(UnsupportedOperationException.class,
+        () -> ret.put(Direction.UP, AttackValue.A));
     assertEquals(card.getDirectionalValues(), noMutation);
   }
 
+  @Test
+  public void testCopiesShareDefinition() {
+    Slot copy = card.copySlot();
+    copy.switchPlayer(Player.B);
+    assertSame(card.getDirectionalValues(), copy.getDirectionalValues());
+    assertNotEquals(card, copy);
+    assertEquals(card.toString(), copy.toString());
+  }
+
 
 }
\ No newline at end of file
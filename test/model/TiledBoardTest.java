@@ -0,0 +1,122 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the TiledBoard plays exactly like the ThreeTriosBoard, and that it can be built for
+ * grids far larger than their playable area.
+ */
+public class TiledBoardTest extends PackedBoardConformance {
+
+  @Override
+  protected Board newBoard(Slot[][] grid, List<Card> cards, Random random, boolean shuffle) {
+    return new TiledBoard(grid, cards, random, shuffle);
+  }
+
+  @Test
+  public void testBuildsLargeSparseGrid() {
+    List<Card> deck = getCards("17cards.config");
+    Card corner = deck.remove(0);
+    corner.switchPlayer(Player.B);
+
+    //a 2 by 2 island in the far corner of a grid of four million cells
+    int size = 2000;
+    TiledBoard board = new TiledBoard.TiledBoardBuilder(size, size)
+            .addEmpty(size - 2, size - 2)
+            .addEmpty(size - 1, size - 2)
+            .addEmpty(size - 2, size - 1)
+            .addCard(size - 1, size - 1, corner)
+            .build(deck, new Random(1), false);
+    board.startGame();
+
+    assertEquals(size, board.gameWidth());
+    assertEquals(Hole.class, board.getCoord(0, 0).getClass());
+    assertFalse(board.isMoveLegal(10, 10));
+    assertTrue(board.isMoveLegal(size - 2, size - 2));
+    assertEquals(Player.B, board.getCellOwner(size - 1, size - 1));
+    assertEquals(1, board.score(Player.B) - board.getHandSize(Player.B));
+
+    while (!board.isGameOver()) {
+      for (int y = size - 2; y < size; y++) {
+        for (int x = size - 2; x < size; x++) {
+          if (board.isMoveLegal(x, y)) {
+            board.playToBoard(0, x, y);
+          }
+        }
+      }
+    }
+    assertEquals(ZobristKeys.defaultKeys(size * size).hash(board), board.positionHash());
+    assertEquals(4, board.score(Player.A) + board.score(Player.B)
+            - board.getHandSize(Player.A) - board.getHandSize(Player.B));
+  }
+
+  @Test
+  public void testAdjacencyMatchesGrid() {
+    for (String boardName : List.of("nboard.config", "separatedboard.config")) {
+      Slot[][] grid = getBoard(boardName);
+      assertSameAdjacency(new Adjacency(grid),
+              new TiledBoard(grid, getCards("17cards.config")).getAdjacency());
+    }
+
+    //cells scattered over several tiles, with whole tiles left as holes
+    Random random = new Random(3);
+    TiledBoard.TiledBoardBuilder builder = new TiledBoard.TiledBoardBuilder(100, 70);
+    for (int y = 0; y < 70; y++) {
+      for (int x = 0; x < 100; x++) {
+        if (x < 32 || y >= 64 || random.nextInt(4) == 0) {
+          continue;
+        }
+        builder.addEmpty(x, y);
+      }
+    }
+    List<Card> deck = new ArrayList<>();
+    while (deck.size() < 6000) {
+      deck.addAll(getCards("17cards.config"));
+    }
+    TiledBoard board = builder.build(deck, new Random(), false);
+    assertSameAdjacency(new Adjacency(board.getGrid()), board.getAdjacency());
+  }
+
+  /**
+   * Asserts that two adjacencies give every cell the same neighbors, in the same order.
+   * @param expected the adjacency that is known to be correct
+   * @param actual the adjacency being checked
+   */
+  private void assertSameAdjacency(Adjacency expected, Adjacency actual) {
+    assertEquals(expected.width(), actual.width());
+    assertEquals(expected.height(), actual.height());
+    for (int cell = 0; cell < expected.width() * expected.height(); cell++) {
+      assertEquals(expected.isOpen(cell), actual.isOpen(cell));
+      assertEquals(expected.end(cell) - expected.start(cell),
+              actual.end(cell) - actual.start(cell));
+      for (int edge = 0; edge < expected.end(cell) - expected.start(cell); edge++) {
+        assertEquals(expected.target(expected.start(cell) + edge),
+                actual.target(actual.start(cell) + edge));
+        assertEquals(expected.direction(expected.start(cell) + edge),
+                actual.direction(actual.start(cell) + edge));
+      }
+    }
+  }
+
+  @Test
+  public void testBuilderInvalid() {
+    assertThrows(IllegalArgumentException.class, () -> new TiledBoard.TiledBoardBuilder(0, 5));
+    assertThrows(IllegalArgumentException.class,
+        () -> new TiledBoard.TiledBoardBuilder(100000, 100000));
+    TiledBoard.TiledBoardBuilder builder = new TiledBoard.TiledBoardBuilder(40, 40).addEmpty(3, 3);
+    assertThrows(IllegalArgumentException.class, () -> builder.addEmpty(3, 3));
+    assertThrows(IllegalArgumentException.class, () -> builder.addEmpty(40, 0));
+    assertThrows(IllegalArgumentException.class, () -> builder.addCard(1, 1, null));
+    assertThrows(IllegalArgumentException.class,
+        () -> builder.build(new ArrayList<>(), new Random(), false));
+  }
+}
@@ -0,0 +1,190 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import controller.ConfigParser;
+import model.BitBoard;
+import model.Board;
+import model.MoveRecord;
+import model.Player;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the alpha-beta search chooses exactly what a full search would.
+ */
+public class AlphaBetaTest {
+
+  /**
+   * Creates a started game on the strategy test board with a few moves already played.
+   * @param movesPlayed how many of the first legal moves to play
+   * @return the game
+   */
+  private Board gameAfter(int movesPlayed) {
+    Board board = new ConfigParser().createModelFromFiles(
+            "docs" + File.separator + "strategyTest.config",
+            "docs" + File.separator + "strategyCards.config", new Random(2));
+    board.startGame();
+    for (int played = 0; played < movesPlayed; played++) {
+      IMove move = new MostFlipped().chooseMove(board, board.curPlayer());
+      board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+    }
+    return board;
+  }
+
+  /**
+   * Scores a position for the player to move by searching every line of play, with no pruning.
+   * @param board the position
+   * @param depth how many moves to search
+   * @param evaluator the evaluator for the positions the search stops at
+   * @return the score of the position
+   */
+  private int fullSearch(Board board, int depth, Evaluator evaluator) {
+    if (depth == 0 || board.isGameOver()) {
+      return evaluator.evaluate(board, board.curPlayer());
+    }
+    int best = Integer.MIN_VALUE;
+    for (IMove move : this.allMoves(board)) {
+      MoveRecord played = board.playToBoardUndoable(move.handIdx(), move.xCord(), move.yCord());
+      best = Math.max(best, -this.fullSearch(board, depth - 1, evaluator));
+      board.undo(played);
+    }
+    return best;
+  }
+
+  /**
+   * Lists every legal move for the player to move, in tie-break order.
+   * @param board the position
+   * @return the moves, with no scores
+   */
+  private List<IMove> allMoves(Board board) {
+    List<IMove> moves = new ArrayList<>();
+    for (int y = 0; y < board.gameHeight(); y++) {
+      for (int x = 0; x < board.gameWidth(); x++) {
+        if (board.isMoveLegal(x, y)) {
+          for (int idx = 0; idx < board.getHandSize(board.curPlayer()); idx++) {
+            moves.add(new Move(idx, x, y, 0));
+          }
+        }
+      }
+    }
+    return moves;
+  }
+
+  /**
+   * Finds the best moves of a position by searching every line of play, with no pruning.
+   * @param model the position
+   * @param depth how many moves to search, counting the first
+   * @param evaluator the evaluator for the positions the search stops at
+   * @return the best moves in tie-break order, with their scores
+   */
+  private List<IMove> fullSearchBest(Board model, int depth, Evaluator evaluator) {
+    Board board = BitBoard.copyOf(model);
+    List<IMove> best = new ArrayList<>();
+    int bestScore = Integer.MIN_VALUE;
+    for (IMove move : this.allMoves(board)) {
+      MoveRecord played = board.playToBoardUndoable(move.handIdx(), move.xCord(), move.yCord());
+      int score = -this.fullSearch(board, depth - 1, evaluator);
+      board.undo(played);
+      if (score > bestScore) {
+        best.clear();
+        bestScore = score;
+      }
+      if (score == bestScore) {
+        best.add(new Move(move.handIdx(), move.xCord(), move.yCord(), score));
+      }
+    }
+    return best;
+  }
+
+  @Test
+  public void testMatchesFullSearch() {
+    for (int movesPlayed = 0; movesPlayed < 8; movesPlayed += 2) {
+      Board board = this.gameAfter(movesPlayed);
+      for (Evaluator evaluator : List.of(new ScoreDifference(), new FlipPotential())) {
+        for (int depth = 1; depth <= 3; depth++) {
+          AlphaBeta search = new AlphaBeta(depth, evaluator);
+          assertEquals(this.fullSearchBest(board, depth, evaluator),
+                  search.allBestMoveCandidates(board, board.curPlayer()));
+          assertTrue(search.lastNodeCount() > 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDepthOneFlipsTheMost() {
+    Board board = this.gameAfter(3);
+    List<IMove> flipped = new MostFlipped().allBestMoveCandidates(board, board.curPlayer());
+    List<IMove> searched = new AlphaBeta(1, new ScoreDifference())
+            .allBestMoveCandidates(board, board.curPlayer());
+    assertEquals(flipped.size(), searched.size());
+    for (int idx = 0; idx < flipped.size(); idx++) {
+      assertEquals(flipped.get(idx).handIdx(), searched.get(idx).handIdx());
+      assertEquals(flipped.get(idx).xCord(), searched.get(idx).xCord());
+      assertEquals(flipped.get(idx).yCord(), searched.get(idx).yCord());
+    }
+  }
+
+  @Test
+  public void testFlipPotentialScoresEachHandAsItsOwnersMove() {
+    Evaluator evaluator = new FlipPotential();
+    for (int seed = 0; seed < 4; seed++) {
+      Board game = StrategyFixtures.nBoardGame(seed);
+      Random moves = new Random(seed);
+      while (!game.isGameOver()) {
+        for (Board board : List.of(game, BitBoard.copyOf(game))) {
+          for (Player player : List.of(Player.A, Player.B)) {
+            //on a copy with them to move, each hand's flips are worked out as their own move
+            int expected = new ScoreDifference().evaluate(board, player)
+                    + mostFlipped(BitBoard.copyOf(board, player), player)
+                    - mostFlipped(BitBoard.copyOf(board, Player.nextPlayer(player)),
+                        Player.nextPlayer(player));
+            assertEquals(expected, evaluator.evaluate(board, player));
+          }
+        }
+        List<IMove> legal = this.allMoves(game);
+        IMove move = legal.get(moves.nextInt(legal.size()));
+        game.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+      }
+    }
+  }
+
+  /**
+   * Finds the most cards a player could flip with one card from their hand.
+   * @param board the position
+   * @param player the player placing a card
+   * @return the most cards flipped by any move
+   */
+  private static int mostFlipped(Board board, Player player) {
+    int most = 0;
+    for (int[] handCard : board.possibleCardsFlippedForHand(player)) {
+      for (int flipped : handCard) {
+        most = Math.max(most, flipped);
+      }
+    }
+    return most;
+  }
+
+  @Test
+  public void testLeavesModelUnchanged() {
+    Board board = this.gameAfter(2);
+    long hash = board.positionHash();
+    new AlphaBeta(3, new FlipPotential()).chooseMove(board, board.curPlayer());
+    assertEquals(hash, board.positionHash());
+    assertEquals(Player.A, board.curPlayer());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new AlphaBeta(0, new ScoreDifference()));
+    assertThrows(IllegalArgumentException.class, () -> new AlphaBeta(2, null));
+  }
+}
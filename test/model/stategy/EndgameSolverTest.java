@@ -0,0 +1,70 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import model.Board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the endgame solver plays the end of the game perfectly, and leaves the rest of the
+ * game to other strategies.
+ */
+public class EndgameSolverTest {
+
+  @Test
+  public void testMatchesFullSearch() {
+    for (int seed = 0; seed < 3; seed++) {
+      for (int cellsLeft = 1; cellsLeft <= 5; cellsLeft++) {
+        Board board = StrategyFixtures.nBoardGameWithCellsLeft(cellsLeft, seed);
+        EndgameSolver solver = new EndgameSolver(5);
+        assertEquals(new AlphaBeta(cellsLeft, new ScoreDifference())
+                        .allBestMoveCandidates(board, board.curPlayer()),
+                solver.allBestMoveCandidates(board, board.curPlayer()));
+        assertTrue(solver.lastNodeCount() > 0);
+      }
+    }
+  }
+
+  @Test
+  public void testRemembersSolvedPositions() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(6, 1);
+    EndgameSolver solver = new EndgameSolver(6, null, new TranspositionTable(1));
+    IMove first = solver.chooseMove(board, board.curPlayer());
+    long firstNodes = solver.lastNodeCount();
+    IMove second = solver.chooseMove(board, board.curPlayer());
+    assertEquals(first, second);
+    assertTrue(solver.lastNodeCount() < firstNodes);
+  }
+
+  @Test
+  public void testLeavesEarlierMovesToOthers() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(9, 2);
+    assertEquals(new MostFlipped().allBestMoveCandidates(board, board.curPlayer()),
+            new EndgameSolver(8, new MostFlipped())
+                    .allBestMoveCandidates(board, board.curPlayer()));
+
+    EndgameSolver alone = new EndgameSolver(8);
+    List<IMove> all = alone.allBestMoveCandidates(board, board.curPlayer());
+    assertEquals(9 * board.getHandSize(board.curPlayer()), all.size());
+    assertEquals(0, alone.lastNodeCount());
+    assertEquals(new MostFlipped().allBestMoveCandidates(board, board.curPlayer()),
+            new CombinedStrategy(alone, new MostFlipped())
+                    .allBestMoveCandidates(board, board.curPlayer()));
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(-1));
+    assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(3, null));
+    assertThrows(IllegalArgumentException.class,
+        () -> new EndgameSolver(3, new MostFlipped(), null));
+    assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(-1, new MostFlipped()));
+    assertThrows(IllegalArgumentException.class,
+        () -> new EndgameSolver(-1, null, new TranspositionTable(1)));
+  }
+}
@@ -0,0 +1,99 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for packed moves and the primitive list strategies fill with them.
+ */
+public class IntMoveListTest {
+
+  @Test
+  public void testPackRoundTrips() {
+    long move = MoveEncoding.pack(7, 3, 12);
+    assertEquals(7, MoveEncoding.handIdx(move));
+    assertEquals(3, MoveEncoding.xCord(move));
+    assertEquals(12, MoveEncoding.yCord(move));
+
+    long largest = MoveEncoding.pack(MoveEncoding.MAX_HAND_INDEX, MoveEncoding.MAX_COORDINATE,
+            MoveEncoding.MAX_COORDINATE);
+    assertTrue(largest > 0);
+    assertEquals(MoveEncoding.MAX_HAND_INDEX, MoveEncoding.handIdx(largest));
+    assertEquals(MoveEncoding.MAX_COORDINATE, MoveEncoding.xCord(largest));
+    assertEquals(MoveEncoding.MAX_COORDINATE, MoveEncoding.yCord(largest));
+
+    IMove unpacked = MoveEncoding.toMove(move, 4);
+    assertEquals(new Move(7, 3, 12, 4), unpacked);
+  }
+
+  @Test
+  public void testPackOrdersLikeTieBreaks() {
+    assertTrue(MoveEncoding.pack(5, 5, 0) < MoveEncoding.pack(0, 0, 1));
+    assertTrue(MoveEncoding.pack(5, 0, 1) < MoveEncoding.pack(0, 1, 1));
+    assertTrue(MoveEncoding.pack(0, 1, 1) < MoveEncoding.pack(1, 1, 1));
+  }
+
+  @Test
+  public void testNarrowRoundTrips() {
+    long move = MoveEncoding.pack(2047, 1023, 1023);
+    int narrowed = MoveEncoding.narrow(move, -1);
+    assertTrue(narrowed >= 0);
+    assertEquals(move, MoveEncoding.widen(narrowed));
+    assertEquals(MoveEncoding.pack(7, 3, 12), MoveEncoding.widen(MoveEncoding.narrow(
+            MoveEncoding.pack(7, 3, 12), -1)));
+    //moves with a part too large for an int are not narrowed
+    assertEquals(-1, MoveEncoding.narrow(MoveEncoding.pack(2048, 0, 0), -1));
+    assertEquals(-1, MoveEncoding.narrow(MoveEncoding.pack(0, 1024, 0), -1));
+    assertEquals(-1, MoveEncoding.narrow(MoveEncoding.pack(0, 0, 1024), -1));
+  }
+
+  @Test
+  public void testPackInvalid() {
+    assertThrows(IllegalArgumentException.class, () -> MoveEncoding.pack(-1, 0, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> MoveEncoding.pack(MoveEncoding.MAX_HAND_INDEX + 1, 0, 0));
+    assertThrows(IllegalArgumentException.class, () -> MoveEncoding.pack(0, -1, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> MoveEncoding.pack(0, 0, MoveEncoding.MAX_COORDINATE + 1));
+    assertThrows(IllegalArgumentException.class, () -> MoveEncoding.pack(null));
+  }
+
+  @Test
+  public void testListGrowsAndKeepsOrder() {
+    IntMoveList list = new IntMoveList(0);
+    for (int idx = 0; idx < 40; idx++) {
+      list.add(MoveEncoding.pack(idx, 0, 0), idx % 3);
+    }
+    assertEquals(40, list.size());
+    assertEquals(MoveEncoding.pack(25, 0, 0), list.move(25));
+    assertEquals(1, list.score(25));
+    list.setScore(25, 9);
+    assertEquals(9, list.score(25));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.move(40));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.score(-1));
+    assertThrows(IllegalArgumentException.class, () -> new IntMoveList(-1));
+
+    list.clear();
+    assertTrue(list.isEmpty());
+  }
+
+  @Test
+  public void testKeepHighestAndLowest() {
+    IntMoveList list = IntMoveList.of(List.of(new Move(0, 0, 0, 2), new Move(1, 0, 0, 5),
+            new Move(0, 1, 0, 2), new Move(1, 1, 0, 5)));
+    list.keepHighest();
+    assertEquals(List.of(new Move(1, 0, 0, 5), new Move(1, 1, 0, 5)),
+            list.toMoves());
+
+    list = IntMoveList.of(List.of(new Move(0, 0, 0, 2), new Move(1, 0, 0, 5),
+            new Move(0, 1, 0, 2)));
+    list.keepLowest();
+    assertEquals(List.of(new Move(0, 0, 0, 2), new Move(0, 1, 0, 2)),
+            list.toMoves());
+  }
+}
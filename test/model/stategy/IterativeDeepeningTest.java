@@ -0,0 +1,154 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import controller.ConfigParser;
+import model.AttackValue;
+import model.BitBoard;
+import model.Board;
+import model.Card;
+import model.Direction;
+import model.Empty;
+import model.Player;
+import model.Slot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that iterative deepening answers like the search it deepens when it has time, and still
+ * answers when it does not.
+ */
+public class IterativeDeepeningTest {
+
+  /**
+   * Creates a started game on an open grid of the given size, with random cards.
+   * @param size the width and height of the grid
+   * @return the game
+   */
+  private Board openGame(int size) {
+    Random random = new Random(7);
+    Slot[][] grid = new Slot[size][size];
+    for (Slot[] row : grid) {
+      for (int col = 0; col < size; col++) {
+        row[col] = new Empty();
+      }
+    }
+    List<Card> cards = new ArrayList<>();
+    for (int idx = 0; idx <= size * size; idx++) {
+      Card.CardBuilder builder = new Card.CardBuilder().addName("c" + idx).addPlayer(Player.A);
+      for (Direction dir : Direction.values()) {
+        builder.addValue(dir, AttackValue.values()[random.nextInt(AttackValue.values().length)]);
+      }
+      cards.add(builder.build());
+    }
+    Board board = new BitBoard(grid, cards, random, false);
+    board.startGame();
+    return board;
+  }
+
+  @Test
+  public void testMatchesSearchWithTime() {
+    Board board = new ConfigParser().createModelFromFiles(
+            "docs" + File.separator + "strategyTest.config",
+            "docs" + File.separator + "strategyCards.config", new Random(2));
+    board.startGame();
+    board.playToBoard(0, 0, 0);
+    board.playToBoard(0, 1, 0);
+    board.playToBoard(0, 3, 0);
+    board.playToBoard(0, 0, 1);
+
+    AlphaBeta search = new AlphaBeta(10, new ScoreDifference());
+    IterativeDeepening deepening = new IterativeDeepening(search, 60000);
+    List<IMove> expected = search.allBestMoveCandidates(board, board.curPlayer());
+    assertEquals(expected, deepening.allBestMoveCandidates(board, board.curPlayer()));
+    //there are only six cells left, so searching deeper than that would find nothing new
+    assertEquals(6, deepening.lastDepthReached());
+    assertTrue(deepening.lastNodeCount() > 0);
+  }
+
+  @Test
+  public void testAnswersWithinDeadline() {
+    Board board = this.openGame(8);
+    IterativeDeepening deepening =
+            new IterativeDeepening(new AlphaBeta(20, new ScoreDifference()), 200);
+    long start = System.nanoTime();
+    IMove move = deepening.chooseMove(board, Player.A);
+    long tookMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertTrue(board.isMoveLegal(move.xCord(), move.yCord()));
+    assertTrue(deepening.lastDepthReached() >= 1);
+    assertTrue(deepening.lastDepthReached() < 20);
+    assertTrue("took " + tookMillis + "ms", tookMillis < 5000);
+  }
+
+  @Test
+  public void testAnswersWithinDeadlineOnLargeBoard() {
+    //once the one move deep search is done, each reply searched reads a board of a thousand
+    //cells and a hand of five hundred cards, and is mostly cut off after one move
+    Board board = this.openGame(32);
+    IterativeDeepening deepening =
+            new IterativeDeepening(new AlphaBeta(20, new ScoreDifference()), 2000);
+    long start = System.nanoTime();
+    IMove move = deepening.chooseMove(board, Player.A);
+    long tookMillis = (System.nanoTime() - start) / 1_000_000;
+
+    assertTrue(board.isMoveLegal(move.xCord(), move.yCord()));
+    assertTrue("took " + tookMillis + "ms", tookMillis < 3000);
+  }
+
+  @Test
+  public void testFirstLegalMoveWhenNothingFinishes() {
+    Board board = this.openGame(8);
+    IterativeDeepening deepening =
+            new IterativeDeepening(new AlphaBeta(20, new FlipPotential()), 1);
+    IMove move = deepening.chooseMove(board, Player.A);
+    if (deepening.lastDepthReached() == 0) {
+      assertEquals(new Move(0, 0, 0, 0), move);
+    }
+    assertTrue(board.isMoveLegal(move.xCord(), move.yCord()));
+  }
+
+  @Test
+  public void testCancel() throws InterruptedException {
+    Board board = this.openGame(8);
+    IterativeDeepening deepening =
+            new IterativeDeepening(new AlphaBeta(20, new FlipPotential()), 600000);
+    List<IMove> chosen = new ArrayList<>();
+    Thread searching = new Thread(() -> chosen.add(deepening.chooseMove(board, Player.A)));
+    searching.start();
+    Thread.sleep(100);
+    deepening.cancel();
+    searching.join(10000);
+
+    assertEquals(1, chosen.size());
+    assertTrue(board.isMoveLegal(chosen.get(0).xCord(), chosen.get(0).yCord()));
+    assertTrue(deepening.lastDepthReached() < 20);
+  }
+
+  @Test
+  public void testCancelBeforeChoosing() {
+    Board board = this.openGame(4);
+    IterativeDeepening deepening =
+            new IterativeDeepening(new AlphaBeta(3, new ScoreDifference()), 600000);
+    //a cancel that comes before the choice starts still stops it, and only it
+    deepening.cancel();
+    assertEquals(new Move(0, 0, 0, 0), deepening.chooseMove(board, Player.A));
+    assertEquals(0, deepening.lastDepthReached());
+    deepening.chooseMove(board, Player.A);
+    assertEquals(3, deepening.lastDepthReached());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new IterativeDeepening(null, 10));
+    assertThrows(IllegalArgumentException.class,
+        () -> new IterativeDeepening(new AlphaBeta(2, new ScoreDifference()), 0));
+  }
+}
@@ -0,0 +1,131 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+import controller.ConfigParser;
+import model.Board;
+import model.ThreeTriosBoard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Tests that a memoized strategy chooses exactly what the strategy it wraps would, and that it
+ * remembers and forgets choices as it should.
+ */
+public class MemoizedStrategyTest {
+
+  @Test
+  public void testChoosesLikeStrategyWrapped() {
+    Board board = StrategyFixtures.nBoardGame(5);
+    MemoizedStrategy memo = new MemoizedStrategy(new MostFlipped(), 64);
+    InfallibleStategy minimax = new Minimax(new MostFlipped());
+    InfallibleStategy memoMinimax = new Minimax(memo);
+    //the N shaped board has 15 cells, and minimax needs a reply to the move it chooses
+    for (int played = 0; played < 15; played++) {
+      List<IMove> expected = new MostFlipped().allBestMoveCandidates(board, board.curPlayer());
+      assertEquals(expected, memo.allBestMoveCandidates(board, board.curPlayer()));
+      assertEquals(expected, memo.allBestMoveCandidates(board, board.curPlayer()));
+      if (played < 14) {
+        assertEquals(minimax.allBestMoveCandidates(board, board.curPlayer()),
+                memoMinimax.allBestMoveCandidates(board, board.curPlayer()));
+      }
+      IMove move = expected.get(0);
+      board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+    }
+  }
+
+  @Test
+  public void testRemembersChoices() {
+    Board board = StrategyFixtures.nBoardGame(5);
+    MemoizedStrategy memo = new MemoizedStrategy(new GoForCorners(), 4);
+    IMove first = memo.chooseMove(board, board.curPlayer());
+    assertEquals(first, memo.chooseMove(board, board.curPlayer()));
+    assertEquals(1, memo.hitCount());
+    assertEquals(1, memo.missCount());
+
+    //different options are a different choice
+    memo.chooseFromOptions(List.of(first), board, board.curPlayer());
+    assertEquals(2, memo.missCount());
+
+    //changing a list handed out does not change what is remembered
+    memo.allBestMoveCandidates(board, board.curPlayer()).clear();
+    assertEquals(first, memo.chooseMove(board, board.curPlayer()));
+    assertEquals(3, memo.hitCount());
+
+    memo.clear();
+    memo.chooseMove(board, board.curPlayer());
+    assertEquals(3, memo.missCount());
+  }
+
+  @Test
+  public void testForgetsLeastRecentlyUsed() {
+    Board board = StrategyFixtures.nBoardGame(5);
+    MemoizedStrategy memo = new MemoizedStrategy(new MostFlipped(), 1);
+    memo.chooseMove(board, board.curPlayer());
+    IMove move = memo.chooseMove(board, board.curPlayer());
+    board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+    memo.chooseMove(board, board.curPlayer());
+    memo.chooseMove(board, board.curPlayer());
+    assertEquals(2, memo.hitCount());
+    assertEquals(2, memo.missCount());
+
+    Board other = StrategyFixtures.nBoardGame(5);
+    memo.chooseMove(other, other.curPlayer());
+    assertEquals(3, memo.missCount());
+  }
+
+  /**
+   * Creates a game on the small strategy test board, with B dealt six weak cards and A dealt
+   * five weak cards and a strong one, at the given index of A's hand. A has played a weak card to
+   * the top left, and B a weak one to the top right, which only the strong card can flip.
+   * @param strongIdx where the strong card is in A's hand, which must not be 1
+   * @return the game
+   */
+  private Board gameWithStrongCardAt(int strongIdx) {
+    StringBuilder cards = new StringBuilder();
+    for (int idx = 0; idx < 6; idx++) {
+      cards.append("B").append(idx).append(" 1 1 1 1\n");
+    }
+    for (int idx = 0; idx < 6; idx++) {
+      cards.append(idx == strongIdx ? "Strong 9 9 9 9\n" : "Weak 1 1 1 1\n");
+    }
+    ConfigParser parser = new ConfigParser();
+    try {
+      Board board = new ThreeTriosBoard(parser.parseBoard(new Scanner(new File(
+              "docs" + File.separator + "strategyTest.config"))),
+              parser.parseCards(new Scanner(cards.toString())), new Random(), false);
+      board.startGame();
+      board.playToBoard(1, 0, 0);
+      board.playToBoard(0, 3, 0);
+      return board;
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("file name does not exist");
+    }
+  }
+
+  @Test
+  public void testHandOrderIsPartOfTheChoice() {
+    //the same cards in a different order are the same position, but not the same hand indices
+    Board strongFirst = this.gameWithStrongCardAt(0);
+    Board strongLast = this.gameWithStrongCardAt(5);
+    assertEquals(strongFirst.positionHash(), strongLast.positionHash());
+    MemoizedStrategy memo = new MemoizedStrategy(new MostFlipped(), 4);
+    assertEquals(0, memo.chooseMove(strongFirst, strongFirst.curPlayer()).handIdx());
+    assertEquals(4, memo.chooseMove(strongLast, strongLast.curPlayer()).handIdx());
+    assertEquals(2, memo.missCount());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new MemoizedStrategy(null, 4));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MemoizedStrategy(new MostFlipped(), 0));
+  }
+}
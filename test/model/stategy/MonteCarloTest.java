@@ -0,0 +1,98 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import model.BitBoard;
+import model.Board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the Monte Carlo tree search strategy.
+ */
+public class MonteCarloTest {
+
+  @Test
+  public void testSameSeedSameMoves() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(8, 6);
+    for (MonteCarlo.Playout playout : MonteCarlo.Playout.values()) {
+      List<IMove> first = new MonteCarlo.MonteCarloBuilder().addSeed(3).addPlayouts(300)
+              .addPlayout(playout).build().allBestMoveCandidates(board, board.curPlayer());
+      List<IMove> second = new MonteCarlo.MonteCarloBuilder().addSeed(3).addPlayouts(300)
+              .addPlayout(playout).build().allBestMoveCandidates(board, board.curPlayer());
+      assertEquals(first, second);
+    }
+  }
+
+  @Test
+  public void testFindsWinningMoves() {
+    for (int cellsLeft = 2; cellsLeft <= 3; cellsLeft++) {
+      Board board = StrategyFixtures.nBoardGameWithCellsLeft(cellsLeft, 6);
+      AlphaBeta exact = new AlphaBeta(cellsLeft, new ScoreDifference());
+      int bestScore = exact.chooseMove(board, board.curPlayer()).score();
+      IMove move = new MonteCarlo.MonteCarloBuilder().addSeed(1).addPlayouts(3000).build()
+              .chooseMove(board, board.curPlayer());
+
+      //the move chosen must do as well as the best move at winning, drawing or losing
+      Board after = BitBoard.copyOf(board);
+      after.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+      int score = -new AlphaBeta(cellsLeft - 1, new ScoreDifference())
+              .chooseMove(after, after.curPlayer()).score();
+      assertEquals(Integer.signum(bestScore), Integer.signum(score));
+    }
+  }
+
+  @Test
+  public void testThreadsShareThePlayouts() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(8, 6);
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      MonteCarlo search = new MonteCarlo.MonteCarloBuilder().addSeed(2).addPlayouts(600)
+              .addThreads(3).addPool(pool).build();
+      IMove move = search.chooseMove(board, board.curPlayer());
+      assertTrue(board.isMoveLegal(move.xCord(), move.yCord()));
+      assertEquals(600, search.lastPlayoutCount());
+      assertTrue(move.score() > 0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testReusesTreeAfterMoves() {
+    for (boolean reuse : List.of(true, false)) {
+      Board board = StrategyFixtures.nBoardGameWithCellsLeft(6, 6);
+      MonteCarlo search = new MonteCarlo.MonteCarloBuilder().addSeed(4).addPlayouts(2000)
+              .addTreeReuse(reuse).build();
+      IMove move = search.chooseMove(board, board.curPlayer());
+      assertEquals(2000, search.lastTreePlayoutCount());
+      board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+      IMove reply = new MostFlipped().chooseMove(board, board.curPlayer());
+      board.playToBoard(reply.handIdx(), reply.xCord(), reply.yCord());
+
+      search.chooseMove(board, board.curPlayer());
+      assertEquals(2000, search.lastPlayoutCount());
+      //a kept tree still counts the earlier playouts that went through this position
+      assertEquals(reuse, search.lastTreePlayoutCount() > 2000);
+    }
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new MonteCarlo.MonteCarloBuilder().addPlayouts(-1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MonteCarlo.MonteCarloBuilder().addTimeBudget(-1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MonteCarlo.MonteCarloBuilder().addThreads(0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MonteCarlo.MonteCarloBuilder().addPool(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MonteCarlo.MonteCarloBuilder().addPlayout(null));
+  }
+}
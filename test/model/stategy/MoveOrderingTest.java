@@ -0,0 +1,108 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import model.Board;
+import model.Player;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a move ordering lists every legal move once, in the order it ranks them.
+ */
+public class MoveOrderingTest {
+
+  /**
+   * Lists every legal move of the player to move, in tie-break order.
+   * @param board the position
+   * @return the packed moves
+   */
+  private long[] allMoves(Board board) {
+    IntMoveList moves = new IntMoveList(0);
+    for (int y = 0; y < board.gameHeight(); y++) {
+      for (int x = 0; x < board.gameWidth(); x++) {
+        if (board.isMoveLegal(x, y)) {
+          for (int idx = 0; idx < board.getHandSize(board.curPlayer()); idx++) {
+            moves.add(MoveEncoding.pack(idx, x, y), 0);
+          }
+        }
+      }
+    }
+    long[] ret = new long[moves.size()];
+    for (int idx = 0; idx < ret.length; idx++) {
+      ret[idx] = moves.move(idx);
+    }
+    return ret;
+  }
+
+  @Test
+  public void testListsEveryMoveOnce() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(12, 4);
+    long[] ordered = new MoveOrdering().order(board, board.curPlayer(), 0,
+            TranspositionTable.NO_MOVE);
+    long[] sorted = ordered.clone();
+    Arrays.sort(sorted);
+    assertArrayEquals(this.allMoves(board), sorted);
+  }
+
+  @Test
+  public void testMostFlipsFirst() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(12, 4);
+    Player toMove = board.curPlayer();
+    long[] ordered = new MoveOrdering().order(board, toMove, 0, TranspositionTable.NO_MOVE);
+    for (int idx = 1; idx < ordered.length; idx++) {
+      assertTrue(this.flips(board, ordered[idx - 1]) >= this.flips(board, ordered[idx]));
+    }
+  }
+
+  @Test
+  public void testFirstMoveThenKillers() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(12, 4);
+    Player toMove = board.curPlayer();
+    long[] moves = this.allMoves(board);
+    long first = moves[moves.length - 1];
+    long killer = moves[moves.length - 2];
+
+    MoveOrdering ordering = new MoveOrdering();
+    ordering.newSearch(4);
+    ordering.cutoff(killer, toMove, 2, 3);
+    long[] atPly = ordering.order(board, toMove, 2, first);
+    assertEquals(first, atPly[0]);
+    assertEquals(killer, atPly[1]);
+    //killers only count at the distance from the root they were found at
+    MoveOrdering elsewhere = new MoveOrdering();
+    elsewhere.newSearch(4);
+    elsewhere.cutoff(killer, toMove, 3, 3);
+    assertArrayEquals(elsewhere.order(board, toMove, 1, first),
+            ordering.order(board, toMove, 1, first));
+  }
+
+  @Test
+  public void testOrdersOptionsWithIllegalLast() {
+    Board board = StrategyFixtures.nBoardGameWithCellsLeft(12, 4);
+    long[] moves = this.allMoves(board);
+    IntMoveList options = new IntMoveList(3);
+    options.add(MoveEncoding.pack(0, 1, 1), 0);
+    options.add(moves[0], 0);
+    options.add(MoveEncoding.pack(99, MoveEncoding.xCord(moves[0]),
+            MoveEncoding.yCord(moves[0])), 0);
+    int[] order = new MoveOrdering().order(options, board, board.curPlayer());
+    assertEquals(1, order[0]);
+    assertArrayEquals(new int[]{0, 2}, Arrays.copyOfRange(order, 1, 3));
+  }
+
+  /**
+   * The number of cards a packed move would flip.
+   * @param board the position
+   * @param move the packed move
+   * @return the number of cards flipped
+   */
+  private int flips(Board board, long move) {
+    return board.possibleCardsFlipped(board.getHand(board.curPlayer())
+            .get(MoveEncoding.handIdx(move)), MoveEncoding.xCord(move), MoveEncoding.yCord(move));
+  }
+}
@@ -0,0 +1,80 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import controller.ConfigParser;
+import model.Board;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Tests that choosing moves in parallel chooses exactly what the strategy would on its own.
+ */
+public class ParallelRootTest {
+
+  @Test
+  public void testMatchesSequentialStrategies() {
+    List<InfallibleStategy> strategies = List.of(new MostFlipped(), new GoForCorners(),
+            new LeastChanceOfBeingFlipped(), new Minimax(new MostFlipped()),
+            new CombinedStrategy(new MostFlipped(), new GoForCorners()),
+            new AlphaBeta(2, new FlipPotential()));
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (String boardName : List.of("nboard.config", "strategyTest.config")) {
+        String cardsName = boardName.equals("nboard.config")
+                ? "17cards.config" : "strategyCards.config";
+        Board board = new ConfigParser().createModelFromFiles(
+                "docs" + File.separator + boardName,
+                "docs" + File.separator + cardsName, new Random(4));
+        board.startGame();
+        //Minimax cannot look for a reply to the last move, so stop before it
+        while (StrategyFixtures.openCells(board) > 1) {
+          for (InfallibleStategy strategy : strategies) {
+            InfallibleStategy parallel = new ParallelRoot(strategy, pool);
+            assertEquals(strategy.allBestMoveCandidates(board, board.curPlayer()),
+                    parallel.allBestMoveCandidates(board, board.curPlayer()));
+          }
+          IMove move = new MostFlipped().chooseMove(board, board.curPlayer());
+          board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testDoesNotSplitMonteCarlo() {
+    Board board = StrategyFixtures.nBoardGame(4);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      MonteCarlo search = new MonteCarlo.MonteCarloBuilder().addSeed(3).addPlayouts(300).build();
+      List<IMove> expected = new MonteCarlo.MonteCarloBuilder().addSeed(3).addPlayouts(300)
+              .build().allBestMoveCandidates(board, board.curPlayer());
+      assertEquals(expected, new ParallelRoot(search, pool)
+              .allBestMoveCandidates(board, board.curPlayer()));
+      //one search of every move, not one for each run and another for the finalists
+      assertEquals(300, search.lastTreePlayoutCount());
+
+      MonteCarlo inside = new MonteCarlo.MonteCarloBuilder().addSeed(3).addPlayouts(300).build();
+      assertEquals(expected, new ParallelRoot(new MemoizedStrategy(inside, 4), pool)
+              .allBestMoveCandidates(board, board.curPlayer()));
+      assertEquals(300, inside.lastTreePlayoutCount());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new ParallelRoot(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ParallelRoot(new MostFlipped(), null));
+  }
+}
@@ -0,0 +1,195 @@
+package model.stategy;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+import controller.ConfigParser;
+import model.AttackValue;
+import model.Board;
+import model.Card;
+import model.Player;
+import model.ThreeTriosBoard;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that pruning cards out of hands never changes the move a strategy chooses.
+ */
+public class PrunedHandsTest {
+
+  //B is dealt the first half of the cards, so B's hand is these, in this order
+  private static final String PRUNABLE_HAND = "D0 5 5 5 5\nD1 5 5 5 5\nD2 6 5 5 5\n"
+          + "D3 1 1 1 1\nD4 9 1 1 1\nD5 9 1 1 1\n";
+
+  //a rule where the lower value wins, so an attack value at least as high is no better
+  private static final Comparator<AttackValue> LOWER_WINS = (o1, o2) -> o2.value - o1.value;
+
+  private final ConfigParser parser = new ConfigParser();
+
+  /**
+   * Creates a started game on the given board with the given cards, dealt in order.
+   * @param boardName the board config to play on
+   * @param cards the cards, in the card config format
+   * @return the game
+   */
+  private Board game(String boardName, String cards) {
+    return this.game(boardName, cards, null);
+  }
+
+  /**
+   * Creates a started game on the given board with the given cards, dealt in order, played by
+   * the given rule.
+   * @param boardName the board config to play on
+   * @param cards the cards, in the card config format
+   * @param rule the rule to give every card, or null to keep the default one
+   * @return the game
+   */
+  private Board game(String boardName, String cards, Comparator<AttackValue> rule) {
+    try {
+      Board board = new ThreeTriosBoard(
+              this.parser.parseBoard(new Scanner(new File("docs" + File.separator + boardName))),
+              this.parser.parseCards(new Scanner(cards)), new Random(), false);
+      if (rule != null) {
+        board.addRuleToCards(rule);
+      }
+      board.startGame();
+      return board;
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("file name does not exist");
+    }
+  }
+
+  /**
+   * Creates a started game on the N shaped board whose deck has each card of the 17 card deck
+   * twice, under different names, shuffled.
+   * @param seed the seed to shuffle with
+   * @return the game
+   */
+  private Board doubledDeckGame(int seed) {
+    return this.doubledDeckGame(seed, null);
+  }
+
+  /**
+   * Creates a started game on the N shaped board whose deck has each card of the 17 card deck
+   * twice, under different names, shuffled, played by the given rule.
+   * @param seed the seed to shuffle with
+   * @param rule the rule to give every card, or null to keep the default one
+   * @return the game
+   */
+  private Board doubledDeckGame(int seed, Comparator<AttackValue> rule) {
+    try {
+      List<Card> deck = new ArrayList<>();
+      for (String name : List.of("17cards.config", "17cards.config")) {
+        deck.addAll(this.parser.parseCards(
+                new Scanner(new File("docs" + File.separator + name))));
+      }
+      Board board = new ThreeTriosBoard(
+              this.parser.parseBoard(new Scanner(new File("docs" + File.separator
+                      + "nboard.config"))), deck, new Random(seed), true);
+      if (rule != null) {
+        board.addRuleToCards(rule);
+      }
+      board.startGame();
+      return board;
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("file name does not exist");
+    }
+  }
+
+  @Test
+  public void testPrunedCards() {
+    Board board = this.game("strategyTest.config", PRUNABLE_HAND + PRUNABLE_HAND);
+    assertArrayEquals(new boolean[6], HandPruning.NONE.prunedCards(board, Player.B));
+    assertArrayEquals(new boolean[]{false, true, false, false, false, true},
+            HandPruning.IDENTICAL.prunedCards(board, Player.B));
+    assertArrayEquals(new boolean[]{false, true, false, true, false, true},
+            HandPruning.DOMINATED.prunedCards(board, Player.B));
+    assertTrue(HandPruning.DOMINATED.prunesAtLeast(HandPruning.IDENTICAL));
+    assertEquals(HandPruning.NONE, HandPruning.weakest(HandPruning.IDENTICAL, HandPruning.NONE));
+  }
+
+  @Test
+  public void testChoosesSameMoves() {
+    for (int seed = 0; seed < 3; seed++) {
+      Board board = this.doubledDeckGame(seed);
+      for (int played = 0; played < 15; played++) {
+        Player player = board.curPlayer();
+        for (InfallibleStategy strategy : List.of(new MostFlipped(), new GoForCorners(),
+                new LeastChanceOfBeingFlipped(),
+                new CombinedStrategy(new LeastChanceOfBeingFlipped(), new MostFlipped()),
+                new AlphaBeta(2, new ScoreDifference()))) {
+          PrunedHands pruned = new PrunedHands(strategy,
+                  InfallibleTTStrategy.soundHandPruning(strategy));
+          List<IMove> all = strategy.allBestMoveCandidates(board, player);
+          List<IMove> kept = pruned.allBestMoveCandidates(board, player);
+          assertEquals(all.get(0), kept.get(0));
+          assertTrue(all.containsAll(kept));
+        }
+        IMove move = new GoForCorners().chooseMove(board, player);
+        board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+      }
+    }
+  }
+
+  @Test
+  public void testDominatedOnlyPrunesIdenticalByOtherRules() {
+    Board board = this.game("strategyTest.config", PRUNABLE_HAND + PRUNABLE_HAND, LOWER_WINS);
+    assertArrayEquals(HandPruning.IDENTICAL.prunedCards(board, Player.B),
+            HandPruning.DOMINATED.prunedCards(board, Player.B));
+
+    for (int seed = 0; seed < 3; seed++) {
+      Board reversed = this.doubledDeckGame(seed, LOWER_WINS);
+      for (int played = 0; played < 15; played++) {
+        Player player = reversed.curPlayer();
+        for (InfallibleStategy strategy : List.of(new MostFlipped(), new GoForCorners(),
+                new LeastChanceOfBeingFlipped())) {
+          PrunedHands pruned = new PrunedHands(strategy, HandPruning.DOMINATED);
+          assertEquals(strategy.chooseMove(reversed, player),
+                  pruned.chooseMove(reversed, player));
+        }
+        IMove move = new GoForCorners().chooseMove(reversed, player);
+        reversed.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+      }
+    }
+  }
+
+  @Test
+  public void testSearchSkipsIdenticalCards() {
+    Board board = this.doubledDeckGame(1);
+    for (int played = 0; played < 4; played++) {
+      IMove move = new GoForCorners().chooseMove(board, board.curPlayer());
+      board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+    }
+    AlphaBeta full = new AlphaBeta(3, new ScoreDifference());
+    AlphaBeta pruned = new AlphaBeta(3, new ScoreDifference(), HandPruning.IDENTICAL);
+    List<IMove> all = full.allBestMoveCandidates(board, board.curPlayer());
+    List<IMove> kept = pruned.allBestMoveCandidates(board, board.curPlayer());
+    assertEquals(all.get(0), kept.get(0));
+    assertTrue(all.containsAll(kept));
+    assertTrue(pruned.lastNodeCount() < full.lastNodeCount());
+  }
+
+  @Test
+  public void testUnsoundPruning() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new PrunedHands(new AlphaBeta(2, new ScoreDifference()), HandPruning.DOMINATED));
+    assertThrows(IllegalArgumentException.class,
+        () -> new PrunedHands(new Minimax(new MostFlipped()), HandPruning.DOMINATED));
+    assertThrows(IllegalArgumentException.class,
+        () -> new AlphaBeta(2, new ScoreDifference(), HandPruning.DOMINATED));
+    assertThrows(IllegalArgumentException.class,
+        () -> new PrunedHands(new MostFlipped(), null));
+    assertThrows(IllegalArgumentException.class,
+        () -> new PrunedHands(null, HandPruning.NONE));
+  }
+}
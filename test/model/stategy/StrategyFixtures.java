@@ -0,0 +1,63 @@
+package model.stategy;
+
+import java.io.File;
+import java.util.Random;
+
+import controller.ConfigParser;
+import model.Board;
+import model.ReadOnlyBoard;
+
+/**
+ * Games the strategy tests play in, and what they count about them.
+ */
+final class StrategyFixtures {
+
+  private StrategyFixtures() {
+  }
+
+  /**
+   * Creates a started game on the N shaped board with the 17 card deck.
+   * @param seed the seed to deal the cards with
+   * @return the game
+   */
+  static Board nBoardGame(int seed) {
+    Board board = new ConfigParser().createModelFromFiles(
+            "docs" + File.separator + "nboard.config",
+            "docs" + File.separator + "17cards.config", new Random(seed));
+    board.startGame();
+    return board;
+  }
+
+  /**
+   * Creates a started game on the N shaped board with the 17 card deck, with the moves
+   * GoForCorners chooses already played until only the given number of cells are left.
+   * @param cellsLeft how many cells to leave open
+   * @param seed the seed to deal the cards with
+   * @return the game
+   */
+  static Board nBoardGameWithCellsLeft(int cellsLeft, int seed) {
+    Board board = nBoardGame(seed);
+    while (openCells(board) > cellsLeft) {
+      IMove move = new GoForCorners().chooseMove(board, board.curPlayer());
+      board.playToBoard(move.handIdx(), move.xCord(), move.yCord());
+    }
+    return board;
+  }
+
+  /**
+   * Counts the cells that can still be played to.
+   * @param board the game
+   * @return the number of open cells
+   */
+  static int openCells(ReadOnlyBoard board) {
+    int open = 0;
+    for (int y = 0; y < board.gameHeight(); y++) {
+      for (int x = 0; x < board.gameWidth(); x++) {
+        if (board.isMoveLegal(x, y)) {
+          open += 1;
+        }
+      }
+    }
+    return open;
+  }
+}
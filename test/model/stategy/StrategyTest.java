@@ -4,16 +4,23 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Scanner;
 
 import model.Board;
+import model.Card;
+import model.TiledBoard;
 import controller.ConfigParser;
 import model.mocks.FlippedCardsGreatestAtCoordMock;
 import model.mocks.NoOpenCornersMock;
 import model.mocks.NoValidMovesMock;
 import model.mocks.OnlyOneValidMoveMock;
 import model.Player;
+import model.ReadOnlyBoard;
+import model.ViewModel;
 import model.mocks.RecordCheckedPositionsAndFlippedMock;
 
 import static org.junit.Assert.assertEquals;
@@ -160,6 +167,37 @@ public class StrategyTest {
                     new Move(1, 3, 1, 0)));
   }
 
+  @Test
+  public void chooseFromOptionsMostFlippedOnlyWorksOutTheCellsAsked() {
+    int[] wholeBoard = new int[1];
+    ReadOnlyBoard counting = new ViewModel(mtBoard) {
+      @Override
+      public int[][] possibleCardsFlippedForHand(Player player) {
+        wholeBoard[0]++;
+        return super.possibleCardsFlippedForHand(player);
+      }
+    };
+    assertEquals(mostFlipped.chooseFromOptions(selectiveMoveList, counting, Player.A),
+            List.of(new Move(1, 0, 1, 0),
+                    new Move(1, 2, 2, 0)));
+    assertEquals(0, wholeBoard[0]);
+  }
+
+  @Test
+  public void turnContextFlipsMatchWholeBoard() {
+    int[][] expected = halfBoard.possibleCardsFlippedForHand(Player.A);
+    TurnContext context = new TurnContext(halfBoard, Player.A);
+    for (int y = 0; y < halfBoard.gameHeight(); y++) {
+      for (int x = 0; x < halfBoard.gameWidth(); x++) {
+        for (int idx = 0; idx < expected.length; idx++) {
+          assertEquals(expected[idx][y * halfBoard.gameWidth() + x], context.flips(idx, x, y));
+        }
+      }
+    }
+    assertThrows(IndexOutOfBoundsException.class, () -> context.flips(0, halfBoard.gameWidth(), 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> context.flips(0, 0, -1));
+  }
+
   @Test
   public void allBestMoveCandidatesMostFlipped() {
     assertEquals(mostFlipped.allBestMoveCandidates(halfBoard, Player.B),
@@ -364,6 +402,25 @@ public class StrategyTest {
                     new Move(1, 3, 2, 9)));
   }
 
+  @Test
+  public void allBestMoveCandidatesMiniMaxWithTable() {
+    TranspositionTable table = new TranspositionTable(1);
+    InfallibleStategy remembering = new Minimax(new MostFlipped(), table);
+    assertEquals(minimaxFlipped.allBestMoveCandidates(halfBoard, Player.A),
+            remembering.allBestMoveCandidates(halfBoard, Player.A));
+    assertEquals(0, table.hits());
+
+    assertEquals(minimaxFlipped.allBestMoveCandidates(halfBoard, Player.A),
+            remembering.allBestMoveCandidates(halfBoard, Player.A));
+    assertEquals(table.misses(), table.hits());
+    assertThrows(IllegalArgumentException.class, () -> new Minimax(new MostFlipped(), null));
+
+    //a minimax with another enemy strategy sharing the table does not read these replies
+    InfallibleStategy sharing = new Minimax(new GoForCorners(), table);
+    assertEquals(new Minimax(new GoForCorners()).allBestMoveCandidates(halfBoard, Player.A),
+            sharing.allBestMoveCandidates(halfBoard, Player.A));
+  }
+
   @Test
   public void chooseMoveCombinedStrategy() {
     onlyOneOpenSquare(combinedFlipCorner);
@@ -404,6 +461,66 @@ public class StrategyTest {
             List.of(new Move(0, 3, 2, 12)));
   }
 
+  @Test
+  public void allBestMoveCandidatesOnBoardsWiderThan1024() {
+    //the same island in the corner of a small board and of one too wide for 10 bit coordinates
+    int width = 3000;
+    int height = 1100;
+    TiledBoard small = islandInCorner(40, 40);
+    TiledBoard large = islandInCorner(width, height);
+    List<InfallibleStategy> strategies = List.of(new MostFlipped(), new GoForCorners(),
+            new EndgameSolver(3), new AlphaBeta(2, new ScoreDifference()));
+    for (InfallibleStategy strategy : strategies) {
+      for (IMove move : strategy.allBestMoveCandidates(large, Player.A)) {
+        assertTrue(large.isMoveLegal(move.xCord(), move.yCord()));
+      }
+      assertEquals(shift(strategy.allBestMoveCandidates(small, Player.A), width - 40,
+                      height - 40), strategy.allBestMoveCandidates(large, Player.A));
+    }
+  }
+
+  /**
+   * Creates a started game on a board of holes but for a 2 by 2 island in its bottom right
+   * corner, with one card of player B in the corner.
+   * @param width the width of the board
+   * @param height the height of the board
+   * @return the game
+   */
+  private static TiledBoard islandInCorner(int width, int height) {
+    List<Card> deck;
+    try {
+      deck = new ConfigParser().parseCards(new Scanner(new File("docs" + File.separator
+              + "17cards.config")));
+    } catch (FileNotFoundException e) {
+      throw new IllegalArgumentException("file name does not exist");
+    }
+    Card corner = deck.remove(0);
+    corner.switchPlayer(Player.B);
+    TiledBoard board = new TiledBoard.TiledBoardBuilder(width, height)
+            .addEmpty(width - 2, height - 2)
+            .addEmpty(width - 1, height - 2)
+            .addEmpty(width - 2, height - 1)
+            .addCard(width - 1, height - 1, corner)
+            .build(deck, new Random(1), false);
+    board.startGame();
+    return board;
+  }
+
+  /**
+   * Moves every move in a list by the same amount.
+   * @param moves the moves
+   * @param dx how far to move them right
+   * @param dy how far to move them down
+   * @return the moved moves, in the same order
+   */
+  private static List<IMove> shift(List<IMove> moves, int dx, int dy) {
+    List<IMove> ret = new ArrayList<>();
+    for (IMove move : moves) {
+      ret.add(new Move(move.handIdx(), move.xCord() + dx, move.yCord() + dy, move.score()));
+    }
+    return ret;
+  }
+
   @Test
   public void handIdx() {
     assertEquals(move1.handIdx(), 0);
@@ -0,0 +1,136 @@
+package model.stategy;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Tests for the transposition table shared by searching strategies.
+ */
+public class TranspositionTableTest {
+  private TranspositionTable table;
+
+  @Before
+  public void setUp() {
+    table = new TranspositionTable(1);
+  }
+
+  @Test
+  public void testCapacityFitsMemory() {
+    assertEquals(65536, table.capacity());
+    assertEquals(131072, new TranspositionTable(3).capacity());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    assertThrows(IllegalArgumentException.class,
+        () -> table.store(1, 0, 40000, 1, TranspositionTable.Bound.EXACT));
+    assertThrows(IllegalArgumentException.class,
+        () -> table.store(1, 0, 0, -1, TranspositionTable.Bound.EXACT));
+    assertThrows(IllegalArgumentException.class,
+        () -> table.store(1, 0, 0, 256, TranspositionTable.Bound.EXACT));
+    assertThrows(IllegalArgumentException.class, () -> table.store(1, 0, 0, 1, null));
+  }
+
+  @Test
+  public void testStoreAndProbe() {
+    assertEquals(TranspositionTable.MISS, table.probe(42));
+    table.store(42, 7, -12, 3, TranspositionTable.Bound.LOWER);
+
+    long entry = table.probe(42);
+    assertEquals(7, TranspositionTable.move(entry));
+    assertEquals(-12, TranspositionTable.score(entry));
+    assertEquals(3, TranspositionTable.depth(entry));
+    assertEquals(TranspositionTable.Bound.LOWER, TranspositionTable.bound(entry));
+    assertEquals(1, table.hits());
+    assertEquals(1, table.misses());
+  }
+
+  @Test
+  public void testNoMove() {
+    table.store(42, TranspositionTable.NO_MOVE, 0, 0, TranspositionTable.Bound.UPPER);
+    assertEquals(TranspositionTable.NO_MOVE, TranspositionTable.move(table.probe(42)));
+  }
+
+  @Test
+  public void testSamePositionIsReplaced() {
+    table.store(42, 1, 5, 6, TranspositionTable.Bound.EXACT);
+    table.store(42, 2, 8, 1, TranspositionTable.Bound.UPPER);
+    long entry = table.probe(42);
+    assertEquals(2, TranspositionTable.move(entry));
+    assertEquals(1, TranspositionTable.depth(entry));
+    assertEquals(0, table.collisions());
+  }
+
+  @Test
+  public void testDeeperEntriesAreKept() {
+    //all three hashes share a pair of entries
+    long deep = 5;
+    long shallow = 5 + (1L << 20);
+    long newer = 5 + (2L << 20);
+    table.store(deep, 1, 0, 9, TranspositionTable.Bound.EXACT);
+    table.store(shallow, 2, 0, 2, TranspositionTable.Bound.EXACT);
+    table.store(newer, 3, 0, 4, TranspositionTable.Bound.EXACT);
+
+    assertEquals(1, TranspositionTable.move(table.probe(deep)));
+    assertEquals(TranspositionTable.MISS, table.probe(shallow));
+    assertEquals(3, TranspositionTable.move(table.probe(newer)));
+    assertEquals(1, table.collisions());
+  }
+
+  @Test
+  public void testOlderSearchesAreReplacedFirst() {
+    long deep = 5;
+    long shallow = 5 + (1L << 20);
+    long newer = 5 + (2L << 20);
+    table.store(deep, 1, 0, 9, TranspositionTable.Bound.EXACT);
+    table.newSearch();
+    table.store(shallow, 2, 0, 2, TranspositionTable.Bound.EXACT);
+    table.store(newer, 3, 0, 4, TranspositionTable.Bound.EXACT);
+
+    assertEquals(TranspositionTable.MISS, table.probe(deep));
+    assertEquals(2, TranspositionTable.move(table.probe(shallow)));
+    assertEquals(3, TranspositionTable.move(table.probe(newer)));
+  }
+
+  @Test
+  public void testClear() {
+    table.store(42, 1, 5, 6, TranspositionTable.Bound.EXACT);
+    table.probe(42);
+    table.clear();
+    assertEquals(0, table.hits());
+    assertEquals(TranspositionTable.MISS, table.probe(42));
+    assertEquals(1, table.misses());
+  }
+
+  @Test
+  public void testSharedBetweenThreads() throws InterruptedException {
+    AtomicBoolean torn = new AtomicBoolean(false);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (long hash = 1; hash < 200000; hash++) {
+          table.store(hash * 0x9E3779B97F4A7C15L, (int) hash, (int) (hash % 1000), 1,
+                  TranspositionTable.Bound.EXACT);
+          long entry = table.probe((hash / 2) * 0x9E3779B97F4A7C15L);
+          if (entry != TranspositionTable.MISS
+                  && (TranspositionTable.move(entry) != (int) (hash / 2)
+                  || TranspositionTable.score(entry) != (hash / 2) % 1000)) {
+            torn.set(true);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertFalse(torn.get());
+  }
+}